@@ -0,0 +1,295 @@
+package com.github.coderodde.weblog.viewcounter.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class drives {@code /countView} at a target rate. The requests are
+ * scheduled at fixed intervals regardless of how fast the earlier ones
+ * completed, and the latency of a request is measured from its scheduled
+ * start, so that a stalled server shows up in the latencies instead of
+ * slowing the load down. Each request is made on behalf of a visitor given in
+ * the {@code X-FORWARDED-FOR} header: a new one with the probability of the
+ * unique ratio, otherwise one of the repeat visitors at random.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class LoadGenerator {
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String SUCCEEDED = "\"succeeded\":true";
+
+    private final URL countViewURL;
+    private final URL[] pageURLs;
+    private final int numberOfThreads;
+    private final double uniqueRatio;
+    private final int numberOfRepeatVisitors;
+
+    private final AtomicLong uniqueVisitorCounter = new AtomicLong();
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+    private final LongAdder numberOfRequests = new LongAdder();
+    private final LongAdder numberOfSucceededRequests = new LongAdder();
+    private final LongAdder numberOfRateLimitedRequests = new LongAdder();
+    private final LongAdder numberOfFailedRequests = new LongAdder();
+    private final Map<Integer, LongAdder> failedRequestStatuses =
+            new ConcurrentSkipListMap<>();
+    private final Map<String, VisitorCount> visitorCounts =
+            new ConcurrentHashMap<>();
+
+    private volatile long measurementEndNanos;
+
+    LoadGenerator(URL countViewURL,
+                  int numberOfThreads,
+                  double uniqueRatio,
+                  int numberOfRepeatVisitors,
+                  int numberOfPages) throws MalformedURLException {
+        this.countViewURL = countViewURL;
+        this.pageURLs = new URL[numberOfPages];
+        this.numberOfThreads = numberOfThreads;
+        this.uniqueRatio = uniqueRatio;
+        this.numberOfRepeatVisitors = numberOfRepeatVisitors;
+
+        for (int page = 0; page < numberOfPages; page++) {
+            pageURLs[page] = new URL(countViewURL + "?page=/post/" + page);
+        }
+    }
+
+    /**
+     * Sends the requests and waits for them to complete. The requests
+     * scheduled during the warm-up are sent and counted in the visitor
+     * counts, but not in the latencies and the throughput.
+     *
+     * @param requestsPerSecond the target rate.
+     * @param warmUpSeconds     the length of the warm-up.
+     * @param durationSeconds   the length of the measurement.
+     * @return the length of the measurement in nanoseconds: from the end of
+     *         the warm-up until the last request completed.
+     * @throws java.lang.Exception if a worker fails.
+     */
+    long run(double requestsPerSecond, int warmUpSeconds, int durationSeconds)
+            throws Exception {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1L) /
+                                     requestsPerSecond);
+        long startNanos = System.nanoTime();
+        long measurementStartNanos =
+                startNanos + TimeUnit.SECONDS.toNanos(warmUpSeconds);
+        long endNanos =
+                measurementStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong nextRequest = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                numberOfThreads,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "load-generator");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        List<Future<?>> futures = new ArrayList<>(numberOfThreads);
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            futures.add(executor.submit(() -> {
+                while (true) {
+                    long scheduledNanos = startNanos +
+                            nextRequest.getAndIncrement() * intervalNanos;
+
+                    if (scheduledNanos >= endNanos) {
+                        return null;
+                    }
+
+                    waitUntil(scheduledNanos);
+                    sendRequest(scheduledNanos >= measurementStartNanos,
+                                scheduledNanos);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return Math.max(1L, measurementEndNanos - measurementStartNanos);
+    }
+
+    LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    long getNumberOfRequests() {
+        return numberOfRequests.sum();
+    }
+
+    long getNumberOfSucceededRequests() {
+        return numberOfSucceededRequests.sum();
+    }
+
+    long getNumberOfRateLimitedRequests() {
+        return numberOfRateLimitedRequests.sum();
+    }
+
+    long getNumberOfFailedRequests() {
+        return numberOfFailedRequests.sum();
+    }
+
+    /**
+     * Returns the number of the failed requests by the HTTP status, -1 for
+     * the requests that got no response.
+     *
+     * @return the failed requests by the status.
+     */
+    Map<Integer, LongAdder> getFailedRequestStatuses() {
+        return failedRequestStatuses;
+    }
+
+    /**
+     * Returns the number of views sent and acknowledged by the visitors.
+     *
+     * @return the visitor counts mapped by the IP-addresses.
+     */
+    Map<String, VisitorCount> getVisitorCounts() {
+        return visitorCounts;
+    }
+
+    private void sendRequest(boolean measured, long scheduledNanos) {
+        String ipAddress = nextIPAddress();
+        VisitorCount visitorCount =
+                visitorCounts.computeIfAbsent(ipAddress,
+                                              address -> new VisitorCount());
+
+        visitorCount.sent.increment();
+        numberOfRequests.increment();
+
+        int status;
+        String body;
+
+        try {
+            HttpURLConnection connection =
+                    (HttpURLConnection) getRequestURL().openConnection();
+
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestProperty("X-FORWARDED-FOR", ipAddress);
+
+            status = connection.getResponseCode();
+            body = readBody(status < HttpURLConnection.HTTP_BAD_REQUEST ?
+                            connection.getInputStream() :
+                            connection.getErrorStream());
+        } catch (IOException ex) {
+            status = -1;
+            body = "";
+        }
+
+        long completedNanos = System.nanoTime();
+
+        if (status == HttpURLConnection.HTTP_OK && body.contains(SUCCEEDED)) {
+            numberOfSucceededRequests.increment();
+            visitorCount.succeeded.increment();
+        } else if (status == SC_TOO_MANY_REQUESTS) {
+            numberOfRateLimitedRequests.increment();
+        } else {
+            numberOfFailedRequests.increment();
+            failedRequestStatuses.computeIfAbsent(status, s -> new LongAdder())
+                                 .increment();
+        }
+
+        if (measured) {
+            latencyHistogram.record(
+                    TimeUnit.NANOSECONDS.toMicros(
+                            completedNanos - scheduledNanos));
+
+            synchronized (this) {
+                measurementEndNanos =
+                        Math.max(measurementEndNanos, completedNanos);
+            }
+        }
+    }
+
+    private URL getRequestURL() {
+        if (pageURLs.length == 0) {
+            return countViewURL;
+        }
+
+        return pageURLs[ThreadLocalRandom.current().nextInt(pageURLs.length)];
+    }
+
+    private String nextIPAddress() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (numberOfRepeatVisitors == 0 || random.nextDouble() < uniqueRatio) {
+            // 10.0.0.0/8:
+            long visitor = uniqueVisitorCounter.getAndIncrement();
+            return "10." + ((visitor >>> 16) & 0xff) + "." +
+                           ((visitor >>> 8) & 0xff) + "." +
+                           (visitor & 0xff);
+        }
+
+        // 172.16.0.0/12:
+        int visitor = random.nextInt(numberOfRepeatVisitors);
+        return "172." + (16 + ((visitor >>> 16) & 0xf)) + "." +
+                        ((visitor >>> 8) & 0xff) + "." +
+                        (visitor & 0xff);
+    }
+
+    /**
+     * Reads the body in full so that the connection can be reused.
+     */
+    private static String readBody(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return "";
+        }
+
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int bytesRead;
+
+            while ((bytesRead = in.read(buffer)) >= 0) {
+                body.write(buffer, 0, bytesRead);
+            }
+
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void waitUntil(long nanos) {
+        long remainingNanos;
+
+        while ((remainingNanos = nanos - System.nanoTime()) > 0L) {
+            LockSupport.parkNanos(remainingNanos);
+        }
+    }
+
+    /**
+     * The number of views of a visitor sent and acknowledged.
+     */
+    static final class VisitorCount {
+        final LongAdder sent = new LongAdder();
+        final LongAdder succeeded = new LongAdder();
+    }
+}
@@ -0,0 +1,431 @@
+package com.github.coderodde.weblog.viewcounter.loadtest;
+
+import com.github.coderodde.weblog.viewcounter.loadtest.LoadGenerator.VisitorCount;
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+
+/**
+ * This class runs a load test of the view counter: it starts the WAR in
+ * embedded Tomcat against an in-memory H2 database in MySQL mode, drives
+ * {@code /countView} with a {@link LoadGenerator}, stops the application so
+ * that all the pending views are written, and checks that the counters in
+ * the database add up with the views stored and acknowledged. The settings
+ * are read from the system properties:
+ *
+ * <ul>
+ *   <li>{@code loadtest.war}: the WAR to test.</li>
+ *   <li>{@code loadtest.rate}: the target number of requests per second,
+ *       200 by default.</li>
+ *   <li>{@code loadtest.warmup.seconds}: the length of the warm-up not
+ *       measured, 5 by default.</li>
+ *   <li>{@code loadtest.duration.seconds}: the length of the measurement,
+ *       30 by default. Set it to hours for a soak test.</li>
+ *   <li>{@code loadtest.threads}: the number of concurrent requests at most,
+ *       64 by default.</li>
+ *   <li>{@code loadtest.unique.ratio}: the share of the requests made by new
+ *       visitors, 0.1 by default.</li>
+ *   <li>{@code loadtest.repeat.visitors}: the number of the returning
+ *       visitors making the rest of the requests, 1000 by default.</li>
+ *   <li>{@code loadtest.pages}: the number of the pages the views are spread
+ *       over, 0 (no page) by default.</li>
+ *   <li>{@code loadtest.port}: the HTTP port, any free port by default.</li>
+ *   <li>{@code loadtest.maximum.error.percent}: the error rate above which
+ *       the test fails, 1.0 by default.</li>
+ *   <li>{@code loadtest.minimum.throughput.percent}: the share of the target
+ *       rate in percent below which the achieved rate fails the test, 90.0
+ *       by default.</li>
+ *   <li>{@code loadtest.maximum.p99.millis}: the 99th percentile latency in
+ *       milliseconds above which the test fails, 100.0 by default.</li>
+ * </ul>
+ *
+ * <p>The {@code WEBLOG_*} settings of the application may be given as system
+ * properties too. The rate limiting is disabled unless
+ * {@code WEBLOG_RATE_LIMIT_PER_MINUTE} is given, since the repeat visitors
+ * would exceed it. The counters are checked only if the views are stored in
+ * the database; a database other than H2 needs its JDBC driver on the class
+ * path.
+ *
+ * <p>Exits with status 1 if the counters do not add up, the error rate or the
+ * 99th percentile latency is too high, or the achieved rate falls too far
+ * short of the target.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class LoadTest {
+
+    private static final String JDBC_URL =
+            "jdbc:h2:mem:weblog;MODE=MySQL;DB_CLOSE_DELAY=-1;" +
+            "DATABASE_TO_LOWER=TRUE";
+
+    private static final long READY_TIMEOUT_MILLIS = 60_000L;
+    private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+
+    private LoadTest() {}
+
+    public static void main(String[] args) {
+        boolean passed;
+
+        try {
+            passed = run();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            passed = false;
+        }
+
+        // Stops the threads of the application left running, if any:
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run() throws Exception {
+        String war = System.getProperty("loadtest.war");
+        double requestsPerSecond = getDouble("loadtest.rate", 200.0);
+        int warmUpSeconds = getInt("loadtest.warmup.seconds", 5);
+        int durationSeconds = getInt("loadtest.duration.seconds", 30);
+        int numberOfThreads = getInt("loadtest.threads", 64);
+        double uniqueRatio = getDouble("loadtest.unique.ratio", 0.1);
+        int numberOfRepeatVisitors = getInt("loadtest.repeat.visitors", 1_000);
+        int numberOfPages = getInt("loadtest.pages", 0);
+        int port = getInt("loadtest.port", 0);
+        double maximumErrorPercent =
+                getDouble("loadtest.maximum.error.percent", 1.0);
+        double minimumThroughputPercent =
+                getDouble("loadtest.minimum.throughput.percent", 90.0);
+        double maximumP99Millis =
+                getDouble("loadtest.maximum.p99.millis", 100.0);
+
+        if (war == null || !new File(war).isFile()) {
+            throw new IllegalArgumentException(
+                    "No WAR at " + war + ", build it with mvn package.");
+        }
+
+        setDefault("WEBLOG_JDBC_URL", JDBC_URL);
+        setDefault("WEBLOG_RATE_LIMIT_PER_MINUTE", "0");
+
+        // Reuse a connection per load generator thread:
+        System.setProperty("http.maxConnections",
+                           Integer.toString(numberOfThreads));
+
+        Tomcat tomcat = startTomcat(war, port);
+        LoadGenerator loadGenerator;
+        long measurementNanos;
+
+        try {
+            URL baseURL = new URL("http://localhost:" +
+                                  tomcat.getConnector().getLocalPort());
+            awaitReady(new URL(baseURL, "/viewHistory"));
+
+            loadGenerator = new LoadGenerator(new URL(baseURL, "/countView"),
+                                              numberOfThreads,
+                                              uniqueRatio,
+                                              numberOfRepeatVisitors,
+                                              numberOfPages);
+
+            System.out.printf(
+                    "Sending %.1f requests/s for %d s after a %d s " +
+                    "warm-up...%n",
+                    requestsPerSecond,
+                    durationSeconds,
+                    warmUpSeconds);
+
+            measurementNanos = loadGenerator.run(requestsPerSecond,
+                                                 warmUpSeconds,
+                                                 durationSeconds);
+        } finally {
+            // Writes the pending views:
+            tomcat.stop();
+            tomcat.destroy();
+        }
+
+        printRequestStatistics(loadGenerator, measurementNanos);
+        boolean thresholdsMet = checkThresholds(loadGenerator,
+                                                measurementNanos,
+                                                requestsPerSecond,
+                                                maximumErrorPercent,
+                                                minimumThroughputPercent,
+                                                maximumP99Millis);
+        boolean countersCorrect = checkCounters(loadGenerator,
+                                                numberOfPages > 0);
+
+        return thresholdsMet && countersCorrect;
+    }
+
+    private static Tomcat startTomcat(String war, int port) throws Exception {
+        Path baseDirectory = Files.createTempDirectory("weblog-loadtest");
+        Files.createDirectories(baseDirectory.resolve("webapps"));
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDirectory.toString());
+        tomcat.setPort(port);
+        tomcat.setAddDefaultWebXmlToWebapp(false);
+        tomcat.getConnector();
+
+        // At the root, as deployed by webapp-runner:
+        StandardContext context = (StandardContext) 
+                tomcat.addWebapp("", new File(war).getAbsolutePath());
+
+        // Needs reflective access to the JDK denied on Java 9 and later:
+        context.setClearReferencesObjectStreamClassCaches(false);
+        context.setClearReferencesRmiTargets(false);
+        tomcat.start();
+        return tomcat;
+    }
+
+    /**
+     * Waits until the application has its schema in place and stops
+     * answering 503.
+     */
+    private static void awaitReady(URL url) throws Exception {
+        long deadlineMillis = System.currentTimeMillis() + READY_TIMEOUT_MILLIS;
+
+        while (true) {
+            HttpURLConnection connection =
+                    (HttpURLConnection) url.openConnection();
+            int status = connection.getResponseCode();
+            connection.disconnect();
+
+            if (status != HttpURLConnection.HTTP_UNAVAILABLE) {
+                return;
+            }
+
+            if (System.currentTimeMillis() > deadlineMillis) {
+                throw new IllegalStateException(
+                        "The application did not start.");
+            }
+
+            Thread.sleep(100L);
+        }
+    }
+
+    private static void printRequestStatistics(LoadGenerator loadGenerator,
+                                               long measurementNanos) {
+        LatencyHistogram latencyHistogram =
+                loadGenerator.getLatencyHistogram();
+        long numberOfRequests = loadGenerator.getNumberOfRequests();
+        double errorPercent = getErrorPercent(loadGenerator);
+
+        System.out.printf("Requests:          %d%n", numberOfRequests);
+        System.out.printf("  succeeded:       %d%n",
+                          loadGenerator.getNumberOfSucceededRequests());
+        System.out.printf("  rate limited:    %d%n",
+                          loadGenerator.getNumberOfRateLimitedRequests());
+        System.out.printf("  failed:          %d (%.3f%%) %s%n",
+                          loadGenerator.getNumberOfFailedRequests(),
+                          errorPercent,
+                          loadGenerator.getFailedRequestStatuses());
+        System.out.printf("Throughput:        %.1f requests/s%n",
+                          getThroughput(loadGenerator, measurementNanos));
+        System.out.printf("Latency (ms):      mean %.3f%n",
+                          latencyHistogram.getMeanMicros() / 1e3);
+
+        for (double percentile : PERCENTILES) {
+            System.out.printf("  p%-5s           %.3f%n",
+                              formatPercentile(percentile),
+                              latencyHistogram.getPercentileMicros(percentile) /
+                                      1e3);
+        }
+
+        System.out.printf("  max              %.3f%n",
+                          latencyHistogram.getMaximumMicros() / 1e3);
+    }
+
+    /**
+     * Checks the error rate, the achieved rate against the target and the
+     * 99th percentile latency, and prints each threshold missed.
+     */
+    private static boolean checkThresholds(LoadGenerator loadGenerator,
+                                           long measurementNanos,
+                                           double requestsPerSecond,
+                                           double maximumErrorPercent,
+                                           double minimumThroughputPercent,
+                                           double maximumP99Millis) {
+        boolean thresholdsMet = true;
+        double errorPercent = getErrorPercent(loadGenerator);
+        double throughputPercent =
+                100.0 * getThroughput(loadGenerator, measurementNanos) /
+                        requestsPerSecond;
+        double p99Millis = loadGenerator.getLatencyHistogram()
+                                        .getPercentileMicros(99.0) / 1e3;
+
+        if (errorPercent > maximumErrorPercent) {
+            System.out.printf("Error rate %.3f%% above %.3f%%.%n",
+                              errorPercent,
+                              maximumErrorPercent);
+            thresholdsMet = false;
+        }
+
+        if (throughputPercent < minimumThroughputPercent) {
+            System.out.printf(
+                    "Throughput %.1f%% of the target below %.1f%%.%n",
+                    throughputPercent,
+                    minimumThroughputPercent);
+            thresholdsMet = false;
+        }
+
+        if (p99Millis > maximumP99Millis) {
+            System.out.printf("Latency p99 %.3f ms above %.3f ms.%n",
+                              p99Millis,
+                              maximumP99Millis);
+            thresholdsMet = false;
+        }
+
+        return thresholdsMet;
+    }
+
+    private static double getErrorPercent(LoadGenerator loadGenerator) {
+        long numberOfRequests = loadGenerator.getNumberOfRequests();
+        return numberOfRequests == 0L ?
+                0.0 :
+                100.0 * loadGenerator.getNumberOfFailedRequests() /
+                        numberOfRequests;
+    }
+
+    private static double getThroughput(LoadGenerator loadGenerator,
+                                        long measurementNanos) {
+        return loadGenerator.getLatencyHistogram().getCount() * 1e9 /
+               measurementNanos;
+    }
+
+    /**
+     * Checks that the counters add up with the views stored, and that each
+     * visitor has at least the views acknowledged and at most the views sent
+     * stored, since a failed request may still have been counted.
+     */
+    private static boolean checkCounters(LoadGenerator loadGenerator,
+                                         boolean checkPages)
+            throws SQLException {
+        if ("local".equalsIgnoreCase(getSetting("WEBLOG_STORE"))) {
+            System.out.println("Counters:          not checked, local store");
+            return true;
+        }
+
+        try (Connection connection = DriverManager.getConnection(
+                getSetting("WEBLOG_JDBC_URL"),
+                getSetting("WEBLOG_JDBC_USERNAME"),
+                getSetting("WEBLOG_JDBC_PASSWORD"))) {
+
+            long numberOfViews =
+                    queryLong(connection, "SELECT COUNT(*) FROM `view`");
+            long viewTotal =
+                    queryLong(connection,
+                              "SELECT view_count FROM view_totals");
+            long visitorViewTotal =
+                    queryLong(connection,
+                              "SELECT SUM(view_count) FROM visitor_stats");
+
+            boolean correct = true;
+
+            System.out.printf("Views stored:      %d%n", numberOfViews);
+            correct &= printCheck("view totals", viewTotal, numberOfViews);
+            correct &= printCheck("visitor totals",
+                                  visitorViewTotal,
+                                  numberOfViews);
+
+            if (checkPages) {
+                correct &= printCheck(
+                        "page totals",
+                        queryLong(connection,
+                                  "SELECT SUM(view_count) FROM page_stats"),
+                        queryLong(connection,
+                                  "SELECT COUNT(page_id) FROM `view`"));
+            }
+
+            Map<String, Long> storedVisitorCounts = new HashMap<>();
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT ip_address, view_count FROM visitor_stats")) {
+                while (resultSet.next()) {
+                    storedVisitorCounts.put(resultSet.getString(1),
+                                            resultSet.getLong(2));
+                }
+            }
+
+            long numberOfWrongVisitors = 0L;
+
+            for (Map.Entry<String, VisitorCount> entry :
+                    loadGenerator.getVisitorCounts().entrySet()) {
+                Long storedCount = storedVisitorCounts.remove(entry.getKey());
+                long stored = storedCount == null ? 0L : storedCount;
+
+                if (stored < entry.getValue().succeeded.sum() ||
+                        stored > entry.getValue().sent.sum()) {
+                    numberOfWrongVisitors++;
+                }
+            }
+
+            // Visitors never sent:
+            numberOfWrongVisitors += storedVisitorCounts.size();
+
+            System.out.printf("Visitors:          %d%n",
+                              loadGenerator.getVisitorCounts().size());
+            correct &= printCheck("wrong visitors", numberOfWrongVisitors, 0L);
+            return correct;
+        }
+    }
+
+    private static boolean printCheck(String name, long actual, long expected) {
+        boolean correct = actual == expected;
+
+        System.out.printf("  %-16s %d%s%n",
+                          name + ":",
+                          actual,
+                          correct ? "" : " (expected " + expected + ")");
+        return correct;
+    }
+
+    private static long queryLong(Connection connection, String sql)
+            throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0L;
+        }
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ?
+                Long.toString((long) percentile) :
+                Double.toString(percentile);
+    }
+
+    /**
+     * Returns the setting of the application, looked up like the application
+     * does: in the environment first, then in the system properties.
+     */
+    private static String getSetting(String name) {
+        String value = System.getenv(name);
+        return value != null ? value : System.getProperty(name);
+    }
+
+    private static void setDefault(String name, String value) {
+        if (getSetting(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    private static int getInt(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static double getDouble(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ?
+                defaultValue :
+                Double.parseDouble(value.trim());
+    }
+}
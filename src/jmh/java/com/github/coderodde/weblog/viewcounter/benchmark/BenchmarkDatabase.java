@@ -0,0 +1,95 @@
+package com.github.coderodde.weblog.viewcounter.benchmark;
+
+import com.github.coderodde.weblog.viewcounter.ViewCounterBootstrap;
+import com.github.coderodde.weblog.viewcounter.ViewRecord;
+import com.github.coderodde.weblog.viewcounter.ViewStore;
+import com.github.coderodde.weblog.viewcounter.ViewStores;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class sets up the view store the benchmarks run against: the in-memory
+ * H2 database in MySQL mode, or the local view store in a temporary directory
+ * if {@code WEBLOG_STORE} is {@code local}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class BenchmarkDatabase {
+
+    /**
+     * The number of distinct visitors in the seeded database.
+     */
+    static final int NUMBER_OF_VISITORS = 1_000;
+
+    private static final String JDBC_URL = 
+            "jdbc:h2:mem:weblog;MODE=MySQL;DB_CLOSE_DELAY=-1;" + 
+            "DATABASE_TO_LOWER=TRUE";
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private static final ViewCounterBootstrap BOOTSTRAP = 
+            new ViewCounterBootstrap();
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * Creates the schema, seeds it with {@code numberOfViews} views spread 
+     * evenly over the visitors and starts the application.
+     * 
+     * @param numberOfViews the number of views to seed.
+     * @throws java.lang.Exception if the setup fails.
+     */
+    static void start(int numberOfViews) throws Exception {
+        System.setProperty("WEBLOG_JDBC_URL", JDBC_URL);
+        System.setProperty(
+                "WEBLOG_LOCAL_STORE_DIRECTORY", 
+                Files.createTempDirectory("weblog-benchmark").toString());
+
+        ViewStore viewStore = ViewStores.getInstance();
+        viewStore.migrateSchema();
+
+        long startTimeMillis = System.currentTimeMillis() - numberOfViews;
+        List<ViewRecord> batch = new ArrayList<>(SEED_BATCH_SIZE);
+
+        for (int i = 0; i < numberOfViews; i++) {
+            batch.add(new ViewRecord(getIPAddress(i % NUMBER_OF_VISITORS), 
+                                     "localhost", 
+                                     80, 
+                                     startTimeMillis + i));
+
+            if (batch.size() == SEED_BATCH_SIZE) {
+                viewStore.addViews(batch);
+                batch.clear();
+            }
+        }
+
+        viewStore.addViews(batch);
+        BOOTSTRAP.contextInitialized(null);
+
+        if (!ViewCounterBootstrap.isSchemaReady()) {
+            throw new IllegalStateException("The application did not start.");
+        }
+    }
+
+    /**
+     * Stops the application.
+     */
+    static void stop() {
+        BOOTSTRAP.contextDestroyed(null);
+    }
+
+    /**
+     * Returns the IP-address of the {@code visitor}th visitor.
+     * 
+     * @param visitor the index of the visitor.
+     * @return the IP-address of the visitor.
+     */
+    static String getIPAddress(int visitor) {
+        return "10." + ((visitor >>> 16) & 0xff) + "." + 
+                       ((visitor >>> 8) & 0xff) + "." + 
+                       (visitor & 0xff);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.coderodde.weblog.viewcounter.benchmark;
+
+import com.github.coderodde.weblog.viewcounter.CountViewServlet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks {@code POST /countView} end to end, from the request
+ * reaching the servlet to the JSON response being written, under each of the 
+ * ingestion and caching configurations.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountViewServletBenchmark {
+
+    @Param({"synchronous", "write-behind"})
+    public String ingestionMode;
+
+    @Param({"false", "true"})
+    public String statsCacheEnabled;
+
+    private CountViewServlet countViewServlet;
+    private int visitor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("WEBLOG_INGESTION_MODE", ingestionMode);
+        System.setProperty("WEBLOG_STATS_CACHE_ENABLED", statsCacheEnabled);
+        // The benchmark visitors hit far above any sensible rate limit:
+        System.setProperty("WEBLOG_RATE_LIMIT_PER_MINUTE", "0");
+        BenchmarkDatabase.start(100_000);
+
+        countViewServlet = new CountViewServlet();
+        countViewServlet.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        countViewServlet.destroy();
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public void countView() throws Exception {
+        String ipAddress = BenchmarkDatabase.getIPAddress(
+                visitor++ % BenchmarkDatabase.NUMBER_OF_VISITORS);
+
+        CountDownLatch completion = new CountDownLatch(1);
+        HttpServletResponse response = FakeServletObjects.newResponse();
+        HttpServletRequest request = 
+                FakeServletObjects.newRequest(ipAddress, response, completion);
+
+        countViewServlet.service(request, response);
+        completion.await();
+    }
+}
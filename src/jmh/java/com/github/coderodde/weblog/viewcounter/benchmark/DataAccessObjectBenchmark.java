@@ -0,0 +1,120 @@
+package com.github.coderodde.weblog.viewcounter.benchmark;
+
+import com.github.coderodde.weblog.viewcounter.DataAccessObject;
+import com.github.coderodde.weblog.viewcounter.ViewRecord;
+import com.github.coderodde.weblog.viewcounter.ViewStatistics;
+import com.github.coderodde.weblog.viewcounter.ViewStore;
+import com.github.coderodde.weblog.viewcounter.ViewStores;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks each of the {@link ViewStore} operations, on the 
+ * {@link DataAccessObject} and on the local view store side by side.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataAccessObjectBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"mysql", "local"})
+    public String store;
+
+    private ViewStore viewStore;
+    private int visitor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("WEBLOG_STORE", store);
+        BenchmarkDatabase.start(100_000);
+        viewStore = ViewStores.getInstance();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public Integer getTotalViewCount() throws Exception {
+        return viewStore.getTotalViewCount();
+    }
+
+    @Benchmark
+    public ZonedDateTime getMostRecentViewTime() throws Exception {
+        return viewStore.getMostRecentViewTime();
+    }
+
+    @Benchmark
+    public Integer getVisitorsViewCount() throws Exception {
+        return viewStore.getVisitorsViewCount(nextIPAddress());
+    }
+
+    @Benchmark
+    public ZonedDateTime getVisitorsMostRecentViewTime() throws Exception {
+        return viewStore.getVisitorsMostRecentViewTime(nextIPAddress());
+    }
+
+    @Benchmark
+    public ViewStatistics getViewStatistics() throws Exception {
+        return viewStore.getViewStatistics(nextIPAddress());
+    }
+
+    @Benchmark
+    public void addView() throws Exception {
+        viewStore.addView(nextViewRecord());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void addViews() throws Exception {
+        List<ViewRecord> viewRecords = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            viewRecords.add(nextViewRecord());
+        }
+
+        viewStore.addViews(viewRecords);
+    }
+
+    @Benchmark
+    public ViewStatistics recordViewAndFetchStats() throws Exception {
+        return viewStore.recordViewAndFetchStats(nextViewRecord());
+    }
+
+    private String nextIPAddress() {
+        return BenchmarkDatabase.getIPAddress(
+                visitor++ % BenchmarkDatabase.NUMBER_OF_VISITORS);
+    }
+
+    private ViewRecord nextViewRecord() {
+        return new ViewRecord(nextIPAddress(), 
+                              "localhost", 
+                              80, 
+                              System.currentTimeMillis());
+    }
+}
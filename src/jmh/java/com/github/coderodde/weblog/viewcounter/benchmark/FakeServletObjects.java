@@ -0,0 +1,140 @@
+package com.github.coderodde.weblog.viewcounter.benchmark;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class creates minimal stand-ins for the container-provided servlet 
+ * objects so that the servlets can be driven outside of a container.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class FakeServletObjects {
+
+    private FakeServletObjects() {}
+
+    /**
+     * Returns a response discarding its body.
+     * 
+     * @return the response.
+     */
+    static HttpServletResponse newResponse() {
+        PrintWriter printWriter = new PrintWriter(new NullWriter());
+        ServletOutputStream servletOutputStream = new NullServletOutputStream();
+
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                FakeServletObjects.class.getClassLoader(),
+                new Class<?>[]{ HttpServletResponse.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWriter":
+                            return printWriter;
+
+                        case "getOutputStream":
+                            return servletOutputStream;
+
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * Returns a POST request coming from {@code ipAddress} via a load 
+     * balancer. Starting asynchronous processing on it returns a context that
+     * counts down {@code completion} when completed.
+     * 
+     * @param ipAddress  the IP-address of the client.
+     * @param response   the response to pair the request with.
+     * @param completion the latch to count down on completion.
+     * @return the request.
+     */
+    static HttpServletRequest newRequest(String ipAddress,
+                                         HttpServletResponse response,
+                                         CountDownLatch completion) {
+        AsyncContext asyncContext = (AsyncContext) Proxy.newProxyInstance(
+                FakeServletObjects.class.getClassLoader(),
+                new Class<?>[]{ AsyncContext.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getResponse":
+                            return response;
+
+                        case "complete":
+                            completion.countDown();
+                            return null;
+
+                        default:
+                            return null;
+                    }
+                });
+
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                FakeServletObjects.class.getClassLoader(),
+                new Class<?>[]{ HttpServletRequest.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader":
+                            return "X-FORWARDED-FOR".equalsIgnoreCase(
+                                    (String) args[0]) ? ipAddress : null;
+
+                        case "getRemoteAddr":
+                            return "127.0.0.1";
+
+                        case "getRemoteHost":
+                            return "localhost";
+
+                        case "getRemotePort":
+                            return 54321;
+
+                        case "getMethod":
+                            return "POST";
+
+                        case "startAsync":
+                            return asyncContext;
+
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static final class NullWriter extends Writer {
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    private static final class NullServletOutputStream 
+            extends ServletOutputStream {
+
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {}
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {}
+    }
+}
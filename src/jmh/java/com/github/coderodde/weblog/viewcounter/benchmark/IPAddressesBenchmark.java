@@ -0,0 +1,60 @@
+package com.github.coderodde.weblog.viewcounter.benchmark;
+
+import com.github.coderodde.weblog.viewcounter.IPAddresses;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks extracting the visitor's IP-address from a request 
+ * and packing it.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IPAddressesBenchmark {
+
+    @Param({"203.0.113.7", 
+            "2001:db8:85a3::8a2e:370:7334", 
+            "203.0.113.7, 10.0.0.1"})
+    public String forwardedFor;
+
+    private HttpServletRequest httpServletRequest;
+
+    @Setup
+    public void setUp() {
+        httpServletRequest = 
+                FakeServletObjects.newRequest(
+                        forwardedFor, 
+                        FakeServletObjects.newResponse(), 
+                        null);
+    }
+
+    @Benchmark
+    public String getIPAddress() {
+        return IPAddresses.getIPAddress(httpServletRequest);
+    }
+
+    @Benchmark
+    public byte[] getAndPackIPAddress() {
+        return IPAddresses.pack(
+                IPAddresses.getIPAddress(httpServletRequest));
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.coderodde.weblog.viewcounter.benchmark;
+
+import com.github.coderodde.weblog.viewcounter.JSONResponseObject;
+import com.github.coderodde.weblog.viewcounter.JSONResponseWriter;
+import com.github.coderodde.weblog.viewcounter.ViewStatistics;
+import com.google.gson.Gson;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks building and serializing the JSON response with Gson
+ * and with the {@link JSONResponseWriter}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONResponseObjectBenchmark {
+
+    private static final Gson GSON = new Gson();
+
+    private final JSONResponseWriter jsonResponseWriter = 
+            new JSONResponseWriter();
+
+    private ViewStatistics viewStatistics;
+
+    @Setup
+    public void setUp() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("Europe/Helsinki"));
+
+        viewStatistics = new ViewStatistics();
+        viewStatistics.numberOfTotalViews = 1_234_567;
+        viewStatistics.numberOfVisitorsViews = 42;
+        viewStatistics.mostRecentViewTime = now.minusSeconds(1L);
+        viewStatistics.visitorsMostRecentViewTime = now.minusDays(1L);
+        viewStatistics.numberOfUniqueVisitors = 98_765L;
+    }
+
+    @Benchmark
+    public String serialize() {
+        JSONResponseObject jsonResponseObject = new JSONResponseObject();
+        viewStatistics.copyTo(jsonResponseObject);
+        jsonResponseObject.succeeded = true;
+        return GSON.toJson(jsonResponseObject);
+    }
+
+    @Benchmark
+    public int encode() {
+        return jsonResponseWriter.encode(viewStatistics);
+    }
+}
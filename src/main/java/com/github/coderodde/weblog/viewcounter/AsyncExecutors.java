@@ -0,0 +1,95 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class creates the executors running the database work of the 
+ * asynchronous servlets off the container threads.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class AsyncExecutors {
+
+    private static final Logger LOGGER = 
+            Logger.getLogger(AsyncExecutors.class.getName());
+
+    private static final String ASYNC_VIRTUAL_THREADS = 
+            "WEBLOG_ASYNC_VIRTUAL_THREADS";
+    private static final String ASYNC_POOL_SIZE = "WEBLOG_ASYNC_POOL_SIZE";
+    private static final String ASYNC_QUEUE_CAPACITY = 
+            "WEBLOG_ASYNC_QUEUE_CAPACITY";
+
+    private AsyncExecutors() {}
+
+    /**
+     * Returns an executor starting a virtual thread per task if the running
+     * JDK supports them (and {@code WEBLOG_ASYNC_VIRTUAL_THREADS} is not
+     * {@code false}), or a bounded thread pool otherwise. The bounded pool 
+     * rejects the tasks when its queue is full.
+     * 
+     * @param name the name prefix of the threads.
+     * @return the executor.
+     */
+    static ExecutorService newExecutor(String name) {
+        if (Configuration.getBoolean(ASYNC_VIRTUAL_THREADS, true)) {
+            ExecutorService virtualThreadExecutor = 
+                    tryNewVirtualThreadExecutor();
+
+            if (virtualThreadExecutor != null) {
+                LOGGER.log(Level.INFO, "Using virtual threads for {0}.", name);
+                return virtualThreadExecutor;
+            }
+        }
+
+        int poolSize = Configuration.getInt(ASYNC_POOL_SIZE, 16);
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor threadPoolExecutor = 
+                new ThreadPoolExecutor(
+                        poolSize, 
+                        poolSize, 
+                        60L, 
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(
+                                Configuration.getInt(ASYNC_QUEUE_CAPACITY, 
+                                                     1_000)),
+                        runnable -> {
+                            Thread thread = 
+                                    new Thread(
+                                            runnable, 
+                                            name + "-" + 
+                                            threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()} or 
+     * {@code null} if the JDK does not have virtual threads. Looked up 
+     * reflectively, since the sources target Java 8.
+     */
+    private static ExecutorService tryNewVirtualThreadExecutor() {
+        try {
+            Method method = 
+                    java.util.concurrent.Executors.class.getMethod(
+                            "newVirtualThreadPerTaskExecutor");
+
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+}
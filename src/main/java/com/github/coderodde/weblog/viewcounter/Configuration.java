@@ -0,0 +1,116 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class provides access to the tunable settings of the application. Each
+ * setting is read from the environment variable of the same name, falling back
+ * to the system property of the same name and finally to the supplied default
+ * value.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class Configuration {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(Configuration.class.getName());
+
+    private Configuration() {}
+
+    /**
+     * Returns the raw value of the setting {@code name}.
+     *
+     * @param name         the name of the setting.
+     * @param defaultValue the value to return if the setting is not present.
+     * @return the value of the setting or {@code defaultValue}.
+     */
+    public static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+
+        if (value == null) {
+            value = System.getProperty(name);
+        }
+
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        return value.trim();
+    }
+
+    /**
+     * Returns the {@code int} value of the setting {@code name}.
+     *
+     * @param name         the name of the setting.
+     * @param defaultValue the value to return if the setting is not present or
+     *                     is malformed.
+     * @return the value of the setting or {@code defaultValue}.
+     */
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            logMalformedValue(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the {@code long} value of the setting {@code name}.
+     *
+     * @param name         the name of the setting.
+     * @param defaultValue the value to return if the setting is not present or
+     *                     is malformed.
+     * @return the value of the setting or {@code defaultValue}.
+     */
+    public static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            logMalformedValue(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the {@code boolean} value of the setting {@code name}.
+     *
+     * @param name         the name of the setting.
+     * @param defaultValue the value to return if the setting is not present.
+     * @return the value of the setting or {@code defaultValue}.
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+
+        if (value == null) {
+            return defaultValue;
+        }
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static void logMalformedValue(String name,
+                                          String value,
+                                          Object defaultValue) {
+        LOGGER.log(
+                Level.WARNING,
+                "Malformed value \"{0}\" for {1}, using the default {2}.",
+                objects(value, name, defaultValue));
+    }
+}
@@ -0,0 +1,259 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import com.github.coderodde.weblog.viewcounter.metrics.Timer;
+import com.github.coderodde.weblog.viewcounter.sql.SQLDefinitions;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This servlet records a view of each of the pages given in the repeated 
+ * {@code page} request parameter and returns the view statistics of each 
+ * page, so that a weblog page showing several posts needs a single request 
+ * instead of one per post. The views are inserted in a single batch and the 
+ * statistics are read with a single grouped query. At most 
+ * {@code WEBLOG_BATCH_MAXIMUM_PAGES} distinct pages are accepted per request;
+ * the pages are normalized by {@link Pages#normalize(String)} and the repeated
+ * pages are counted once. The requests are rate limited by the 
+ * {@link RateLimits} shared with {@link CountViewServlet}. As there, the 
+ * database work is done asynchronously on a dedicated executor and the JSON
+ * response is encoded by a {@link JSONResponseWriter} borrowed from a
+ * {@link JSONResponseWriterPool}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@WebServlet(name="CountPageViewsServlet", 
+            urlPatterns={"/countPageViews"}, 
+            asyncSupported=true)
+public class CountPageViewsServlet extends HttpServlet {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(CountPageViewsServlet.class.getName());
+
+    private static final String MAXIMUM_PAGES = "WEBLOG_BATCH_MAXIMUM_PAGES";
+    private static final String ASYNC_TIMEOUT_MILLIS = 
+            "WEBLOG_ASYNC_TIMEOUT_MILLIS";
+
+    private static final Timer REQUEST_TIMER = 
+            Metrics.timer("weblog_request", 
+                          "The latency of the HTTP requests.", 
+                          "countPageViews");
+
+    private static final ViewCounter viewCounter = ViewCounter.getInstance();
+
+    private ExecutorService executor;
+    private long asyncTimeoutMillis;
+    private int maximumPages;
+    private RateLimiter rateLimiter;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        executor = AsyncExecutors.newExecutor("count-page-views");
+        asyncTimeoutMillis = Configuration.getLong(ASYNC_TIMEOUT_MILLIS, 
+                                                   30_000L);
+        maximumPages = Configuration.getInt(MAXIMUM_PAGES, 20);
+        rateLimiter = RateLimits.getRateLimiter();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest httpServletRequest,
+                          HttpServletResponse httpServletResponse) 
+    throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+
+        // Allow the weblog page to get the response from this servlet:
+        httpServletResponse.setHeader("Access-Control-Allow-Origin", "*" );
+
+        if (RateLimits.rejectIfRateLimited(rateLimiter, 
+                                           httpServletRequest, 
+                                           httpServletResponse, 
+                                           startNanos)) {
+            return;
+        }
+
+        if (!ViewCounterBootstrap.isSchemaReady()) {
+            REQUEST_TIMER.recordError();
+            httpServletResponse.setHeader("Retry-After", "5");
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        String[] pageParameters = httpServletRequest.getParameterValues("page");
+
+        if (pageParameters == null || pageParameters.length == 0) {
+            httpServletResponse.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                                          "No pages given.");
+            return;
+        }
+
+        Set<String> pages = new LinkedHashSet<>();
+
+        for (String pageParameter : pageParameters) {
+            String page = Pages.normalize(pageParameter);
+
+            if (page == null) {
+                httpServletResponse.sendError(
+                        HttpServletResponse.SC_BAD_REQUEST,
+                        "A page must be a path or a URL of at most " + 
+                                SQLDefinitions.PageTable.Path.MAXIMUM_LENGTH +
+                                " characters, with no control characters and " +
+                                "none beyond U+FFFF.");
+                return;
+            }
+
+            pages.add(page);
+        }
+
+        if (pages.size() > maximumPages) {
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_BAD_REQUEST,
+                    "More than " + maximumPages + " pages given.");
+            return;
+        }
+
+        List<ViewRecord> viewRecords = new ArrayList<>(pages.size());
+
+        for (String page : pages) {
+            viewRecords.add(ViewRecord.of(httpServletRequest, page));
+        }
+
+        AsyncContext asyncContext = httpServletRequest.startAsync();
+        AtomicBoolean responded = new AtomicBoolean();
+
+        asyncContext.setTimeout(asyncTimeoutMillis);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent asyncEvent) throws IOException {
+                if (responded.compareAndSet(false, true)) {
+                    LOGGER.log(Level.WARNING, 
+                               "Counting page views timed out.");
+                    writeResponse(asyncContext, null, startNanos);
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent asyncEvent) {}
+
+            @Override
+            public void onError(AsyncEvent asyncEvent) {}
+
+            @Override
+            public void onStartAsync(AsyncEvent asyncEvent) {}
+        });
+
+        try {
+            executor.execute(() -> {
+                List<PageViewStatistics> pageViewStatisticsList = 
+                        countPageViews(viewRecords);
+
+                if (responded.compareAndSet(false, true)) {
+                    try {
+                        writeResponse(asyncContext, 
+                                      pageViewStatisticsList, 
+                                      startNanos);
+                    } catch (IOException ex) {
+                        LOGGER.log(
+                                Level.WARNING, 
+                                "Could not write the response: {0}", 
+                                ex.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Overloaded, shed the request:
+            if (responded.compareAndSet(false, true)) {
+                ((HttpServletResponse) asyncContext.getResponse())
+                        .setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                writeResponse(asyncContext, null, startNanos);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(asyncTimeoutMillis, 
+                                      TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        super.destroy();
+    }
+
+    /**
+     * Counts the views and returns the statistics of the pages to report, or
+     * {@code null} if counting failed.
+     */
+    private static List<PageViewStatistics> countPageViews(
+            List<ViewRecord> viewRecords) {
+        try {
+            return viewCounter.countPageViews(viewRecords);
+        } catch (SQLException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "SQL failed: {0}, caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Bad DB URI: {0}, caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Counting page views failed.", ex);
+        }
+
+        return null;
+    }
+
+    private static void writeResponse(
+            AsyncContext asyncContext,
+            List<PageViewStatistics> pageViewStatisticsList,
+            long startNanos) 
+            throws IOException {
+        JSONResponseWriter jsonResponseWriter = 
+                JSONResponseWriterPool.acquire();
+
+        try {
+            jsonResponseWriter.writePageViews(pageViewStatisticsList, 
+                                              asyncContext.getResponse());
+        } finally {
+            JSONResponseWriterPool.release(jsonResponseWriter);
+            asyncContext.complete();
+
+            if (pageViewStatisticsList == null) {
+                REQUEST_TIMER.recordError();
+            }
+
+            REQUEST_TIMER.recordSince(startNanos);
+        }
+    }
+}
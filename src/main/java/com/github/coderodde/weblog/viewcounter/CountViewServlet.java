@@ -1,14 +1,21 @@
 package com.github.coderodde.weblog.viewcounter;
 
 import static com.github.coderodde.weblog.viewcounter.Util.objects;
-import com.google.gson.Gson;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import com.github.coderodde.weblog.viewcounter.metrics.Timer;
+import com.github.coderodde.weblog.viewcounter.sql.SQLDefinitions;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.URISyntaxException;
 import java.sql.SQLException;
-import java.time.ZonedDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -18,66 +25,163 @@ import javax.servlet.http.HttpServletResponse;
 /**
  * This servlet is responsible for storing the IP-address and the timestamp of 
  * a view in at <a href="http://coderodde.github.io/weblog/">coderodde's weblog</a>.
+ * The database work is done asynchronously on a dedicated executor so that
+ * the container threads are not blocked on it. The requests of each 
+ * IP-address are rate limited ({@code WEBLOG_RATE_LIMIT_PER_MINUTE}, 
+ * {@code WEBLOG_RATE_LIMIT_BURST}, zero disables); the excess ones are 
+ * rejected with 429 before any database work. The {@link RateLimits} are 
+ * shared with {@link CountPageViewsServlet}. If the optional {@code page} parameter is 
+ * given, the view is counted for that page too and the view statistics of the
+ * page are reported along with the totals. The JSON response is encoded by a
+ * {@link JSONResponseWriter} borrowed from a {@link JSONResponseWriterPool}.
  *
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Aug 21, 2021)
  * @since 1.6 (Aug 21, 2021)
  */
-@WebServlet(name="CountViewServlet", urlPatterns={"/countView"})
+@WebServlet(name="CountViewServlet", 
+            urlPatterns={"/countView"}, 
+            asyncSupported=true)
 public class CountViewServlet extends HttpServlet {
 
-    private static final Gson GSON = new Gson();
     private static final Logger LOGGER =
             Logger.getLogger(CountViewServlet.class.getName());
 
-    private static final DataAccessObject dataAccessObject = 
-            DataAccessObject.getInstance();
+    private static final String ASYNC_TIMEOUT_MILLIS = 
+            "WEBLOG_ASYNC_TIMEOUT_MILLIS";
+
+    private static final Timer REQUEST_TIMER = 
+            Metrics.timer("weblog_request", 
+                          "The latency of the HTTP requests.", 
+                          "countView");
+
+    private static final ViewCounter viewCounter = ViewCounter.getInstance();
+
+    private ExecutorService executor;
+    private long asyncTimeoutMillis;
+    private RateLimiter rateLimiter;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        executor = AsyncExecutors.newExecutor("count-view");
+        asyncTimeoutMillis = Configuration.getLong(ASYNC_TIMEOUT_MILLIS, 
+                                                   30_000L);
+        rateLimiter = RateLimits.getRateLimiter();
+    }
 
     @Override
     protected void doPost(HttpServletRequest httpServletRequest,
                           HttpServletResponse httpServletResponse) 
     throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+
         // Allow the weblog page to get the response from this servlet:
         httpServletResponse.setHeader("Access-Control-Allow-Origin", "*" );
 
-        JSONResponseObject jsonResponseObject = new JSONResponseObject();
-        jsonResponseObject.succeeded = false;
+        if (RateLimits.rejectIfRateLimited(rateLimiter, 
+                                           httpServletRequest, 
+                                           httpServletResponse, 
+                                           startNanos)) {
+            return;
+        }
 
-        try {
-            String ipAddress = httpServletRequest.getHeader("X-FORWARDED-FOR");
-            
-            if (ipAddress == null) {
-                ipAddress = httpServletRequest.getRemoteAddr();
-            }
-            
-            dataAccessObject.createTablesIfNeeded();
-            
-            ZonedDateTime mostRecentViewTime = 
-                    dataAccessObject.getMostRecentViewTime();
-
-            if (mostRecentViewTime != null) {
-                jsonResponseObject.mostRecentViewTime =
-                        mostRecentViewTime.toString();
+        if (!ViewCounterBootstrap.isSchemaReady()) {
+            // Do not touch the database before the schema is in place:
+            REQUEST_TIMER.recordError();
+            httpServletResponse.setHeader("Retry-After", "5");
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        String pageParameter = httpServletRequest.getParameter("page");
+        String page = Pages.normalize(pageParameter);
+
+        if (pageParameter != null && page == null) {
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_BAD_REQUEST,
+                    "A page must be a path or a URL of at most " + 
+                            SQLDefinitions.PageTable.Path.MAXIMUM_LENGTH +
+                            " characters, with no control characters and " +
+                            "none beyond U+FFFF.");
+            return;
+        }
+
+        ViewRecord viewRecord = ViewRecord.of(httpServletRequest, page);
+        AsyncContext asyncContext = httpServletRequest.startAsync();
+        AtomicBoolean responded = new AtomicBoolean();
+
+        asyncContext.setTimeout(asyncTimeoutMillis);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent asyncEvent) throws IOException {
+                if (responded.compareAndSet(false, true)) {
+                    LOGGER.log(Level.WARNING, "Counting a view timed out.");
+                    writeResponse(asyncContext, null, startNanos);
+                }
             }
-            
-            ZonedDateTime visitorsMostRecentViewTime =
-                    dataAccessObject.getVisitorsMostRecentViewTime(ipAddress);
 
-            if (visitorsMostRecentViewTime != null) {
-                jsonResponseObject.visitorsMostRecentViewTime =
-                        visitorsMostRecentViewTime.toString();
+            @Override
+            public void onComplete(AsyncEvent asyncEvent) {}
+
+            @Override
+            public void onError(AsyncEvent asyncEvent) {}
+
+            @Override
+            public void onStartAsync(AsyncEvent asyncEvent) {}
+        });
+
+        try {
+            executor.execute(() -> {
+                ViewStatistics viewStatistics = countView(viewRecord);
+
+                if (responded.compareAndSet(false, true)) {
+                    try {
+                        writeResponse(asyncContext, 
+                                      viewStatistics, 
+                                      startNanos);
+                    } catch (IOException ex) {
+                        LOGGER.log(
+                                Level.WARNING, 
+                                "Could not write the response: {0}", 
+                                ex.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Overloaded, shed the request:
+            if (responded.compareAndSet(false, true)) {
+                ((HttpServletResponse) asyncContext.getResponse())
+                        .setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                writeResponse(asyncContext, null, startNanos);
             }
-            
-            dataAccessObject.addView(httpServletRequest); 
-            
-            jsonResponseObject.numberOfTotalViews = 
-                    dataAccessObject.getTotalViewCount();
-
-            jsonResponseObject.numberOfVisitorsViews = 
-                    dataAccessObject.getVisitorsViweCount(ipAddress);
-            
-            // Mark as successful:
-            jsonResponseObject.succeeded = true;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(asyncTimeoutMillis, 
+                                      TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Make sure no queued views are lost:
+        viewCounter.close();
+        super.destroy();
+    }
+
+    /**
+     * Counts the view and returns the statistics to report, or {@code null} if
+     * counting failed.
+     */
+    private static ViewStatistics countView(ViewRecord viewRecord) {
+        try {
+            return viewCounter.countView(viewRecord);
         } catch (SQLException ex) {
             LOGGER.log(
                     Level.SEVERE, 
@@ -89,10 +193,33 @@ public class CountViewServlet extends HttpServlet {
                     Level.SEVERE, 
                     "Bad DB URI: {0}, caused by: {1}", 
                     objects(ex.getMessage(), ex.getCause()));
+
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Counting a view failed.", ex);
         }
 
-        try (PrintWriter printWriter = httpServletResponse.getWriter()) {
-            printWriter.print(GSON.toJson(jsonResponseObject));
+        return null;
+    }
+
+    private static void writeResponse(AsyncContext asyncContext,
+                                      ViewStatistics viewStatistics,
+                                      long startNanos) 
+            throws IOException {
+        JSONResponseWriter jsonResponseWriter = 
+                JSONResponseWriterPool.acquire();
+
+        try {
+            jsonResponseWriter.write(viewStatistics, 
+                                     asyncContext.getResponse());
+        } finally {
+            JSONResponseWriterPool.release(jsonResponseWriter);
+            asyncContext.complete();
+
+            if (viewStatistics == null) {
+                REQUEST_TIMER.recordError();
+            }
+
+            REQUEST_TIMER.recordSince(startNanos);
         }
     }
 }
@@ -0,0 +1,208 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class accumulates the changes a number of views make to the counter
+ * rows: the view totals, the statistics of the visitors, of the pages and of
+ * the visitors of each page, and the rollup buckets. The rows are kept sorted
+ * so that concurrent writers lock them in the same order.
+ *
+ * <p>An instance is not thread-safe.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class CounterDeltas {
+
+    final ViewDelta totalsDelta = new ViewDelta();
+    final Map<String, ViewDelta> visitorDeltas = new TreeMap<>();
+    final Map<Integer, ViewDelta> pageDeltas = new TreeMap<>();
+    final Map<PageVisitorKey, ViewDelta> pageVisitorDeltas = new TreeMap<>();
+    final Map<RollupKey, Long> rollupDeltas = new TreeMap<>();
+
+    /**
+     * Adds a view.
+     *
+     * @param viewRecord the view.
+     * @param pageId     the ID of the page of the view, or {@code null} if the
+     *                   view has no page.
+     */
+    void add(ViewRecord viewRecord, Integer pageId) {
+        long viewTimeMillis = viewRecord.getViewTimeMillis();
+
+        totalsDelta.add(viewTimeMillis);
+        visitorDeltas.computeIfAbsent(viewRecord.getIPAddress(),
+                                      ipAddress -> new ViewDelta())
+                     .add(viewTimeMillis);
+
+        if (pageId != null) {
+            pageDeltas.computeIfAbsent(pageId, id -> new ViewDelta())
+                      .add(viewTimeMillis);
+            pageVisitorDeltas.computeIfAbsent(
+                    new PageVisitorKey(pageId, viewRecord.getIPAddress()),
+                    key -> new ViewDelta())
+                             .add(viewTimeMillis);
+        }
+
+        addRollups(viewRecord);
+    }
+
+    /**
+     * Adds a view to the rollup buckets only.
+     *
+     * @param viewRecord the view.
+     */
+    void addRollups(ViewRecord viewRecord) {
+        long viewTimeMillis = viewRecord.getViewTimeMillis();
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            rollupDeltas.merge(
+                    new RollupKey(granularity,
+                                  granularity.getBucketStart(viewTimeMillis),
+                                  viewRecord.getIPAddress()),
+                    1L,
+                    Long::sum);
+        }
+    }
+
+    /**
+     * Adds the views accumulated in {@code other}.
+     *
+     * @param other the deltas to add.
+     */
+    void merge(CounterDeltas other) {
+        totalsDelta.merge(other.totalsDelta);
+
+        for (Map.Entry<String, ViewDelta> entry :
+                other.visitorDeltas.entrySet()) {
+            visitorDeltas.computeIfAbsent(entry.getKey(),
+                                          ipAddress -> new ViewDelta())
+                         .merge(entry.getValue());
+        }
+
+        for (Map.Entry<Integer, ViewDelta> entry :
+                other.pageDeltas.entrySet()) {
+            pageDeltas.computeIfAbsent(entry.getKey(), id -> new ViewDelta())
+                      .merge(entry.getValue());
+        }
+
+        for (Map.Entry<PageVisitorKey, ViewDelta> entry :
+                other.pageVisitorDeltas.entrySet()) {
+            pageVisitorDeltas.computeIfAbsent(entry.getKey(),
+                                              key -> new ViewDelta())
+                             .merge(entry.getValue());
+        }
+
+        for (Map.Entry<RollupKey, Long> entry :
+                other.rollupDeltas.entrySet()) {
+            rollupDeltas.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * Returns {@code true} if no views have been added, not even to the 
+     * rollup buckets only.
+     *
+     * @return {@code true} if empty.
+     */
+    boolean isEmpty() {
+        return totalsDelta.viewCount == 0L && rollupDeltas.isEmpty();
+    }
+
+    /**
+     * Accumulates a number of views to be added to a counter row.
+     */
+    static final class ViewDelta {
+        long viewCount;
+        long lastViewTimeMillis = Long.MIN_VALUE;
+
+        void add(long viewTimeMillis) {
+            viewCount++;
+            lastViewTimeMillis = Math.max(lastViewTimeMillis, viewTimeMillis);
+        }
+
+        void merge(ViewDelta other) {
+            viewCount += other.viewCount;
+            lastViewTimeMillis = Math.max(lastViewTimeMillis,
+                                          other.lastViewTimeMillis);
+        }
+    }
+
+    /**
+     * Identifies the views of a visitor in a rollup bucket. Ordered by the
+     * granularity and the bucket start so that concurrent transactions lock
+     * the rollup rows in the same order.
+     */
+    static final class RollupKey implements Comparable<RollupKey> {
+        final RollupGranularity granularity;
+        final long bucketStartMillis;
+        final String ipAddress;
+
+        RollupKey(RollupGranularity granularity,
+                  long bucketStartMillis,
+                  String ipAddress) {
+            this.granularity = granularity;
+            this.bucketStartMillis = bucketStartMillis;
+            this.ipAddress = ipAddress;
+        }
+
+        @Override
+        public int compareTo(RollupKey other) {
+            int cmp = granularity.compareTo(other.granularity);
+
+            if (cmp != 0) {
+                return cmp;
+            }
+
+            cmp = Long.compare(bucketStartMillis, other.bucketStartMillis);
+            return cmp != 0 ? cmp : ipAddress.compareTo(other.ipAddress);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RollupKey && compareTo((RollupKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * granularity.hashCode() +
+                         Long.hashCode(bucketStartMillis)) +
+                   ipAddress.hashCode();
+        }
+    }
+
+    /**
+     * Identifies the views of a visitor of a page. Ordered by the page ID
+     * and the IP address so that concurrent transactions lock the page
+     * visitor rows in the same order.
+     */
+    static final class PageVisitorKey implements Comparable<PageVisitorKey> {
+        final int pageId;
+        final String ipAddress;
+
+        PageVisitorKey(int pageId, String ipAddress) {
+            this.pageId = pageId;
+            this.ipAddress = ipAddress;
+        }
+
+        @Override
+        public int compareTo(PageVisitorKey other) {
+            int cmp = Integer.compare(pageId, other.pageId);
+            return cmp != 0 ? cmp : ipAddress.compareTo(other.ipAddress);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PageVisitorKey &&
+                   compareTo((PageVisitorKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pageId + ipAddress.hashCode();
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.github.coderodde.weblog.viewcounter;
 
 import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.github.coderodde.weblog.viewcounter.CounterDeltas.PageVisitorKey;
+import com.github.coderodde.weblog.viewcounter.CounterDeltas.RollupKey;
+import com.github.coderodde.weblog.viewcounter.CounterDeltas.ViewDelta;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import com.github.coderodde.weblog.viewcounter.metrics.Timer;
+import com.github.coderodde.weblog.viewcounter.sql.SQLDefinitions;
 import com.github.coderodde.weblog.viewcounter.sql.SQLStatements;
-import java.net.URI;
+import com.github.coderodde.weblog.viewcounter.sql.SchemaMigrations;
 import java.net.URISyntaxException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.enterprise.context.ApplicationScoped;
@@ -20,45 +39,296 @@ import javax.servlet.http.HttpServletRequest;
 import org.apache.tomcat.jdbc.pool.DataSource;
 
 /**
- * This class implements the data access object for the view counter.
+ * This class implements the data access object for the view counter, storing
+ * into MySQL or any JDBC database with a MySQL compatibility mode.
+ * 
+ * <p>The pages of the views are interned into the page table and the views 
+ * refer to them by their IDs. The IDs of at most 
+ * {@code WEBLOG_PAGE_CACHE_MAXIMUM_SIZE} recently used pages are cached in 
+ * memory. Once the page table holds {@code WEBLOG_PAGE_MAXIMUM_COUNT} pages,
+ * the new pages are rejected: their views are recorded without a page, so 
+ * the arbitrary pages sent by the clients cannot grow the table without 
+ * bound. The number of views and the most recent view time of each page, and
+ * of each visitor of each page, are kept in the page statistics tables, so 
+ * they survive the archiving of the views.
+ * 
+ * <p>If {@code WEBLOG_CLUSTER_MODE} is {@code true}, several instances of the
+ * service may share the database. The views are still inserted on each 
+ * request, but the changes to the shared counter rows are accumulated in 
+ * memory and added to them with upserts, in a consistent lock order, every 
+ * {@code WEBLOG_CLUSTER_FLUSH_INTERVAL_MILLIS} milliseconds and on close. The
+ * counter rows, such as the view totals, are thus locked once per flush 
+ * instead of once per view. The statistics reported include the views of 
+ * this instance not yet flushed; those of the other instances are seen 
+ * within a flush interval. 
+ * 
+ * <p>The pending changes of an instance that crashes, at most those of one 
+ * flush interval, are lost from the counters, but not its views: the view 
+ * totals and the statistics of the visitors, of the pages and of the 
+ * rollups then fall short of the views recorded. This drift is accepted; 
+ * there is no reconciliation job, since recounting the counters while other
+ * instances hold unflushed changes of their own would count those changes 
+ * twice. A commit whose outcome is unknown, failing on a lost connection, 
+ * is retried and may count its views twice.
+ * 
+ * <p>In any mode, the changes to the view rollups are accumulated in memory
+ * and added to the rollups every 
+ * {@code WEBLOG_CLUSTER_FLUSH_INTERVAL_MILLIS} milliseconds and on close,
+ * off the path of the requests; a crash loses at most those of one flush 
+ * interval. A visitor is counted once per rollup bucket by adding it to the
+ * visitors of the bucket, so the views may be added in any order.
+ * 
+ * <p>If a read-only replica is configured (see {@link DataSourceFactory}), 
+ * the statistics read apart from recording a view, such as the total number
+ * of views, the statistics of a visitor or of a page and the view rollups, 
+ * are read from it through a pool of its own. The replication lag is checked
+ * every {@code WEBLOG_REPLICA_LAG_CHECK_INTERVAL_MILLIS} milliseconds; while 
+ * it exceeds {@code WEBLOG_REPLICA_MAXIMUM_LAG_MILLIS}, or the replica fails,
+ * the reads fall back to the primary database. The views are always recorded
+ * and read back in a single transaction on the primary, and so are the reads
+ * seeding the statistics cache, which must not lag. In the cluster mode the
+ * statistics including the pending counter changes are read from the primary
+ * too.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Aug 22, 2021)
  */
 @ApplicationScoped
-public class DataAccessObject {
+public class DataAccessObject implements ViewStore {
 
     private static final Logger LOGGER = 
             Logger.getLogger(DataAccessObject.class.getName());
 
+    private static final String PAGE_CACHE_MAXIMUM_SIZE = 
+            "WEBLOG_PAGE_CACHE_MAXIMUM_SIZE";
+    private static final String PAGE_MAXIMUM_COUNT = 
+            "WEBLOG_PAGE_MAXIMUM_COUNT";
+    private static final int PAGE_CACHE_STRIPES = 16;
+    private static final String CLUSTER_MODE = "WEBLOG_CLUSTER_MODE";
+    private static final String CLUSTER_FLUSH_INTERVAL_MILLIS = 
+            "WEBLOG_CLUSTER_FLUSH_INTERVAL_MILLIS";
+    private static final String REPLICA_MAXIMUM_LAG_MILLIS = 
+            "WEBLOG_REPLICA_MAXIMUM_LAG_MILLIS";
+    private static final String REPLICA_LAG_CHECK_INTERVAL_MILLIS = 
+            "WEBLOG_REPLICA_LAG_CHECK_INTERVAL_MILLIS";
+
     private static final String EUROPE_HELSINKI_ZONE_ID = "Europe/Helsinki";
-    private static final ZoneId ZONE_ID = ZoneId.of(EUROPE_HELSINKI_ZONE_ID);
+    public static final ZoneId ZONE_ID = ZoneId.of(EUROPE_HELSINKI_ZONE_ID);
+
+    private static final Timer MIGRATE_SCHEMA_TIMER = 
+            daoTimer("migrateSchema");
+    private static final Timer ADD_VIEW_TIMER = 
+            daoTimer("addView");
+    private static final Timer ADD_VIEWS_TIMER = 
+            daoTimer("addViews");
+    private static final Timer RECORD_VIEW_AND_FETCH_STATS_TIMER = 
+            daoTimer("recordViewAndFetchStats");
+    private static final Timer RECORD_PAGE_VIEWS_AND_FETCH_STATS_TIMER = 
+            daoTimer("recordPageViewsAndFetchStats");
+    private static final Timer GET_VIEW_STATISTICS_TIMER = 
+            daoTimer("getViewStatistics");
+    private static final Timer GET_PAGE_VIEW_STATISTICS_TIMER = 
+            daoTimer("getPageViewStatistics");
+    private static final Timer GET_VIEW_TOTALS_TIMER = 
+            daoTimer("getViewTotals");
+    private static final Timer GET_VISITOR_STATISTICS_TIMER = 
+            daoTimer("getVisitorStatistics");
+    private static final Timer GET_MOST_RECENT_VISITORS_TIMER = 
+            daoTimer("getMostRecentVisitors");
+    private static final Timer GET_VIEW_ROLLUPS_TIMER = 
+            daoTimer("getViewRollups");
+    private static final Timer GET_VISITOR_SKETCH_TIMER = 
+            daoTimer("getVisitorSketch");
+    private static final Timer MERGE_VISITOR_SKETCH_TIMER = 
+            daoTimer("mergeVisitorSketch");
+    private static final Timer ARCHIVE_VIEWS_TIMER = 
+            daoTimer("archiveViews");
+    private static final Timer GET_TOTAL_VIEW_COUNT_TIMER = 
+            daoTimer("getTotalViewCount");
+    private static final Timer GET_VISITORS_VIEW_COUNT_TIMER = 
+            daoTimer("getVisitorsViewCount");
+    private static final Timer GET_MOST_RECENT_VIEW_TIME_TIMER = 
+            daoTimer("getMostRecentViewTime");
+    private static final Timer GET_VISITORS_MOST_RECENT_VIEW_TIME_TIMER = 
+            daoTimer("getVisitorsMostRecentViewTime");
+    private static final Timer FLUSH_COUNTER_DELTAS_TIMER = 
+            daoTimer("flushCounterDeltas");
+
+    private static final LongAdder REJECTED_PAGES = 
+            Metrics.counter("weblog_rejected_pages_total", 
+                            "The number of views whose new page was not " + 
+                            "interned since the page table is full.");
 
-    private static final String DB_URL_ENVIRONMENT_VARIABLE_NAME = 
-            "CLEARDB_DATABASE_URL";
+    private static final Timer POOL_WAIT_TIMER = 
+            Metrics.timer("weblog_pool_wait", 
+                          "The time spent borrowing a pooled connection.", 
+                          "getConnection");
 
-    private static final DataSource dataSource = new DataSource();
     private static final DataAccessObject INSTANCE = new DataAccessObject();
 
+    /**
+     * Maps the recently used pages to their IDs.
+     */
+    private final PageIdCache pageIds = 
+            new PageIdCache(
+                    Configuration.getInt(PAGE_CACHE_MAXIMUM_SIZE, 10_000),
+                    PAGE_CACHE_STRIPES);
+    private final int pageMaximumCount = 
+            Configuration.getInt(PAGE_MAXIMUM_COUNT, 10_000);
+
+    /**
+     * Set once the page table is found full. The pages are never deleted, so
+     * it stays full.
+     */
+    private volatile boolean pageTableFull;
+
+    private final Object pendingCounterDeltasLock = new Object();
+
+    /**
+     * The counter changes not yet flushed: those to all the counters in the
+     * cluster mode, those to the rollups only otherwise.
+     */
+    private CounterDeltas pendingCounterDeltas;
+
+    /**
+     * The counter changes being flushed, or {@code null}.
+     */
+    private CounterDeltas flushingCounterDeltas;
+
+    /**
+     * Held for reading while the counters and the pending changes are read,
+     * and for writing while a flush commits, so that a read never counts the
+     * flushed changes twice or not at all.
+     */
+    private final ReadWriteLock counterLock = new ReentrantReadWriteLock();
+    private final boolean clusterMode;
+    private final ScheduledExecutorService counterDeltaFlusher;
+
+    /**
+     * The read-only replica serving the statistics reads, or {@code null}.
+     */
+    private final ReadReplica readReplica;
+    private final ScheduledExecutorService replicaLagChecker;
+
+    private volatile DataSource dataSource;
+
+    private DataAccessObject() {
+        clusterMode = Configuration.getBoolean(CLUSTER_MODE, false);
+        counterDeltaFlusher = startCounterDeltaFlusher();
+
+        readReplica = createReadReplica();
+        replicaLagChecker = readReplica == null ? 
+                null : 
+                startReplicaLagChecker();
+    }
+
+    private ScheduledExecutorService startCounterDeltaFlusher() {
+        long flushIntervalMillis = 
+                Configuration.getLong(CLUSTER_FLUSH_INTERVAL_MILLIS, 1_000L);
+
+        pendingCounterDeltas = new CounterDeltas();
+        ScheduledExecutorService flusher = 
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "counter-delta-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        flusher.scheduleWithFixedDelay(this::flushCounterDeltas,
+                                       flushIntervalMillis,
+                                       flushIntervalMillis,
+                                       TimeUnit.MILLISECONDS);
+
+        if (clusterMode) {
+            Metrics.gauge(
+                    "weblog_cluster_pending_views", 
+                    "The number of views not yet added to the counters.", 
+                    this::getNumberOfPendingViews);
+        }
+
+        return flusher;
+    }
+
+    /**
+     * Returns the read replica, or {@code null} if none is configured or its
+     * URL is invalid.
+     */
+    private static ReadReplica createReadReplica() {
+        DataSource replicaDataSource;
+
+        try {
+            replicaDataSource = DataSourceFactory.createReplicaDataSource();
+        } catch (URISyntaxException | RuntimeException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Bad replica DB URI, reading the primary: {0}", 
+                    ex.getMessage());
+            return null;
+        }
+
+        if (replicaDataSource == null) {
+            return null;
+        }
+
+        return new ReadReplica(
+                replicaDataSource,
+                Configuration.getLong(REPLICA_MAXIMUM_LAG_MILLIS, 2_000L));
+    }
+
+    private ScheduledExecutorService startReplicaLagChecker() {
+        long checkIntervalMillis = 
+                Configuration.getLong(REPLICA_LAG_CHECK_INTERVAL_MILLIS, 
+                                      1_000L);
+
+        ScheduledExecutorService checker = 
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        checker.scheduleWithFixedDelay(this::checkReplicaLag,
+                                       0L,
+                                       checkIntervalMillis,
+                                       TimeUnit.MILLISECONDS);
+        return checker;
+    }
+
+    private void checkReplicaLag() {
+        try {
+            readReplica.checkLag(getDataSource());
+        } catch (URISyntaxException | RuntimeException ex) {
+            LOGGER.log(
+                    Level.WARNING, 
+                    "Checking the replica lag failed: {0}", 
+                    ex.getMessage());
+        }
+    }
+
     public static DataAccessObject getInstance() {
         return INSTANCE;
     }
 
     /**
-     * Makes sure that the main table is created.
+     * Brings the database schema up to date by applying all the pending 
+     * schema migrations.
+     * 
+     * @return the schema version after the migration.
      * 
      * @throws java.sql.SQLException if the SQL layer fails.
      * @throws java.net.URISyntaxException if the DB URI is invalid.
      */
-    public void createTablesIfNeeded() throws SQLException, URISyntaxException {
-
-        try (Connection connection = getConnection()) {
-            connection.createStatement()
-                      .executeUpdate(SQLStatements
-                                      .ViewTable
-                                      .Create
-                                      .CREATE_VIEW_TABLE);
-        } 
+    @Override
+    public int migrateSchema() throws SQLException, URISyntaxException {
+        return timed(MIGRATE_SCHEMA_TIMER, () -> {
+            // Outside the pool, since waiting for the migration lock and 
+            // rewriting the large tables may outlast its abandon timeout:
+            try (Connection connection = 
+                    DataSourceFactory.openUnpooledConnection(
+                            getDataSource())) {
+                return SchemaMigrations.migrate(connection);
+            } 
+        });
     }
 
     /**
@@ -71,210 +341,1798 @@ public class DataAccessObject {
      */
     public void addView(HttpServletRequest httpServletRequest)
             throws SQLException, URISyntaxException {
+        addView(ViewRecord.of(httpServletRequest));
+    }
 
-        String host = httpServletRequest.getRemoteHost();
-        int port = httpServletRequest.getRemotePort();
-        String remoteAddress = httpServletRequest.getHeader("X-FORWARDED-FOR");
+    /**
+     * Adds a new view data to the database.
+     * 
+     * @param viewRecord the view to add.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public void addView(ViewRecord viewRecord)
+            throws SQLException, URISyntaxException {
+        timed(ADD_VIEW_TIMER, () -> {
+            return recordViews(Collections.singletonList(viewRecord), 
+                               getPageIds(viewRecord), 
+                               connection -> null);
+        });
+    }
 
-        if (remoteAddress == null) {
-            remoteAddress = httpServletRequest.getRemoteAddr();
+    /**
+     * Adds a batch of views to the database in a single transaction. The views
+     * are inserted with a single batched statement and the counters are 
+     * updated once per batch and once per distinct visitor.
+     * 
+     * @param viewRecords the views to add.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public void addViews(List<ViewRecord> viewRecords)
+            throws SQLException, URISyntaxException {
+        if (viewRecords.isEmpty()) {
+            return;
         }
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement =
-                     connection.prepareStatement(
-                             SQLStatements.ViewTable.Insert.INSERT_VIEW)) {
+        timed(ADD_VIEWS_TIMER, () -> {
+            return recordViews(viewRecords, 
+                               getPageIds(viewRecords), 
+                               connection -> null);
+        });
+    }
+
+    /**
+     * Adds a new view data to the database and returns the view statistics 
+     * for the visitor. The statistics are read and the view is inserted in a
+     * single transaction over a single connection.
+     * 
+     * @param httpServletRequest the request object.
+     * @return the view statistics of the visitor.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    public ViewStatistics recordViewAndFetchStats(
+            HttpServletRequest httpServletRequest)
+            throws SQLException, URISyntaxException {
+        return recordViewAndFetchStats(ViewRecord.of(httpServletRequest));
+    }
+
+    /**
+     * Adds a new view data to the database and returns the view statistics 
+     * for the visitor, and for the page if the view has one. The statistics 
+     * are read and the view is inserted in a single transaction over a single
+     * connection.
+     * 
+     * @param viewRecord the view to add.
+     * @return the view statistics of the visitor.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public ViewStatistics recordViewAndFetchStats(ViewRecord viewRecord)
+            throws SQLException, URISyntaxException {
+        return timed(RECORD_VIEW_AND_FETCH_STATS_TIMER, () -> {
+            Map<String, Integer> pageIds = getPageIds(viewRecord);
+            String ipAddress = viewRecord.getIPAddress();
 
-            statement.setString(1, remoteAddress);
-            statement.setString(2, host);
-            statement.setInt(3, port);
+            TransactionBody<ViewStatistics> statisticsReader = connection -> {
+                ViewStatistics statistics = 
+                        fetchViewStatistics(connection, ipAddress);
 
-            ZonedDateTime nowZonedDateTime = ZonedDateTime.now(ZONE_ID);
+                if (!pageIds.isEmpty()) {
+                    statistics.pageViewStatistics = 
+                            fetchPageViewStatistics(
+                                    connection, 
+                                    ipAddress,
+                                    Collections.singletonList(
+                                            viewRecord.getPage()),
+                                    pageIds)
+                            .get(0);
+                }
 
-            Timestamp nowTimestamp = 
-                    Timestamp.from(nowZonedDateTime.toInstant());
+                addPendingViews(statistics, 
+                                ipAddress, 
+                                pageIds.get(viewRecord.getPage()));
+                return statistics;
+            };
 
-            statement.setTimestamp(4, nowTimestamp);
-            statement.executeUpdate();
+            ViewStatistics viewStatistics = 
+                    recordViews(Collections.singletonList(viewRecord), 
+                                pageIds,
+                                statisticsReader);
+
+            // Count in the view just recorded:
+            viewStatistics.numberOfTotalViews++;
+            viewStatistics.numberOfVisitorsViews++;
+
+            if (viewStatistics.pageViewStatistics != null) {
+                viewStatistics.pageViewStatistics.numberOfPageViews++;
+                viewStatistics.pageViewStatistics.numberOfVisitorsPageViews++;
+            }
+
+            return viewStatistics;
+        });
+    }
+
+    /**
+     * Adds the views of a single visitor, each of a different page, and 
+     * returns the view statistics of the pages. The statistics are read with
+     * a single query over the page statistics tables, and the views are 
+     * inserted with a single batched statement, in a single transaction.
+     * 
+     * @param viewRecords the views to add.
+     * @return the view statistics of the pages in the order of the views.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public List<PageViewStatistics> recordPageViewsAndFetchStats(
+            List<ViewRecord> viewRecords)
+            throws SQLException, URISyntaxException {
+        if (viewRecords.isEmpty()) {
+            return new ArrayList<>();
         }
+
+        return timed(RECORD_PAGE_VIEWS_AND_FETCH_STATS_TIMER, () -> {
+            Map<String, Integer> pageIds = getPageIds(viewRecords);
+
+            List<String> pages = new ArrayList<>(viewRecords.size());
+
+            for (ViewRecord viewRecord : viewRecords) {
+                pages.add(viewRecord.getPage());
+            }
+
+            TransactionBody<List<PageViewStatistics>> statisticsReader = 
+                    connection -> {
+                List<PageViewStatistics> statistics = 
+                        fetchPageViewStatistics(
+                                connection, 
+                                viewRecords.get(0).getIPAddress(),
+                                pages,
+                                pageIds);
+
+                for (PageViewStatistics pageStatistics : statistics) {
+                    addPendingViews(pageStatistics, 
+                                    viewRecords.get(0).getIPAddress(),
+                                    pageIds.get(pageStatistics.page));
+                }
+
+                return statistics;
+            };
+
+            List<PageViewStatistics> pageViewStatistics = 
+                    recordViews(viewRecords, pageIds, statisticsReader);
+
+            // Count in the views just recorded, the rejected pages aside:
+            for (PageViewStatistics statistics : pageViewStatistics) {
+                if (pageIds.containsKey(statistics.page)) {
+                    statistics.numberOfPageViews++;
+                    statistics.numberOfVisitorsPageViews++;
+                }
+            }
+
+            return pageViewStatistics;
+        });
     }
 
     /**
-     * Returns the total number of views. 
+     * Returns the view statistics of a page without recording a view.
      * 
-     * @return the total number of views so far.
+     * @param ipAddress the IP-address of the visitor.
+     * @param page      the page.
+     * @return the view statistics of the page.
      * 
      * @throws java.sql.SQLException if the SQL layer fails.
      * @throws java.net.URISyntaxException if the DB URI is invalid.
      */
-    public Integer getTotalViewCount() throws SQLException, URISyntaxException {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
+    @Override
+    public PageViewStatistics getPageViewStatistics(String ipAddress, 
+                                                    String page)
+            throws SQLException, URISyntaxException {
+        return timed(GET_PAGE_VIEW_STATISTICS_TIMER, () -> 
+                readStatistics(connection -> {
+            Integer pageId = pageIds.get(page);
 
-            try (ResultSet resultSet =
-                    statement.executeQuery(SQLStatements
-                                    .ViewTable
-                                    .Select
-                                    .GET_NUMBER_OF_TOTAL_VIEWS)) {
+            if (pageId == null) {
+                pageId = selectPageId(connection, page);
+            }
+
+            if (pageId == null) {
+                // Never viewed:
+                PageViewStatistics pageViewStatistics = 
+                        new PageViewStatistics();
+                pageViewStatistics.page = page;
+                return pageViewStatistics;
+            }
+
+            pageIds.put(page, pageId);
+
+            PageViewStatistics pageViewStatistics = 
+                    fetchPageViewStatistics(
+                            connection,
+                            ipAddress,
+                            Collections.singletonList(page),
+                            Collections.singletonMap(page, pageId))
+                    .get(0);
+
+            addPendingViews(pageViewStatistics, ipAddress, pageId);
+            return pageViewStatistics;
+        }));
+    }
+
+    /**
+     * Returns the view statistics of the visitor without recording a view.
+     * 
+     * @param ipAddress the IP-address of the visitor.
+     * @return the view statistics of the visitor.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public ViewStatistics getViewStatistics(String ipAddress)
+            throws SQLException, URISyntaxException {
+        return timed(GET_VIEW_STATISTICS_TIMER, () -> 
+                readStatistics(connection -> {
+            ViewStatistics viewStatistics = 
+                    fetchViewStatistics(connection, ipAddress);
+
+            addPendingViews(viewStatistics, ipAddress, null);
+            return viewStatistics;
+        }));
+    }
+
+    /**
+     * Returns the total number of views and the most recent view time.
+     * 
+     * @return the view statistics with only the totals filled in.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public ViewStatistics getViewTotals() 
+            throws SQLException, URISyntaxException {
+        return timed(GET_VIEW_TOTALS_TIMER, () -> {
+            try (Connection connection = getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = 
+                         statement.executeQuery(
+                                 SQLStatements
+                                         .ViewTotalsTable
+                                         .Select
+                                         .GET_VIEW_TOTALS)) {
 
                 if (!resultSet.next()) {
                     throw new IllegalStateException(
                             "Could not read the number of views.");
                 }
 
-                return resultSet.getInt(1);
+                ViewStatistics viewStatistics = new ViewStatistics();
+                viewStatistics.numberOfTotalViews = resultSet.getLong(1);
+                viewStatistics.mostRecentViewTime = 
+                        toZonedDateTime(resultSet.getTimestamp(2));
+                return viewStatistics;
             }
-        } 
+        });
     }
-    
-    public Integer getVisitorsViweCount(String ipAddress)
+
+    /**
+     * Returns the number of views and the most recent view time of the 
+     * visitor.
+     * 
+     * @param ipAddress the IP-address of the visitor.
+     * @return the view statistics with only the visitor's fields filled in.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public ViewStatistics getVisitorStatistics(String ipAddress) 
             throws SQLException, URISyntaxException {
-        try (Connection connection = getConnection();
-             PreparedStatement statement =
-                     connection.prepareStatement(
-                             SQLStatements
-                                     .ViewTable
-                                     .Select
-                                     .GET_NUMBER_OF_VIEWS_OF_VISITOR)) {
-            
-            statement.setString(1, ipAddress);
-            
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (!resultSet.next()) {
-                    throw new IllegalStateException(
-                            "Could not read the number of a visitor's views.");
+        return timed(GET_VISITOR_STATISTICS_TIMER, () -> {
+            try (Connection connection = getConnection();
+                 PreparedStatement statement =
+                         connection.prepareStatement(
+                                 SQLStatements
+                                         .VisitorStatsTable
+                                         .Select
+                                         .GET_VISITOR_STATS)) {
+
+                statement.setString(1, ipAddress);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    ViewStatistics viewStatistics = new ViewStatistics();
+
+                    if (resultSet.next()) {
+                        viewStatistics.numberOfVisitorsViews = 
+                                resultSet.getLong(1);
+                        viewStatistics.visitorsMostRecentViewTime = 
+                                toZonedDateTime(resultSet.getTimestamp(2));
+                    }
+
+                    return viewStatistics;
                 }
-                
-                return resultSet.getInt(1);
             }
-        }
+        });
     }
 
     /**
-     * Returns the most recent view time stamp.
-     * @return the most recent view time.
+     * Returns the statistics of the most recently seen visitors, mapped by 
+     * their IP-addresses in ascending order of their most recent view time.
+     * 
+     * @param limit the maximum number of visitors to return.
+     * @return the statistics of the most recently seen visitors.
      * 
      * @throws java.sql.SQLException if the SQL layer fails.
      * @throws java.net.URISyntaxException if the DB URI is invalid.
      */
-    public ZonedDateTime getMostRecentViewTime() 
+    @Override
+    public Map<String, ViewStatistics> getMostRecentVisitors(int limit) 
             throws SQLException, URISyntaxException {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
+        return timed(GET_MOST_RECENT_VISITORS_TIMER, () -> {
+            List<String> ipAddresses = new ArrayList<>();
+            List<ViewStatistics> visitorStatistics = new ArrayList<>();
 
-            try (ResultSet resultSet = 
-                    statement.executeQuery(
-                            SQLStatements
-                                    .ViewTable
-                                    .Select
-                                    .GET_MOST_RECENT_VIEW_TIME)) {
+            try (Connection connection = getConnection();
+                 PreparedStatement statement =
+                         connection.prepareStatement(
+                                 SQLStatements
+                                         .VisitorStatsTable
+                                         .Select
+                                         .GET_MOST_RECENT_VISITORS)) {
 
-                if (!resultSet.next()) {
-                    return null;
-                }
+                statement.setInt(1, limit);
 
-                Timestamp mostRecentViewTimestamp = resultSet.getTimestamp(1);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ViewStatistics viewStatistics = new ViewStatistics();
+                        viewStatistics.numberOfVisitorsViews = 
+                                resultSet.getLong(2);
+                        viewStatistics.visitorsMostRecentViewTime = 
+                                toZonedDateTime(resultSet.getTimestamp(3));
 
-                if (mostRecentViewTimestamp == null) {
-                    return null;
+                        ipAddresses.add(resultSet.getString(1));
+                        visitorStatistics.add(viewStatistics);
+                    }
                 }
+            }
 
-                ZonedDateTime mostRecentViewZonedDateTime =
-                        ZonedDateTime.ofInstant(
-                                mostRecentViewTimestamp.toInstant(), 
-                                ZONE_ID);
+            Map<String, ViewStatistics> map = new LinkedHashMap<>();
 
-                return mostRecentViewZonedDateTime;
+            for (int i = ipAddresses.size() - 1; i >= 0; i--) {
+                map.put(ipAddresses.get(i), visitorStatistics.get(i));
             }
-        }
+
+            return map;
+        });
     }
-    
-    public ZonedDateTime getVisitorsMostRecentViewTime(String ipAddress)
+
+    /**
+     * Returns the non-empty view rollup buckets of the given granularity 
+     * starting in the time range {@code [from, to)} in chronological order.
+     * 
+     * @param granularity the size of the buckets.
+     * @param from        the inclusive start of the time range.
+     * @param to          the exclusive end of the time range.
+     * @param limit       the maximum number of buckets to return.
+     * @return the view rollups.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public List<ViewRollup> getViewRollups(RollupGranularity granularity,
+                                           ZonedDateTime from,
+                                           ZonedDateTime to,
+                                           int limit) 
             throws SQLException, URISyntaxException {
-        try (Connection connection = getConnection();
-             PreparedStatement statement = 
-                     connection.prepareStatement(
-                             SQLStatements
-                                     .ViewTable
-                                     .Select
-                                     .GET_MOST_RECENT_VIEW_TIME_OF_VISITOR)) {
-            
-            statement.setString(1, ipAddress);
-            
-            try (ResultSet resultSet = statement.executeQuery()) {
-                
-                if (!resultSet.next()) {
-                    return null;
-                }
-                
-                Timestamp mostRecentVisitorsViewTimeTimestamp = 
-                        resultSet.getTimestamp(1);
-                
-                if (mostRecentVisitorsViewTimeTimestamp == null) {
-                    return null;
+        return timed(GET_VIEW_ROLLUPS_TIMER, () -> 
+                readFromReplica(connection -> {
+            List<ViewRollup> viewRollups = new ArrayList<>();
+
+            try (PreparedStatement statement =
+                         connection.prepareStatement(
+                                 SQLStatements
+                                         .ViewRollupTable
+                                         .Select
+                                         .GET_BUCKETS)) {
+
+                statement.setString(1, granularity.name());
+                statement.setTimestamp(2, Timestamp.from(from.toInstant()));
+                statement.setTimestamp(3, Timestamp.from(to.toInstant()));
+                statement.setInt(4, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ViewRollup viewRollup = new ViewRollup();
+                        viewRollup.bucketStart = 
+                                toZonedDateTime(resultSet.getTimestamp(1));
+                        viewRollup.numberOfViews = resultSet.getLong(2);
+                        viewRollup.numberOfVisitors = resultSet.getLong(3);
+                        viewRollups.add(viewRollup);
+                    }
                 }
-                
-                ZonedDateTime mostRecentVisitorViewTimeZondDateTime = 
-                        ZonedDateTime.ofInstant(
-                                mostRecentVisitorsViewTimeTimestamp.toInstant(), 
-                                ZONE_ID);
-                
-                return mostRecentVisitorViewTimeZondDateTime;
             }
-        }
-    }
 
-    private static void loadJDBCDriverClass() {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver").newInstance();
-        } catch (ClassNotFoundException ex) {
-            LOGGER.log(
-                    Level.SEVERE, 
-                    "com.mysql.cj.jdbc.Driver class not found: {0}, " + 
-                            "caused by: {1}", 
-                    objects(ex, ex.getCause()));
+            return viewRollups;
+        }));
+    }
 
-            throw new RuntimeException(
-                    "com.mysql.cj.jdbc.Driver not found.", 
-                    ex);
+    /**
+     * Returns the union of the visitor sketches of the given granularity 
+     * whose buckets start in the time range {@code [from, to)}.
+     * 
+     * @param granularity the size of the buckets.
+     * @param from        the inclusive start of the time range.
+     * @param to          the exclusive end of the time range.
+     * @return the merged visitor sketch.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public HyperLogLog getVisitorSketch(RollupGranularity granularity,
+                                        ZonedDateTime from,
+                                        ZonedDateTime to) 
+            throws SQLException, URISyntaxException {
+        return timed(GET_VISITOR_SKETCH_TIMER, () -> {
+            HyperLogLog hyperLogLog = new HyperLogLog();
 
-        } catch (InstantiationException ex) {
-            LOGGER.log(
-                    Level.SEVERE, 
-                    "com.mysql.cj.jdbc.Driver could not be instantiated: {0}," +
-                            " caused by: {1}", 
-                    objects(ex, ex.getCause()));
+            try (Connection connection = getConnection();
+                 PreparedStatement statement =
+                         connection.prepareStatement(
+                                 SQLStatements
+                                         .VisitorSketchTable
+                                         .Select
+                                         .GET_SKETCHES)) {
 
-            throw new RuntimeException(
-                    "com.mysql.cj.jdbc.Driver could not be instantiated.", 
-                    ex);
+                statement.setString(1, granularity.name());
+                statement.setTimestamp(2, Timestamp.from(from.toInstant()));
+                statement.setTimestamp(3, Timestamp.from(to.toInstant()));
 
-        } catch (IllegalAccessException ex) {
-            LOGGER.log(
-                    Level.SEVERE, 
-                    "com.mysql.cj.jdbc.Driver could not be accessed: {0}, " + 
-                            "caused by: {1}", 
-                    objects(ex, ex.getCause()));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        hyperLogLog.merge(
+                                HyperLogLog.fromByteArray(
+                                        resultSet.getBytes(1)));
+                    }
+                }
+            }
 
-            throw new RuntimeException(
-                    "com.mysql.cj.jdbc.Driver could not be accessed.", 
-                    ex);
-        }
+            return hyperLogLog;
+        });
     }
 
-    static {
-        loadJDBCDriverClass();
-    }
+    /**
+     * Merges the visitor sketch into the stored sketch of the bucket. Since 
+     * merging is idempotent, the same sketch may be merged repeatedly as it 
+     * grows, also by several processes.
+     * 
+     * @param granularity       the size of the bucket.
+     * @param bucketStartMillis the start of the bucket.
+     * @param hyperLogLog       the sketch to merge.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public void mergeVisitorSketch(RollupGranularity granularity,
+                                   long bucketStartMillis,
+                                   HyperLogLog hyperLogLog) 
+            throws SQLException, URISyntaxException {
+        Timestamp bucketStart = new Timestamp(bucketStartMillis);
 
-    private Connection getConnection() throws SQLException, URISyntaxException {
-        URI databaseURI = 
-                new URI(System.getenv(DB_URL_ENVIRONMENT_VARIABLE_NAME));
+        timed(MERGE_VISITOR_SKETCH_TIMER, () -> inTransaction(connection -> {
+            HyperLogLog merged = new HyperLogLog();
+            merged.merge(hyperLogLog);
+
+            try (PreparedStatement statement = 
+                    connection.prepareStatement(
+                            SQLStatements
+                                    .VisitorSketchTable
+                                    .Select
+                                    .GET_SKETCH_FOR_UPDATE)) {
+
+                statement.setString(1, granularity.name());
+                statement.setTimestamp(2, bucketStart);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        merged.merge(
+                                HyperLogLog.fromByteArray(
+                                        resultSet.getBytes(1)));
+                    }
+                }
+            }
 
-        String username = databaseURI.getUserInfo().split(":")[0];
-        String password = databaseURI.getUserInfo().split(":")[1];
-        String databaseURL = 
-                "jdbc:mysql://" + databaseURI.getHost() + databaseURI.getPath();
+            try (PreparedStatement statement = 
+                    connection.prepareStatement(
+                            SQLStatements
+                                    .VisitorSketchTable
+                                    .Insert
+                                    .PUT_SKETCH)) {
 
-        return DriverManager.getConnection(databaseURL, username, password);
+                statement.setString(1, granularity.name());
+                statement.setTimestamp(2, bucketStart);
+                statement.setBytes(3, merged.toByteArray());
+                statement.executeUpdate();
+            }
+
+            return null;
+        }));
+    }
+
+    /**
+     * Moves the views older than {@code cutoff} from the main table into the
+     * archive table. The views are moved in batches of {@code batchSize} in
+     * the order of the ID, each in a transaction of its own, until no old 
+     * views are left. The counter tables are left intact, but the visitors of
+     * the rollup buckets starting before {@code cutoff} are then deleted in 
+     * batches of {@code batchSize} too: the views archived are not expected 
+     * to be counted again.
+     * 
+     * @param cutoff    the time before which the views are archived.
+     * @param batchSize the number of the views per batch.
+     * @return the number of the views archived.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public long archiveViews(ZonedDateTime cutoff, int batchSize) 
+            throws SQLException, URISyntaxException {
+        Timestamp cutoffTimestamp = Timestamp.from(cutoff.toInstant());
+
+        return timed(ARCHIVE_VIEWS_TIMER, () -> {
+            long numberOfArchivedViews = 0L;
+            long startId = Long.MIN_VALUE;
+
+            while (true) {
+                long[] idRange = getIdRangeOfViewsBefore(cutoffTimestamp, 
+                                                         startId, 
+                                                         batchSize);
+
+                if (idRange == null) {
+                    // No old views left:
+                    deleteRollupVisitorsBefore(cutoffTimestamp, batchSize);
+                    return numberOfArchivedViews;
+                }
+
+                numberOfArchivedViews += inTransaction(connection -> 
+                        moveViews(connection, 
+                                  idRange[0], 
+                                  idRange[1] + 1L, 
+                                  cutoffTimestamp));
+
+                startId = idRange[1] + 1L;
+            }
+        });
+    }
+
+    /**
+     * Deletes the visitors of the rollup buckets starting before 
+     * {@code cutoff} in batches of {@code batchSize}, each in a transaction 
+     * of its own.
+     */
+    private void deleteRollupVisitorsBefore(Timestamp cutoff, int batchSize) 
+            throws SQLException, URISyntaxException {
+        int numberOfDeletedVisitors;
+
+        do {
+            numberOfDeletedVisitors = inTransaction(connection -> {
+                try (PreparedStatement statement =
+                        connection.prepareStatement(
+                                SQLStatements
+                                        .RollupVisitorTable
+                                        .Delete
+                                        .DELETE_VISITORS_BEFORE)) {
+
+                    statement.setTimestamp(1, cutoff);
+                    statement.setInt(2, batchSize);
+                    return statement.executeUpdate();
+                }
+            });
+        } while (numberOfDeletedVisitors == batchSize);
+    }
+
+    /**
+     * Returns the smallest and the largest ID of the next batch of the views
+     * older than {@code cutoff} from {@code startId} on, or {@code null} if 
+     * there are none.
+     */
+    private long[] getIdRangeOfViewsBefore(Timestamp cutoff,
+                                           long startId,
+                                           int batchSize) 
+            throws SQLException, URISyntaxException {
+        try (Connection connection = getConnection();
+             PreparedStatement statement = 
+                     connection.prepareStatement(
+                             SQLStatements
+                                     .ViewTable
+                                     .Select
+                                     .GET_ID_RANGE_OF_VIEWS_BEFORE)) {
+
+            statement.setTimestamp(1, cutoff);
+            statement.setLong(2, startId);
+            statement.setInt(3, batchSize);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getObject(1) == null) {
+                    return null;
+                }
+
+                return new long[] { resultSet.getLong(1), 
+                                    resultSet.getLong(2) };
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of views, those of this instance not yet 
+     * flushed included.
+     * 
+     * @return the total number of views so far.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     * @throws java.lang.ArithmeticException if the number overflows an 
+     *                                       {@code int}.
+     */
+    @Override
+    public Integer getTotalViewCount() throws SQLException, URISyntaxException {
+        return timed(GET_TOTAL_VIEW_COUNT_TIMER, () -> 
+                Math.toIntExact(readViewTotals().numberOfTotalViews));
+    }
+
+    /**
+     * Returns the number of views of the visitor, those of this instance not
+     * yet flushed included.
+     * 
+     * @param ipAddress the IP-address of the visitor.
+     * @return the number of views of the visitor so far.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     * @throws java.lang.ArithmeticException if the number overflows an 
+     *                                       {@code int}.
+     */
+    @Override
+    public Integer getVisitorsViewCount(String ipAddress)
+            throws SQLException, URISyntaxException {
+        return timed(GET_VISITORS_VIEW_COUNT_TIMER, () -> 
+                Math.toIntExact(
+                        readVisitorStatistics(ipAddress)
+                                .numberOfVisitorsViews));
+    }
+
+    /**
+     * Returns the most recent view time stamp.
+     * @return the most recent view time.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    @Override
+    public ZonedDateTime getMostRecentViewTime() 
+            throws SQLException, URISyntaxException {
+        return timed(GET_MOST_RECENT_VIEW_TIME_TIMER, () -> 
+                readViewTotals().mostRecentViewTime);
+    }
+    
+    @Override
+    public ZonedDateTime getVisitorsMostRecentViewTime(String ipAddress)
+            throws SQLException, URISyntaxException {
+        return timed(GET_VISITORS_MOST_RECENT_VIEW_TIME_TIMER, () -> 
+                readVisitorStatistics(ipAddress).visitorsMostRecentViewTime);
+    }
+
+    /**
+     * Reads the view totals by {@link #readStatistics(TransactionBody)}, the
+     * views of this instance not yet flushed included.
+     */
+    private ViewStatistics readViewTotals() 
+            throws SQLException, URISyntaxException {
+        return readStatistics(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet =
+                         statement.executeQuery(
+                                 SQLStatements
+                                         .ViewTotalsTable
+                                         .Select
+                                         .GET_VIEW_TOTALS)) {
+
+                if (!resultSet.next()) {
+                    throw new IllegalStateException(
+                            "Could not read the number of views.");
+                }
+
+                ViewStatistics viewStatistics = new ViewStatistics();
+                viewStatistics.numberOfTotalViews = resultSet.getLong(1);
+                viewStatistics.mostRecentViewTime = 
+                        toZonedDateTime(resultSet.getTimestamp(2));
+
+                addPendingViews(viewStatistics, null, null);
+                return viewStatistics;
+            }
+        });
+    }
+
+    /**
+     * Reads the statistics of the visitor by 
+     * {@link #readStatistics(TransactionBody)}, the views of this instance not
+     * yet flushed included.
+     */
+    private ViewStatistics readVisitorStatistics(String ipAddress) 
+            throws SQLException, URISyntaxException {
+        return readStatistics(connection -> {
+            try (PreparedStatement statement =
+                         connection.prepareStatement(
+                                 SQLStatements
+                                         .VisitorStatsTable
+                                         .Select
+                                         .GET_VISITOR_STATS)) {
+
+                statement.setString(1, ipAddress);
+
+                ViewStatistics viewStatistics = new ViewStatistics();
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        viewStatistics.numberOfVisitorsViews = 
+                                resultSet.getLong(1);
+                        viewStatistics.visitorsMostRecentViewTime = 
+                                toZonedDateTime(resultSet.getTimestamp(2));
+                    }
+                }
+
+                addPendingViews(viewStatistics, ipAddress, null);
+                return viewStatistics;
+            }
+        });
+    }
+
+    /**
+     * Returns a snapshot of the connection pool usage.
+     * 
+     * @return the pool statistics.
+     * 
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    public PoolStatistics getPoolStatistics() throws URISyntaxException {
+        return PoolStatistics.of(getDataSource());
+    }
+
+    /**
+     * Closes the connection pool. Called on application shutdown.
+     */
+    @Override
+    public synchronized void close() {
+        counterDeltaFlusher.shutdown();
+
+        try {
+            counterDeltaFlusher.awaitTermination(30L, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        flushCounterDeltas();
+
+        if (replicaLagChecker != null) {
+            replicaLagChecker.shutdownNow();
+            readReplica.close();
+        }
+
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Reads the statistics to report with {@code statisticsReader} and 
+     * inserts the views in a single transaction, and returns the statistics.
+     * The counters are updated in the same transaction or, in the cluster
+     * mode, by the next flush. The rollups are always updated by the next 
+     * flush.
+     */
+    private <T> T recordViews(List<ViewRecord> viewRecords,
+                              Map<String, Integer> pageIds,
+                              TransactionBody<T> statisticsReader)
+            throws SQLException, URISyntaxException {
+        CounterDeltas[] counterDeltas = new CounterDeltas[1];
+        T statistics;
+
+        if (clusterMode) {
+            statistics = inTransaction(connection -> {
+                T result = readCounters(connection, statisticsReader);
+                counterDeltas[0] = 
+                        insertViewRows(connection, viewRecords, pageIds);
+                return result;
+            });
+        } else {
+            statistics = inTransaction(connection -> {
+                T result = statisticsReader.execute(connection);
+
+                if (viewRecords.size() == 1) {
+                    ViewRecord viewRecord = viewRecords.get(0);
+                    insertView(connection, 
+                               viewRecord, 
+                               pageIds.get(viewRecord.getPage()));
+                } else {
+                    insertViews(connection, viewRecords, pageIds);
+                }
+
+                return result;
+            });
+
+            counterDeltas[0] = new CounterDeltas();
+
+            for (ViewRecord viewRecord : viewRecords) {
+                counterDeltas[0].addRollups(viewRecord);
+            }
+        }
+
+        // Only the committed views may reach the counters:
+        synchronized (pendingCounterDeltasLock) {
+            pendingCounterDeltas.merge(counterDeltas[0]);
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Runs {@code counterReader} holding {@link #counterLock} in the cluster
+     * mode.
+     */
+    private <T> T readCounters(Connection connection,
+                               TransactionBody<T> counterReader)
+            throws SQLException {
+        if (!clusterMode) {
+            return counterReader.execute(connection);
+        }
+
+        counterLock.readLock().lock();
+
+        try {
+            return counterReader.execute(connection);
+        } finally {
+            counterLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code statisticsReader} on the read replica, if any. In the 
+     * cluster mode it is run on the primary database holding 
+     * {@link #counterLock} instead, since the pending counter changes add up
+     * only with the counters of the primary.
+     */
+    private <T> T readStatistics(TransactionBody<T> statisticsReader)
+            throws SQLException, URISyntaxException {
+        if (!clusterMode) {
+            return readFromReplica(statisticsReader);
+        }
+
+        try (Connection connection = getConnection()) {
+            return readCounters(connection, statisticsReader);
+        }
+    }
+
+    /**
+     * Runs {@code reader} on the read replica if it is usable, and on the 
+     * primary database otherwise or if the replica fails.
+     */
+    private <T> T readFromReplica(TransactionBody<T> reader)
+            throws SQLException, URISyntaxException {
+        if (readReplica != null && readReplica.isUsable()) {
+            try (Connection connection = readReplica.getConnection()) {
+                return reader.execute(connection);
+            } catch (SQLException ex) {
+                readReplica.markFailed(ex);
+            }
+        }
+
+        try (Connection connection = getConnection()) {
+            return reader.execute(connection);
+        }
+    }
+
+    /**
+     * Adds the views of this instance not yet flushed to the counters to the
+     * statistics of the visitor and of the page, if any.
+     */
+    private void addPendingViews(ViewStatistics viewStatistics,
+                                 String ipAddress,
+                                 Integer pageId) {
+        if (!clusterMode) {
+            return;
+        }
+
+        synchronized (pendingCounterDeltasLock) {
+            addViews(viewStatistics, ipAddress, pendingCounterDeltas);
+
+            if (flushingCounterDeltas != null) {
+                addViews(viewStatistics, ipAddress, flushingCounterDeltas);
+            }
+        }
+
+        if (viewStatistics.pageViewStatistics != null) {
+            addPendingViews(viewStatistics.pageViewStatistics, 
+                            ipAddress, 
+                            pageId);
+        }
+    }
+
+    /**
+     * Adds the views of this instance not yet flushed to the page statistics
+     * to the statistics of the page and of its visitor.
+     */
+    private void addPendingViews(PageViewStatistics pageViewStatistics,
+                                 String ipAddress,
+                                 Integer pageId) {
+        if (!clusterMode || pageId == null) {
+            return;
+        }
+
+        synchronized (pendingCounterDeltasLock) {
+            addViews(pageViewStatistics, 
+                     ipAddress, 
+                     pageId, 
+                     pendingCounterDeltas);
+
+            if (flushingCounterDeltas != null) {
+                addViews(pageViewStatistics, 
+                         ipAddress, 
+                         pageId, 
+                         flushingCounterDeltas);
+            }
+        }
+    }
+
+    private static void addViews(ViewStatistics viewStatistics,
+                                 String ipAddress,
+                                 CounterDeltas counterDeltas) {
+        ViewDelta totalsDelta = counterDeltas.totalsDelta;
+        viewStatistics.numberOfTotalViews += totalsDelta.viewCount;
+        viewStatistics.mostRecentViewTime = 
+                latest(viewStatistics.mostRecentViewTime, totalsDelta);
+
+        if (ipAddress == null) {
+            // The totals only:
+            return;
+        }
+
+        ViewDelta visitorDelta = counterDeltas.visitorDeltas.get(ipAddress);
+
+        if (visitorDelta != null) {
+            viewStatistics.numberOfVisitorsViews += visitorDelta.viewCount;
+            viewStatistics.visitorsMostRecentViewTime = 
+                    latest(viewStatistics.visitorsMostRecentViewTime, 
+                           visitorDelta);
+        }
+    }
+
+    private static void addViews(PageViewStatistics pageViewStatistics,
+                                 String ipAddress,
+                                 Integer pageId,
+                                 CounterDeltas counterDeltas) {
+        ViewDelta pageDelta = counterDeltas.pageDeltas.get(pageId);
+
+        if (pageDelta == null) {
+            return;
+        }
+
+        pageViewStatistics.numberOfPageViews += pageDelta.viewCount;
+        pageViewStatistics.mostRecentPageViewTime = 
+                latest(pageViewStatistics.mostRecentPageViewTime, pageDelta);
+
+        ViewDelta pageVisitorDelta = 
+                counterDeltas.pageVisitorDeltas.get(
+                        new PageVisitorKey(pageId, ipAddress));
+
+        if (pageVisitorDelta != null) {
+            pageViewStatistics.numberOfVisitorsPageViews += 
+                    pageVisitorDelta.viewCount;
+            pageViewStatistics.visitorsMostRecentPageViewTime = 
+                    latest(pageViewStatistics.visitorsMostRecentPageViewTime, 
+                           pageVisitorDelta);
+        }
+    }
+
+    private static ZonedDateTime latest(ZonedDateTime zonedDateTime, 
+                                        ViewDelta viewDelta) {
+        if (viewDelta.viewCount == 0L) {
+            return zonedDateTime;
+        }
+
+        if (zonedDateTime != null && 
+                zonedDateTime.toInstant().toEpochMilli() >= 
+                viewDelta.lastViewTimeMillis) {
+            return zonedDateTime;
+        }
+
+        return toZonedDateTime(new Timestamp(viewDelta.lastViewTimeMillis));
+    }
+
+    /**
+     * Adds the pending counter changes to the shared counter rows. The changes
+     * are kept for the next flush if adding fails. The readers keep counting
+     * the changes being flushed until the flush commits.
+     */
+    private void flushCounterDeltas() {
+        CounterDeltas counterDeltas;
+
+        synchronized (pendingCounterDeltasLock) {
+            if (pendingCounterDeltas.isEmpty()) {
+                return;
+            }
+
+            counterDeltas = pendingCounterDeltas;
+            flushingCounterDeltas = counterDeltas;
+            pendingCounterDeltas = new CounterDeltas();
+        }
+
+        try {
+            timed(FLUSH_COUNTER_DELTAS_TIMER, () -> {
+                flushCounterDeltas(counterDeltas);
+                return null;
+            });
+        } catch (SQLException | URISyntaxException | RuntimeException ex) {
+            LOGGER.log(
+                    Level.WARNING, 
+                    "Flushing the counter deltas failed: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+            synchronized (pendingCounterDeltasLock) {
+                counterDeltas.merge(pendingCounterDeltas);
+                pendingCounterDeltas = counterDeltas;
+                flushingCounterDeltas = null;
+            }
+        }
+    }
+
+    /**
+     * Adds the counter changes to the counter rows in a single transaction. 
+     * Fails only if the transaction did not commit, so that the changes are
+     * kept for the next flush exactly when they are not in the counters yet.
+     */
+    private void flushCounterDeltas(CounterDeltas counterDeltas) 
+            throws SQLException, URISyntaxException {
+        boolean committed = false;
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                addCounterDeltas(connection, counterDeltas);
+
+                counterLock.writeLock().lock();
+
+                try {
+                    connection.commit();
+                    committed = true;
+
+                    synchronized (pendingCounterDeltasLock) {
+                        flushingCounterDeltas = null;
+                    }
+                } finally {
+                    counterLock.writeLock().unlock();
+                }
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            if (!committed) {
+                throw ex;
+            }
+
+            // Restoring or closing the connection failed, the changes are in
+            // the counters anyway:
+            LOGGER.log(
+                    Level.WARNING, 
+                    "Releasing the connection of a committed counter flush " + 
+                            "failed: {0}", 
+                    ex.getMessage());
+        }
+    }
+
+    private long getNumberOfPendingViews() {
+        synchronized (pendingCounterDeltasLock) {
+            return pendingCounterDeltas.totalsDelta.viewCount;
+        }
+    }
+
+    /**
+     * Returns the IDs of the pages of the views, interning the new pages. The
+     * pages are interned in transactions of their own, so that only the IDs
+     * of committed pages are ever cached. The rejected pages are left out.
+     */
+    private Map<String, Integer> getPageIds(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        Integer pageId = getPageId(viewRecord.getPage());
+
+        return pageId == null ? 
+                Collections.emptyMap() :
+                Collections.singletonMap(viewRecord.getPage(), pageId);
+    }
+
+    private Map<String, Integer> getPageIds(List<ViewRecord> viewRecords) 
+            throws SQLException, URISyntaxException {
+        Map<String, Integer> viewPageIds = null;
+
+        for (ViewRecord viewRecord : viewRecords) {
+            Integer pageId = getPageId(viewRecord.getPage());
+
+            if (pageId != null) {
+                if (viewPageIds == null) {
+                    viewPageIds = new HashMap<>();
+                }
+
+                viewPageIds.put(viewRecord.getPage(), pageId);
+            }
+        }
+
+        return viewPageIds == null ? Collections.emptyMap() : viewPageIds;
+    }
+
+    /**
+     * Returns the ID of the page, interning it if new, or {@code null} if 
+     * {@code page} is {@code null} or new while the page table is full.
+     */
+    private Integer getPageId(String page) 
+            throws SQLException, URISyntaxException {
+        if (page == null) {
+            return null;
+        }
+
+        Integer pageId = pageIds.get(page);
+
+        if (pageId != null) {
+            return pageId;
+        }
+
+        try (Connection connection = getConnection()) {
+            pageId = selectPageId(connection, page);
+
+            if (pageId == null && isPageTableFull(connection)) {
+                REJECTED_PAGES.increment();
+                return null;
+            }
+
+            if (pageId == null) {
+                // Do not waste the auto-increment IDs by inserting the known
+                // pages:
+                try (PreparedStatement statement = 
+                        connection.prepareStatement(
+                                SQLStatements.PageTable.Insert.INTERN_PAGE)) {
+
+                    statement.setString(1, page);
+                    statement.executeUpdate();
+                }
+
+                pageId = selectPageId(connection, page);
+            }
+        }
+
+        if (pageId == null) {
+            throw new SQLException("Could not intern the page " + page + ".");
+        }
+
+        pageIds.put(page, pageId);
+        return pageId;
+    }
+
+    /**
+     * Returns {@code true} if the page table holds the maximum number of 
+     * pages. The instances interning at the same time may exceed the maximum
+     * by a few pages.
+     */
+    private boolean isPageTableFull(Connection connection) 
+            throws SQLException {
+        if (pageTableFull) {
+            return true;
+        }
+
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements.PageTable.Select.GET_NUMBER_OF_PAGES);
+             ResultSet resultSet = statement.executeQuery()) {
+
+            if (!resultSet.next() || resultSet.getLong(1) < pageMaximumCount) {
+                return false;
+            }
+        }
+
+        pageTableFull = true;
+
+        LOGGER.log(Level.WARNING, 
+                   "The page table holds {0} pages, rejecting the new " + 
+                   "pages; raise {1} to count more.",
+                   objects(pageMaximumCount, PAGE_MAXIMUM_COUNT));
+        return true;
+    }
+
+    private static Integer selectPageId(Connection connection, String page) 
+            throws SQLException {
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements.PageTable.Select.GET_PAGE_ID)) {
+
+            statement.setString(1, page);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Inserts a view into the main table and adds it to the view totals and
+     * the statistics of the visitor and of the page, if any, but not to the
+     * rollups.
+     */
+    private static void insertView(Connection connection, 
+                                   ViewRecord viewRecord,
+                                   Integer pageId) 
+            throws SQLException {
+        Timestamp viewTimestamp = 
+                new Timestamp(viewRecord.getViewTimeMillis());
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTable.Insert.INSERT_VIEW)) {
+
+            setViewParameters(statement, viewRecord, pageId);
+            statement.executeUpdate();
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTotalsTable.Insert.ADD_VIEWS)) {
+
+            statement.setInt(1, SQLDefinitions.ViewTotalsTable.TOTALS_ROW_ID);
+            statement.setLong(2, 1L);
+            statement.setTimestamp(3, viewTimestamp);
+            statement.executeUpdate();
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .VisitorStatsTable
+                                .Insert
+                                .ADD_VIEWS_OF_VISITOR)) {
+
+            statement.setString(1, viewRecord.getIPAddress());
+            statement.setLong(2, 1L);
+            statement.setTimestamp(3, viewTimestamp);
+            statement.executeUpdate();
+        }
+
+        if (pageId == null) {
+            return;
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .PageStatsTable
+                                .Insert
+                                .ADD_VIEWS_OF_PAGE)) {
+
+            statement.setInt(1, pageId);
+            statement.setLong(2, 1L);
+            statement.setTimestamp(3, viewTimestamp);
+            statement.executeUpdate();
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .PageVisitorStatsTable
+                                .Insert
+                                .ADD_VIEWS_OF_PAGE_VISITOR)) {
+
+            statement.setInt(1, pageId);
+            statement.setString(2, viewRecord.getIPAddress());
+            statement.setLong(3, 1L);
+            statement.setTimestamp(4, viewTimestamp);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Inserts a batch of views into the main table and adds them to the view 
+     * totals and the statistics of the visitors and of the pages, but not to
+     * the rollups.
+     */
+    private static void insertViews(Connection connection, 
+                                    List<ViewRecord> viewRecords,
+                                    Map<String, Integer> pageIds) 
+            throws SQLException {
+        addViewCounterDeltas(connection, 
+                             insertViewRows(connection, 
+                                            viewRecords, 
+                                            pageIds));
+    }
+
+    /**
+     * Inserts a batch of views into the main table and returns the changes
+     * they make to the counters.
+     */
+    private static CounterDeltas insertViewRows(Connection connection, 
+                                                List<ViewRecord> viewRecords,
+                                                Map<String, Integer> pageIds) 
+            throws SQLException {
+        CounterDeltas counterDeltas = new CounterDeltas();
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTable.Insert.INSERT_VIEW)) {
+
+            for (ViewRecord viewRecord : viewRecords) {
+                Integer pageId = pageIds.get(viewRecord.getPage());
+
+                setViewParameters(statement, viewRecord, pageId);
+                statement.addBatch();
+                counterDeltas.add(viewRecord, pageId);
+            }
+
+            statement.executeBatch();
+        }
+
+        return counterDeltas;
+    }
+
+    /**
+     * Adds the changes of a number of views to the view totals, the rollups 
+     * and the statistics of the visitors and of the pages. Only the rollups
+     * change if the views were added to the rollups only.
+     */
+    private static void addCounterDeltas(Connection connection,
+                                         CounterDeltas counterDeltas) 
+            throws SQLException {
+        if (counterDeltas.totalsDelta.viewCount > 0L) {
+            addViewCounterDeltas(connection, counterDeltas);
+        }
+
+        addRollupDeltas(connection, counterDeltas.rollupDeltas);
+    }
+
+    /**
+     * Adds the changes of a number of views to the view totals and the 
+     * statistics of the visitors and of the pages.
+     */
+    private static void addViewCounterDeltas(Connection connection,
+                                             CounterDeltas counterDeltas) 
+            throws SQLException {
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTotalsTable.Insert.ADD_VIEWS)) {
+
+            statement.setInt(1, SQLDefinitions.ViewTotalsTable.TOTALS_ROW_ID);
+            statement.setLong(2, counterDeltas.totalsDelta.viewCount);
+            statement.setTimestamp(
+                    3, 
+                    new Timestamp(
+                            counterDeltas.totalsDelta.lastViewTimeMillis));
+            statement.executeUpdate();
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .VisitorStatsTable
+                                .Insert
+                                .ADD_VIEWS_OF_VISITOR)) {
+
+            for (Map.Entry<String, ViewDelta> entry : 
+                    counterDeltas.visitorDeltas.entrySet()) {
+                statement.setString(1, entry.getKey());
+                statement.setLong(2, entry.getValue().viewCount);
+                statement.setTimestamp(
+                        3, 
+                        new Timestamp(entry.getValue().lastViewTimeMillis));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+
+        if (counterDeltas.pageDeltas.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .PageStatsTable
+                                .Insert
+                                .ADD_VIEWS_OF_PAGE)) {
+
+            for (Map.Entry<Integer, ViewDelta> entry : 
+                    counterDeltas.pageDeltas.entrySet()) {
+                statement.setInt(1, entry.getKey());
+                statement.setLong(2, entry.getValue().viewCount);
+                statement.setTimestamp(
+                        3, 
+                        new Timestamp(entry.getValue().lastViewTimeMillis));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .PageVisitorStatsTable
+                                .Insert
+                                .ADD_VIEWS_OF_PAGE_VISITOR)) {
+
+            for (Map.Entry<PageVisitorKey, ViewDelta> entry : 
+                    counterDeltas.pageVisitorDeltas.entrySet()) {
+                statement.setInt(1, entry.getKey().pageId);
+                statement.setString(2, entry.getKey().ipAddress);
+                statement.setLong(3, entry.getValue().viewCount);
+                statement.setTimestamp(
+                        4, 
+                        new Timestamp(entry.getValue().lastViewTimeMillis));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Adds the views of a number of visitors to the rollup buckets. A visitor
+     * is counted in a bucket only if added to the rollup visitors of the 
+     * bucket now, so that the views may come in any order, such as replayed
+     * or late, and several instances may add the same visitor at once.
+     */
+    private static void addRollupDeltas(Connection connection,
+                                        Map<RollupKey, Long> rollupDeltas) 
+            throws SQLException {
+        if (rollupDeltas.isEmpty()) {
+            return;
+        }
+
+        // In the order of the buckets, each visitor after another:
+        List<RollupKey> rollupKeys = new ArrayList<>(rollupDeltas.keySet());
+        int[] updateCounts;
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements
+                                .RollupVisitorTable
+                                .Insert
+                                .ADD_VISITOR)) {
+
+            for (RollupKey rollupKey : rollupKeys) {
+                statement.setString(1, rollupKey.granularity.name());
+                statement.setTimestamp(
+                        2, 
+                        new Timestamp(rollupKey.bucketStartMillis));
+                statement.setString(3, rollupKey.ipAddress);
+                statement.addBatch();
+            }
+
+            updateCounts = statement.executeBatch();
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.ViewRollupTable.Insert.ADD_VIEWS)) {
+
+            int index = 0;
+
+            while (index < rollupKeys.size()) {
+                RollupKey bucketKey = rollupKeys.get(index);
+                long viewCount = 0L;
+                long visitorCount = 0L;
+
+                while (index < rollupKeys.size() && 
+                        isSameBucket(rollupKeys.get(index), bucketKey)) {
+                    viewCount += rollupDeltas.get(rollupKeys.get(index));
+                    visitorCount += isInserted(updateCounts[index]) ? 1L : 0L;
+                    index++;
+                }
+
+                statement.setString(1, bucketKey.granularity.name());
+                statement.setTimestamp(
+                        2, 
+                        new Timestamp(bucketKey.bucketStartMillis));
+                statement.setLong(3, viewCount);
+                statement.setLong(4, visitorCount);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    private static boolean isSameBucket(RollupKey rollupKey1, 
+                                        RollupKey rollupKey2) {
+        return rollupKey1.granularity == rollupKey2.granularity &&
+               rollupKey1.bucketStartMillis == rollupKey2.bucketStartMillis;
+    }
+
+    private static boolean isInserted(int updateCount) throws SQLException {
+        if (updateCount == Statement.SUCCESS_NO_INFO) {
+            throw new SQLException(
+                    "The JDBC driver did not report whether a visitor is " +
+                            "new to a rollup bucket.");
+        }
+
+        return updateCount > 0;
+    }
+
+    /**
+     * Copies the views in the ID range {@code [startId, endId)} older than 
+     * {@code cutoff} into the archive table and deletes them from the main
+     * table. Returns the number of the views moved.
+     */
+    private static int moveViews(Connection connection,
+                                 long startId,
+                                 long endId,
+                                 Timestamp cutoff) throws SQLException {
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements
+                                .ViewArchiveTable
+                                .Insert
+                                .ARCHIVE_VIEWS_BEFORE)) {
+
+            statement.setLong(1, startId);
+            statement.setLong(2, endId);
+            statement.setTimestamp(3, cutoff);
+            statement.executeUpdate();
+        }
+
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements.ViewTable.Delete.DELETE_VIEWS_BEFORE)) {
+
+            statement.setLong(1, startId);
+            statement.setLong(2, endId);
+            statement.setTimestamp(3, cutoff);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void setViewParameters(PreparedStatement statement,
+                                          ViewRecord viewRecord,
+                                          Integer pageId) 
+            throws SQLException {
+        statement.setString(1, viewRecord.getIPAddress());
+        statement.setString(2, viewRecord.getHostName());
+        statement.setInt(3, viewRecord.getPort());
+        statement.setTimestamp(
+                4, 
+                new Timestamp(viewRecord.getViewTimeMillis()));
+        statement.setBytes(5, IPAddresses.pack(viewRecord.getIPAddress()));
+
+        if (pageId == null) {
+            statement.setNull(6, Types.INTEGER);
+        } else {
+            statement.setInt(6, pageId);
+        }
+    }
+
+
+    private static ViewStatistics fetchViewStatistics(Connection connection,
+                                                      String ipAddress) 
+            throws SQLException {
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements
+                                .ViewTotalsTable
+                                .Select
+                                .GET_VIEW_TOTALS_AND_VISITOR_STATS)) {
+
+            statement.setString(1, ipAddress);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new IllegalStateException(
+                            "Could not read the view statistics.");
+                }
+
+                ViewStatistics viewStatistics = new ViewStatistics();
+                viewStatistics.numberOfTotalViews = resultSet.getLong(1);
+                viewStatistics.mostRecentViewTime = 
+                        toZonedDateTime(resultSet.getTimestamp(2));
+                viewStatistics.numberOfVisitorsViews = resultSet.getLong(3);
+                viewStatistics.visitorsMostRecentViewTime = 
+                        toZonedDateTime(resultSet.getTimestamp(4));
+                return viewStatistics;
+            }
+        }
+    }
+
+    /**
+     * Returns the view statistics of the distinct pages, with the IDs in 
+     * {@code pageIds}, as seen by the visitor, in the order of the pages.
+     */
+    private static List<PageViewStatistics> fetchPageViewStatistics(
+            Connection connection,
+            String ipAddress,
+            List<String> pages,
+            Map<String, Integer> pageIds) throws SQLException {
+        List<PageViewStatistics> pageViewStatisticsList = 
+                new ArrayList<>(pages.size());
+        Map<Integer, PageViewStatistics> pageViewStatisticsMap = 
+                new TreeMap<>();
+
+        for (String page : pages) {
+            PageViewStatistics pageViewStatistics = new PageViewStatistics();
+            pageViewStatistics.page = page;
+            pageViewStatisticsList.add(pageViewStatistics);
+
+            // The rejected pages have no statistics:
+            if (pageIds.containsKey(page)) {
+                pageViewStatisticsMap.put(pageIds.get(page), 
+                                          pageViewStatistics);
+            }
+        }
+
+        if (pageViewStatisticsMap.isEmpty()) {
+            return pageViewStatisticsList;
+        }
+
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements
+                                .PageStatsTable
+                                .Select
+                                .getPageStatistics(
+                                        pageViewStatisticsMap.size()))) {
+
+            int parameterIndex = 1;
+            statement.setString(parameterIndex++, ipAddress);
+
+            for (Integer pageId : pageViewStatisticsMap.keySet()) {
+                statement.setInt(parameterIndex++, pageId);
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    PageViewStatistics pageViewStatistics = 
+                            pageViewStatisticsMap.get(resultSet.getInt(1));
+
+                    pageViewStatistics.numberOfPageViews = 
+                            resultSet.getLong(2);
+                    pageViewStatistics.mostRecentPageViewTime = 
+                            toZonedDateTime(resultSet.getTimestamp(3));
+                    pageViewStatistics.numberOfVisitorsPageViews = 
+                            resultSet.getLong(4);
+                    pageViewStatistics.visitorsMostRecentPageViewTime = 
+                            toZonedDateTime(resultSet.getTimestamp(5));
+                }
+            }
+        }
+
+        return pageViewStatisticsList;
+    }
+
+    private static ZonedDateTime toZonedDateTime(Timestamp timestamp) {
+        return timestamp == null ? 
+                null : 
+                ZonedDateTime.ofInstant(timestamp.toInstant(), ZONE_ID);
+    }
+
+    /**
+     * Runs {@code transactionBody} in a single transaction and returns its 
+     * result. The transaction is rolled back if the body fails.
+     */
+    private <T> T inTransaction(TransactionBody<T> transactionBody) 
+            throws SQLException, URISyntaxException {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                T result = transactionBody.execute(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code databaseOperation} and records its latency and failure in
+     * {@code timer}.
+     */
+    private static <T> T timed(Timer timer, 
+                               DatabaseOperation<T> databaseOperation) 
+            throws SQLException, URISyntaxException {
+        long startNanos = System.nanoTime();
+
+        try {
+            return databaseOperation.execute();
+        } catch (SQLException | URISyntaxException | RuntimeException ex) {
+            timer.recordError();
+            throw ex;
+        } finally {
+            timer.recordSince(startNanos);
+        }
+    }
+
+    private static Timer daoTimer(String operation) {
+        return Metrics.timer("weblog_dao", 
+                             "The latency of the data access operations.", 
+                             operation);
+    }
+
+    @FunctionalInterface
+    private interface DatabaseOperation<T> {
+        T execute() throws SQLException, URISyntaxException;
+    }
+
+    @FunctionalInterface
+    private interface TransactionBody<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    private DataSource getDataSource() throws URISyntaxException {
+        DataSource currentDataSource = dataSource;
+
+        if (currentDataSource != null) {
+            return currentDataSource;
+        }
+
+        synchronized (this) {
+            if (dataSource == null) {
+                dataSource = DataSourceFactory.createPrimaryDataSource();
+                registerPoolGauges(dataSource);
+            }
+
+            return dataSource;
+        }
+    }
+
+    private static void registerPoolGauges(DataSource dataSource) {
+        Metrics.gauge("weblog_pool_active_connections", 
+                      "The number of borrowed pooled connections.", 
+                      dataSource::getActive);
+        Metrics.gauge("weblog_pool_idle_connections", 
+                      "The number of idle pooled connections.", 
+                      dataSource::getIdle);
+        Metrics.gauge("weblog_pool_size", 
+                      "The number of pooled connections.", 
+                      dataSource::getSize);
+        Metrics.gauge("weblog_pool_waiting_threads", 
+                      "The number of threads waiting for a connection.", 
+                      dataSource::getWaitCount);
+    }
+
+    private Connection getConnection() throws SQLException, URISyntaxException {
+        DataSource currentDataSource = getDataSource();
+        long startNanos = System.nanoTime();
+
+        try {
+            return currentDataSource.getConnection();
+        } catch (SQLException ex) {
+            POOL_WAIT_TIMER.recordError();
+            throw ex;
+        } finally {
+            POOL_WAIT_TIMER.recordSince(startNanos);
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.github.coderodde.weblog.viewcounter;
+
+/**
+ * This interface defines a writer storing the views in the background, off
+ * the request path.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+interface DeferredViewWriter {
+
+    /**
+     * Takes the view for writing.
+     *
+     * @param viewRecord the view to write.
+     * @return {@code false} if the view was not taken and must be written
+     *         otherwise or dropped.
+     */
+    boolean offer(ViewRecord viewRecord);
+
+    /**
+     * Stops the background writing, writing whatever is pending if possible.
+     */
+    void close();
+}
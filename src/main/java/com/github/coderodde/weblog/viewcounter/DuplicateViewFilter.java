@@ -0,0 +1,243 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class remembers the recently counted views so that the repeated views
+ * of the same visitor and page within a time window are counted as one. A 
+ * visitor is identified by the canonical IP-address and, optionally, the 
+ * user agent.
+ *
+ * <p>The entries are kept in a number of size-capped maps in the order of
+ * insertion, each guarded by its own lock; the expired entries are evicted
+ * from the head of a map on every insertion into it. Checking for a duplicate
+ * and reserving the entry of a new view is a single step, so of the views 
+ * arriving at once only one is counted. Each entry holds the statistics 
+ * reported for the counted view, once known, which are reported again for 
+ * the duplicates without touching the database; the duplicates arriving 
+ * while the view is being counted wait for them.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class DuplicateViewFilter {
+
+    private final long windowMillis;
+    private final boolean keyedByUserAgent;
+    private final Stripe[] stripes;
+
+    DuplicateViewFilter(long windowMillis,
+                        int maximumEntries,
+                        int stripeCount,
+                        boolean keyedByUserAgent) {
+        this.windowMillis = windowMillis;
+        this.keyedByUserAgent = keyedByUserAgent;
+
+        stripeCount = Math.max(1, stripeCount);
+        int stripeCapacity = Math.max(1, maximumEntries / stripeCount);
+        stripes = new Stripe[stripeCount];
+
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    /**
+     * Returns the key identifying the visitor of the view.
+     *
+     * @param viewRecord the view.
+     * @return the key of the visitor.
+     */
+    Key getKey(ViewRecord viewRecord) {
+        return new Key(viewRecord, keyedByUserAgent);
+    }
+
+    /**
+     * Returns the reservation of the view counted, or being counted, for the
+     * visitor within the window preceding {@code viewTimeMillis} as a 
+     * duplicate. If there is none, reserves the window starting at 
+     * {@code viewTimeMillis} for the view, and the caller must either 
+     * {@link Reservation#complete(ViewStatistics)} the reservation once the 
+     * view is counted, or {@link #release(Key, Reservation)} it if counting
+     * fails.
+     *
+     * @param key            the key of the visitor.
+     * @param viewTimeMillis the time of the view.
+     * @return the reservation.
+     */
+    Reservation reserve(Key key, long viewTimeMillis) {
+        Stripe stripe = getStripe(key);
+
+        synchronized (stripe) {
+            Reservation reservation = stripe.get(key);
+
+            if (reservation != null &&
+                    viewTimeMillis - reservation.viewTimeMillis 
+                            < windowMillis) {
+                return reservation.asDuplicate();
+            }
+
+            // Re-insert so that the map stays ordered by the view time:
+            stripe.remove(key);
+            reservation = new Reservation(viewTimeMillis);
+            stripe.put(key, reservation);
+
+            Iterator<Reservation> iterator = stripe.values().iterator();
+
+            while (iterator.hasNext()) {
+                if (viewTimeMillis - iterator.next().viewTimeMillis
+                        < windowMillis) {
+                    break;
+                }
+
+                iterator.remove();
+            }
+
+            return reservation;
+        }
+    }
+
+    /**
+     * Removes the reservation of a view that could not be counted. The 
+     * duplicates waiting for it get no statistics and are counted anew.
+     *
+     * @param key         the key of the visitor.
+     * @param reservation the reservation of the view.
+     */
+    void release(Key key, Reservation reservation) {
+        Stripe stripe = getStripe(key);
+
+        synchronized (stripe) {
+            stripe.remove(key, reservation);
+        }
+
+        reservation.viewStatistics.complete(null);
+    }
+
+    private Stripe getStripe(Key key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    /**
+     * Identifies a visitor and the page viewed.
+     */
+    static final class Key {
+        private final String ipAddress;
+        private final String userAgent;
+        private final String page;
+        private final int hashCode;
+
+        Key(ViewRecord viewRecord, boolean keyedByUserAgent) {
+            this.ipAddress = viewRecord.getIPAddress();
+            this.userAgent = keyedByUserAgent ?
+                    viewRecord.getUserAgent() :
+                    null;
+            this.page = viewRecord.getPage();
+            this.hashCode = 31 * (31 * Objects.hashCode(ipAddress) +
+                                  Objects.hashCode(userAgent)) +
+                            Objects.hashCode(page);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+
+            return hashCode == other.hashCode &&
+                   Objects.equals(ipAddress, other.ipAddress) &&
+                   Objects.equals(userAgent, other.userAgent) &&
+                   Objects.equals(page, other.page);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The reservation of the window of a view, holding the statistics 
+     * reported for it once the view is counted.
+     */
+    static final class Reservation {
+        private final long viewTimeMillis;
+        private final CompletableFuture<ViewStatistics> viewStatistics;
+        private final boolean duplicate;
+
+        private Reservation(long viewTimeMillis) {
+            this(viewTimeMillis, new CompletableFuture<>(), false);
+        }
+
+        private Reservation(long viewTimeMillis,
+                            CompletableFuture<ViewStatistics> viewStatistics,
+                            boolean duplicate) {
+            this.viewTimeMillis = viewTimeMillis;
+            this.viewStatistics = viewStatistics;
+            this.duplicate = duplicate;
+        }
+
+        /**
+         * Returns {@code true} if this is the reservation of a view counted
+         * earlier, the view reserving it being a duplicate.
+         *
+         * @return {@code true} if a duplicate.
+         */
+        boolean isDuplicate() {
+            return duplicate;
+        }
+
+        /**
+         * Sets the statistics reported for the view, releasing the 
+         * duplicates waiting for them.
+         *
+         * @param viewStatistics the statistics reported for the view.
+         */
+        void complete(ViewStatistics viewStatistics) {
+            this.viewStatistics.complete(viewStatistics);
+        }
+
+        /**
+         * Returns the statistics reported for the view, waiting until the 
+         * view is counted, or {@code null} if counting it failed.
+         *
+         * @return the reported statistics or {@code null}.
+         */
+        ViewStatistics getViewStatistics() {
+            return viewStatistics.join();
+        }
+
+        private Reservation asDuplicate() {
+            return new Reservation(viewTimeMillis, viewStatistics, true);
+        }
+    }
+
+    /**
+     * A size-capped map in insertion order. Accessed only while holding its
+     * monitor.
+     */
+    private static final class Stripe
+            extends LinkedHashMap<Key, Reservation> {
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<Key, Reservation> eldest) {
+            return size() > capacity;
+        }
+    }
+}
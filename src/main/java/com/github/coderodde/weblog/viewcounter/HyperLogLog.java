@@ -0,0 +1,185 @@
+package com.github.coderodde.weblog.viewcounter;
+
+/**
+ * This class implements a HyperLogLog sketch estimating the number of distinct
+ * visitors in constant memory. With the default precision of 12 the sketch has
+ * 4096 registers, a standard error of about 1.6% and serializes into 3073
+ * bytes. Sketches of equal precision merge losslessly by taking the maximum of
+ * each register, so merging is idempotent.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class HyperLogLog {
+
+    /**
+     * The default number of index bits.
+     */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private static final int MINIMUM_PRECISION = 4;
+    private static final int MAXIMUM_PRECISION = 16;
+    private static final int BITS_PER_REGISTER = 6;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < MINIMUM_PRECISION || precision > MAXIMUM_PRECISION) {
+            throw new IllegalArgumentException(
+                    "Bad HyperLogLog precision: " + precision);
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds the item with the given 64-bit hash to this sketch.
+     *
+     * @param hash the hash of the item.
+     */
+    public synchronized void add(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // The sentinel bit caps the rank at 64 - precision + 1:
+        int rank = Long.numberOfLeadingZeros(
+                (hash << precision) | (1L << (precision - 1))) + 1;
+
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merges {@code other} into this sketch.
+     *
+     * @param other the sketch to merge.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge sketches of precision " + other.precision +
+                    " and " + precision);
+        }
+
+        byte[] otherRegisters;
+
+        synchronized (other) {
+            otherRegisters = other.registers.clone();
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < registers.length; i++) {
+                if (otherRegisters[i] > registers[i]) {
+                    registers[i] = otherRegisters[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct items added to this sketch.
+     *
+     * @return the cardinality estimate.
+     */
+    public synchronized long estimate() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeroRegisters = 0;
+
+        for (byte register : registers) {
+            sum += Double.longBitsToDouble((1023L - register) << 52);
+
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double alpha = 0.7213 / (1.0 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+
+        if (estimate <= 2.5 * m && zeroRegisters > 0) {
+            // Linear counting is more accurate for small cardinalities:
+            estimate = m * Math.log((double) m / zeroRegisters);
+        }
+
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns {@code true} if nothing has been added to this sketch.
+     *
+     * @return {@code true} if this sketch is empty.
+     */
+    public synchronized boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Serializes this sketch: the precision followed by the registers packed
+     * into 6 bits each.
+     *
+     * @return the serialized sketch.
+     */
+    public synchronized byte[] toByteArray() {
+        byte[] bytes =
+                new byte[1 + (registers.length * BITS_PER_REGISTER + 7) / 8];
+        bytes[0] = (byte) precision;
+
+        for (int i = 0; i < registers.length; i++) {
+            int bitIndex = i * BITS_PER_REGISTER;
+            int value = (registers[i] & 0x3f) << (bitIndex & 7);
+            int byteIndex = 1 + (bitIndex >>> 3);
+
+            bytes[byteIndex] |= (byte) value;
+
+            if ((value >>> 8) != 0) {
+                bytes[byteIndex + 1] |= (byte) (value >>> 8);
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Deserializes a sketch serialized by {@link #toByteArray()}.
+     *
+     * @param bytes the serialized sketch.
+     * @return the sketch.
+     */
+    public static HyperLogLog fromByteArray(byte[] bytes) {
+        HyperLogLog hyperLogLog = new HyperLogLog(bytes[0]);
+        byte[] registers = hyperLogLog.registers;
+
+        if (bytes.length !=
+                1 + (registers.length * BITS_PER_REGISTER + 7) / 8) {
+            throw new IllegalArgumentException(
+                    "Bad HyperLogLog sketch length: " + bytes.length);
+        }
+
+        for (int i = 0; i < registers.length; i++) {
+            int bitIndex = i * BITS_PER_REGISTER;
+            int byteIndex = 1 + (bitIndex >>> 3);
+            int value = bytes[byteIndex] & 0xff;
+
+            if (byteIndex + 1 < bytes.length) {
+                value |= (bytes[byteIndex + 1] & 0xff) << 8;
+            }
+
+            registers[i] = (byte) ((value >>> (bitIndex & 7)) & 0x3f);
+        }
+
+        return hyperLogLog;
+    }
+}
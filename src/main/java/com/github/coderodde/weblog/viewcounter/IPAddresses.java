@@ -0,0 +1,456 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.nio.charset.StandardCharsets;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * This class contains utility methods for dealing with the IP-addresses of the
+ * visitors. Parsing never resorts to a DNS lookup.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class IPAddresses {
+
+    /**
+     * The length of a packed IPv4 address.
+     */
+    public static final int IPV4_ADDRESS_LENGTH = 4;
+
+    /**
+     * The length of a packed IPv6 address.
+     */
+    public static final int IPV6_ADDRESS_LENGTH = 16;
+
+    /**
+     * The maximum length of a canonical IP-address: 8 groups of 4 hexadecimal
+     * digits and 7 colons.
+     */
+    public static final int MAXIMUM_ADDRESS_LENGTH = 8 * 4 + 7;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private IPAddresses() {}
+
+    /**
+     * Returns the IP-address of the visitor as reported by the load balancer,
+     * or the remote address of the connection if there is no load balancer.
+     *
+     * @param httpServletRequest the request object.
+     * @return the IP-address of the visitor.
+     */
+    public static String getIPAddress(HttpServletRequest httpServletRequest) {
+        String ipAddress = httpServletRequest.getHeader("X-FORWARDED-FOR");
+
+        if (ipAddress == null) {
+            ipAddress = httpServletRequest.getRemoteAddr();
+        }
+
+        return ipAddress;
+    }
+
+    /**
+     * Returns the IP-address of the client connecting to the outermost
+     * trusted proxy. Each trusted proxy appends the address connecting to it
+     * to the {@code X-FORWARDED-FOR} list, so the address appended by the
+     * outermost one is the {@code trustedProxyHops}-th from the end; the
+     * addresses before it are supplied by the client and may be forged. With
+     * no trusted proxies, the remote address of the connection is returned.
+     *
+     * @param httpServletRequest the request object.
+     * @param trustedProxyHops   the number of the trusted proxies in front of
+     *                           the application.
+     * @return the IP-address of the connecting client.
+     */
+    public static String getConnectingIPAddress(
+            HttpServletRequest httpServletRequest,
+            int trustedProxyHops) {
+        String forwardedFor = httpServletRequest.getHeader("X-FORWARDED-FOR");
+
+        if (trustedProxyHops <= 0 || forwardedFor == null) {
+            return httpServletRequest.getRemoteAddr();
+        }
+
+        int endIndex = forwardedFor.length();
+
+        for (int hop = 1; hop < trustedProxyHops; hop++) {
+            int commaIndex = forwardedFor.lastIndexOf(',', endIndex - 1);
+
+            if (commaIndex < 0) {
+                // All the hops are appended by the trusted proxies:
+                return forwardedFor.substring(0, endIndex).trim();
+            }
+
+            endIndex = commaIndex;
+        }
+
+        return forwardedFor.substring(
+                forwardedFor.lastIndexOf(',', endIndex - 1) + 1,
+                endIndex).trim();
+    }
+
+    /**
+     * Packs the textual IP-address into its binary representation: 4 bytes for
+     * IPv4 and 16 bytes for IPv6; an IPv4-mapped IPv6 address is packed as
+     * the IPv4 address. If {@code ipAddress} is a comma-separated
+     * {@code X-Forwarded-For} list, the first (client) address is packed.
+     *
+     * @param ipAddress the textual IP-address.
+     * @return the packed address or {@code null} if {@code ipAddress} is not a
+     *         valid IP-address.
+     */
+    public static byte[] pack(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
+
+        String address = getClientAddress(ipAddress);
+
+        if (address.startsWith("[") && address.endsWith("]")) {
+            address = address.substring(1, address.length() - 1);
+        }
+
+        int zoneIndex = address.indexOf('%');
+
+        if (zoneIndex >= 0) {
+            address = address.substring(0, zoneIndex);
+        }
+
+        if (address.indexOf(':') >= 0) {
+            return unmapIPv4(packIPv6(address));
+        }
+
+        byte[] packed = new byte[IPV4_ADDRESS_LENGTH];
+        return packIPv4(address, packed, 0) ? packed : null;
+    }
+
+    /**
+     * Returns the canonical form of the IP-address identifying the visitor:
+     * the first (client) address of a comma-separated {@code X-Forwarded-For}
+     * list, formatted as by {@link #format(byte[])}. Since every textual form
+     * of an address has the same canonical form, the visitor statistics, the
+     * packed IP-address and the sketches all key the visitor the same way. An
+     * invalid address is kept as is, truncated to fit the IP-address column.
+     *
+     * @param ipAddress the textual IP-address.
+     * @return the canonical IP-address or {@code null} if {@code ipAddress} is
+     *         {@code null}.
+     */
+    public static String canonicalize(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
+
+        byte[] packed = pack(ipAddress);
+
+        if (packed != null) {
+            return format(packed);
+        }
+
+        String address = getClientAddress(ipAddress);
+
+        return address.length() <= MAXIMUM_ADDRESS_LENGTH ?
+                address :
+                address.substring(0, MAXIMUM_ADDRESS_LENGTH);
+    }
+
+    /**
+     * Hashes the IP-address into 64 bits. The packed address is hashed so 
+     * that the textual forms of the same address hash equal; an invalid 
+     * address is hashed as is.
+     *
+     * @param ipAddress the textual IP-address.
+     * @return the hash of the address.
+     */
+    public static long hash(String ipAddress) {
+        byte[] packed = pack(ipAddress);
+
+        return hash(packed != null ?
+                    packed :
+                    ipAddress.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Formats the packed IP-address into its canonical textual form.
+     *
+     * @param packed the packed IP-address.
+     * @return the textual IP-address.
+     */
+    public static String format(byte[] packed) {
+        return format(packed, 0, packed.length);
+    }
+
+    /**
+     * Formats the packed IP-address stored in
+     * {@code packed[offset ... offset + length - 1]} into its canonical
+     * textual form.
+     *
+     * @param packed the array holding the packed IP-address.
+     * @param offset the index of the first byte of the address.
+     * @param length the length of the address, 4 or 16.
+     * @return the textual IP-address.
+     */
+    public static String format(byte[] packed, int offset, int length) {
+        StringBuilder stringBuilder = new StringBuilder(39);
+
+        if (length == IPV4_ADDRESS_LENGTH) {
+            for (int i = 0; i < IPV4_ADDRESS_LENGTH; i++) {
+                if (i > 0) {
+                    stringBuilder.append('.');
+                }
+
+                stringBuilder.append(packed[offset + i] & 0xff);
+            }
+
+            return stringBuilder.toString();
+        }
+
+        if (length != IPV6_ADDRESS_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Bad packed IP-address length: " + length);
+        }
+
+        // Find the longest run of zero groups to compress as "::":
+        int bestStart = -1;
+        int bestLength = 0;
+
+        for (int group = 0; group < 8;) {
+            if (getGroup(packed, offset, group) != 0) {
+                group++;
+                continue;
+            }
+
+            int runStart = group;
+
+            while (group < 8 && getGroup(packed, offset, group) == 0) {
+                group++;
+            }
+
+            if (group - runStart > bestLength && group - runStart > 1) {
+                bestStart = runStart;
+                bestLength = group - runStart;
+            }
+        }
+
+        for (int group = 0; group < 8; group++) {
+            if (group == bestStart) {
+                stringBuilder.append("::");
+                group += bestLength - 1;
+                continue;
+            }
+
+            if (stringBuilder.length() > 0 &&
+                    stringBuilder.charAt(stringBuilder.length() - 1) != ':') {
+                stringBuilder.append(':');
+            }
+
+            appendHex(stringBuilder, getGroup(packed, offset, group));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Hashes the bytes into 64 bits: FNV-1a followed by the MurmurHash3
+     * finalizer for a good avalanche.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns the first address of the comma-separated list.
+     */
+    private static String getClientAddress(String ipAddresses) {
+        int commaIndex = ipAddresses.indexOf(',');
+
+        return (commaIndex < 0 ?
+                ipAddresses :
+                ipAddresses.substring(0, commaIndex)).trim();
+    }
+
+    private static boolean packIPv4(String address, byte[] packed, int offset) {
+        int octetIndex = 0;
+        int value = 0;
+        int digits = 0;
+
+        for (int i = 0; i <= address.length(); i++) {
+            char character = i < address.length() ? address.charAt(i) : '.';
+
+            if (character == '.') {
+                if (digits == 0 || octetIndex == IPV4_ADDRESS_LENGTH) {
+                    return false;
+                }
+
+                packed[offset + octetIndex++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (character >= '0' && character <= '9') {
+                value = 10 * value + (character - '0');
+
+                if (++digits > 3 || value > 255) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+
+        return octetIndex == IPV4_ADDRESS_LENGTH;
+    }
+
+    private static byte[] packIPv6(String address) {
+        byte[] packed = new byte[IPV6_ADDRESS_LENGTH];
+        int compressionIndex = address.indexOf("::");
+
+        if (compressionIndex >= 0 &&
+                address.indexOf("::", compressionIndex + 1) >= 0) {
+            return null;
+        }
+
+        String head = compressionIndex < 0 ?
+                address :
+                address.substring(0, compressionIndex);
+
+        String tail = compressionIndex < 0 ?
+                "" :
+                address.substring(compressionIndex + 2);
+
+        int headBytes = packGroups(head, packed, 0);
+
+        if (headBytes < 0) {
+            return null;
+        }
+
+        if (compressionIndex < 0) {
+            return headBytes == IPV6_ADDRESS_LENGTH ? packed : null;
+        }
+
+        byte[] tailPacked = new byte[IPV6_ADDRESS_LENGTH];
+        int tailBytes = packGroups(tail, tailPacked, 0);
+
+        if (tailBytes < 0 || headBytes + tailBytes > IPV6_ADDRESS_LENGTH - 2) {
+            return null;
+        }
+
+        System.arraycopy(tailPacked,
+                         0,
+                         packed,
+                         IPV6_ADDRESS_LENGTH - tailBytes,
+                         tailBytes);
+        return packed;
+    }
+
+    /**
+     * Returns the IPv4 address of an IPv4-mapped IPv6 address
+     * ({@code ::ffff:a.b.c.d}), so that a visitor connecting over both
+     * protocols is packed the same way, or {@code packed} as is otherwise.
+     */
+    private static byte[] unmapIPv4(byte[] packed) {
+        if (packed == null) {
+            return null;
+        }
+
+        for (int i = 0; i < 10; i++) {
+            if (packed[i] != 0) {
+                return packed;
+            }
+        }
+
+        if (packed[10] != (byte) 0xff || packed[11] != (byte) 0xff) {
+            return packed;
+        }
+
+        byte[] ipv4Packed = new byte[IPV4_ADDRESS_LENGTH];
+        System.arraycopy(packed,
+                         IPV6_ADDRESS_LENGTH - IPV4_ADDRESS_LENGTH,
+                         ipv4Packed,
+                         0,
+                         IPV4_ADDRESS_LENGTH);
+        return ipv4Packed;
+    }
+
+    /**
+     * Packs the colon-separated hexadecimal groups (possibly ending in a
+     * dotted IPv4 address) into {@code packed} starting at {@code offset}.
+     * Returns the number of bytes written or -1 if the groups are malformed.
+     */
+    private static int packGroups(String groups, byte[] packed, int offset) {
+        if (groups.isEmpty()) {
+            return 0;
+        }
+
+        int position = offset;
+        String[] parts = groups.split(":", -1);
+
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+
+            if (i == parts.length - 1 && part.indexOf('.') >= 0) {
+                if (position + IPV4_ADDRESS_LENGTH > IPV6_ADDRESS_LENGTH ||
+                        !packIPv4(part, packed, position)) {
+                    return -1;
+                }
+
+                position += IPV4_ADDRESS_LENGTH;
+                continue;
+            }
+
+            if (part.isEmpty() ||
+                    part.length() > 4 ||
+                    position + 2 > IPV6_ADDRESS_LENGTH) {
+                return -1;
+            }
+
+            int value = 0;
+
+            for (int j = 0; j < part.length(); j++) {
+                int digit = Character.digit(part.charAt(j), 16);
+
+                if (digit < 0) {
+                    return -1;
+                }
+
+                value = (value << 4) | digit;
+            }
+
+            packed[position++] = (byte) (value >>> 8);
+            packed[position++] = (byte) value;
+        }
+
+        return position - offset;
+    }
+
+    private static int getGroup(byte[] packed, int offset, int group) {
+        return ((packed[offset + 2 * group] & 0xff) << 8) |
+                (packed[offset + 2 * group + 1] & 0xff);
+    }
+
+    private static void appendHex(StringBuilder stringBuilder, int value) {
+        boolean leading = true;
+
+        for (int shift = 12; shift >= 0; shift -= 4) {
+            int digit = (value >>> shift) & 0xf;
+
+            if (digit == 0 && leading && shift > 0) {
+                continue;
+            }
+
+            leading = false;
+            stringBuilder.append(HEX_DIGITS[digit]);
+        }
+    }
+}
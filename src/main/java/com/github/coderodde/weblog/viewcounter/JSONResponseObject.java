@@ -10,8 +10,13 @@ package com.github.coderodde.weblog.viewcounter;
 public class JSONResponseObject {
 
     public boolean succeeded;
-    public Integer numberOfTotalViews;
-    public Integer numberOfVisitorsViews;
+    public Long numberOfTotalViews;
+    public Long numberOfVisitorsViews;
     public String mostRecentViewTime;
     public String visitorsMostRecentViewTime;
+    public Long uniqueVisitors;
+    public Long numberOfPageViews;
+    public Long numberOfVisitorsPageViews;
+    public String mostRecentPageViewTime;
+    public String visitorsMostRecentPageViewTime;
 }
@@ -0,0 +1,499 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import javax.servlet.ServletResponse;
+
+/**
+ * This class encodes the responses of {@code /countView} and
+ * {@code /countPageViews} into a reusable byte buffer. The output is the same
+ * as the one of Gson serializing a {@link JSONResponseObject} or a
+ * {@link PageViewsResponseObject}: the same fields in the same order, the
+ * {@code null} fields omitted, the strings escaped as by Gson and the time
+ * stamps formatted by {@link ZonedDateTime#toString()}. Since the date, hour
+ * and minute, and the zone of a time stamp change only when its second
+ * changes, they are cached per field and the rest is written digit by digit,
+ * so that encoding a response does not allocate after the buffer has grown
+ * large enough.
+ *
+ * <p>An instance is not thread-safe; the servlets borrow one per response
+ * from a {@link JSONResponseWriterPool}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class JSONResponseWriter {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+    private static final String CONTENT_TYPE = "application/json";
+
+    private static final byte[] SUCCEEDED = bytes("{\"succeeded\":");
+    private static final byte[] TRUE = bytes("true");
+    private static final byte[] FALSE = bytes("false");
+    private static final byte[] NUMBER_OF_TOTAL_VIEWS =
+            bytes(",\"numberOfTotalViews\":");
+    private static final byte[] NUMBER_OF_VISITORS_VIEWS =
+            bytes(",\"numberOfVisitorsViews\":");
+    private static final byte[] MOST_RECENT_VIEW_TIME =
+            bytes(",\"mostRecentViewTime\":\"");
+    private static final byte[] VISITORS_MOST_RECENT_VIEW_TIME =
+            bytes(",\"visitorsMostRecentViewTime\":\"");
+    private static final byte[] UNIQUE_VISITORS =
+            bytes(",\"uniqueVisitors\":");
+    private static final byte[] NUMBER_OF_PAGE_VIEWS =
+            bytes(",\"numberOfPageViews\":");
+    private static final byte[] NUMBER_OF_VISITORS_PAGE_VIEWS =
+            bytes(",\"numberOfVisitorsPageViews\":");
+    private static final byte[] MOST_RECENT_PAGE_VIEW_TIME =
+            bytes(",\"mostRecentPageViewTime\":\"");
+    private static final byte[] VISITORS_MOST_RECENT_PAGE_VIEW_TIME =
+            bytes(",\"visitorsMostRecentPageViewTime\":\"");
+    private static final byte[] PAGES = bytes(",\"pages\":[");
+    private static final byte[] PAGE = bytes("{\"page\":\"");
+    private static final byte[] NUMBER_OF_VIEWS =
+            bytes("\",\"numberOfViews\":");
+    private static final byte[] MOST_RECENT_VIEW_TIME_OF_PAGE =
+            bytes(",\"mostRecentViewTime\":\"");
+    private static final byte[] VISITORS_MOST_RECENT_VIEW_TIME_OF_PAGE =
+            bytes(",\"visitorsMostRecentViewTime\":\"");
+    private static final byte[] HEX_DIGITS = bytes("0123456789abcdef");
+
+    private final TimeStampCache mostRecentViewTimeCache =
+            new TimeStampCache();
+    private final TimeStampCache visitorsMostRecentViewTimeCache =
+            new TimeStampCache();
+    private final TimeStampCache mostRecentPageViewTimeCache =
+            new TimeStampCache();
+    private final TimeStampCache visitorsMostRecentPageViewTimeCache =
+            new TimeStampCache();
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_CAPACITY];
+    private int length;
+
+    /**
+     * Encodes the response into the buffer.
+     *
+     * @param viewStatistics the statistics to report, or {@code null} if
+     *                       counting the view failed.
+     * @return the length of the encoded response in bytes.
+     */
+    public int encode(ViewStatistics viewStatistics) {
+        length = 0;
+        append(SUCCEEDED);
+
+        if (viewStatistics == null) {
+            append(FALSE);
+            append((byte) '}');
+            return length;
+        }
+
+        append(TRUE);
+        append(NUMBER_OF_TOTAL_VIEWS);
+        appendLong(viewStatistics.numberOfTotalViews);
+        append(NUMBER_OF_VISITORS_VIEWS);
+        appendLong(viewStatistics.numberOfVisitorsViews);
+
+        if (viewStatistics.mostRecentViewTime != null) {
+            append(MOST_RECENT_VIEW_TIME);
+            appendTimeStamp(viewStatistics.mostRecentViewTime,
+                            mostRecentViewTimeCache);
+            append((byte) '"');
+        }
+
+        if (viewStatistics.visitorsMostRecentViewTime != null) {
+            append(VISITORS_MOST_RECENT_VIEW_TIME);
+            appendTimeStamp(viewStatistics.visitorsMostRecentViewTime,
+                            visitorsMostRecentViewTimeCache);
+            append((byte) '"');
+        }
+
+        if (viewStatistics.numberOfUniqueVisitors != null) {
+            append(UNIQUE_VISITORS);
+            appendLong(viewStatistics.numberOfUniqueVisitors);
+        }
+
+        if (viewStatistics.pageViewStatistics != null) {
+            appendPageViewStatistics(viewStatistics.pageViewStatistics);
+        }
+
+        append((byte) '}');
+        return length;
+    }
+
+    /**
+     * Returns the buffer holding the last encoded response in its first
+     * {@link #encode(ViewStatistics)} or {@link #encodePageViews(List)}
+     * bytes.
+     *
+     * @return the buffer.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Encodes the response and writes it as the body of
+     * {@code servletResponse}.
+     *
+     * @param viewStatistics  the statistics to report, or {@code null} if
+     *                        counting the view failed.
+     * @param servletResponse the response to write to.
+     * @throws java.io.IOException if writing fails.
+     */
+    public void write(ViewStatistics viewStatistics,
+                      ServletResponse servletResponse) throws IOException {
+        encode(viewStatistics);
+        writeBuffer(servletResponse);
+    }
+
+    /**
+     * Encodes the response to counting the views of several pages into the
+     * buffer.
+     *
+     * @param pageViewStatisticsList the statistics of the pages, or
+     *                               {@code null} if counting the views
+     *                               failed.
+     * @return the length of the encoded response in bytes.
+     */
+    public int encodePageViews(
+            List<PageViewStatistics> pageViewStatisticsList) {
+        length = 0;
+        append(SUCCEEDED);
+
+        if (pageViewStatisticsList == null) {
+            append(FALSE);
+            append((byte) '}');
+            return length;
+        }
+
+        append(TRUE);
+        append(PAGES);
+
+        for (int i = 0; i < pageViewStatisticsList.size(); i++) {
+            if (i > 0) {
+                append((byte) ',');
+            }
+
+            appendPage(pageViewStatisticsList.get(i));
+        }
+
+        append((byte) ']');
+        append((byte) '}');
+        return length;
+    }
+
+    /**
+     * Encodes the response to counting the views of several pages and writes
+     * it as the body of {@code servletResponse}.
+     *
+     * @param pageViewStatisticsList the statistics of the pages, or
+     *                               {@code null} if counting the views
+     *                               failed.
+     * @param servletResponse        the response to write to.
+     * @throws java.io.IOException if writing fails.
+     */
+    public void writePageViews(List<PageViewStatistics> pageViewStatisticsList,
+                               ServletResponse servletResponse)
+            throws IOException {
+        encodePageViews(pageViewStatisticsList);
+        writeBuffer(servletResponse);
+    }
+
+    private void writeBuffer(ServletResponse servletResponse)
+            throws IOException {
+        servletResponse.setContentType(CONTENT_TYPE);
+        servletResponse.setContentLength(length);
+
+        try (OutputStream outputStream = servletResponse.getOutputStream()) {
+            outputStream.write(buffer, 0, length);
+        }
+    }
+
+    private void appendPage(PageViewStatistics pageViewStatistics) {
+        append(PAGE);
+        appendString(pageViewStatistics.page);
+        append(NUMBER_OF_VIEWS);
+        appendLong(pageViewStatistics.numberOfPageViews);
+        append(NUMBER_OF_VISITORS_VIEWS);
+        appendLong(pageViewStatistics.numberOfVisitorsPageViews);
+
+        if (pageViewStatistics.mostRecentPageViewTime != null) {
+            append(MOST_RECENT_VIEW_TIME_OF_PAGE);
+            appendTimeStamp(pageViewStatistics.mostRecentPageViewTime,
+                            mostRecentPageViewTimeCache);
+            append((byte) '"');
+        }
+
+        if (pageViewStatistics.visitorsMostRecentPageViewTime != null) {
+            append(VISITORS_MOST_RECENT_VIEW_TIME_OF_PAGE);
+            appendTimeStamp(pageViewStatistics.visitorsMostRecentPageViewTime,
+                            visitorsMostRecentPageViewTimeCache);
+            append((byte) '"');
+        }
+
+        append((byte) '}');
+    }
+
+    private void appendPageViewStatistics(
+            PageViewStatistics pageViewStatistics) {
+        append(NUMBER_OF_PAGE_VIEWS);
+        appendLong(pageViewStatistics.numberOfPageViews);
+        append(NUMBER_OF_VISITORS_PAGE_VIEWS);
+        appendLong(pageViewStatistics.numberOfVisitorsPageViews);
+
+        if (pageViewStatistics.mostRecentPageViewTime != null) {
+            append(MOST_RECENT_PAGE_VIEW_TIME);
+            appendTimeStamp(pageViewStatistics.mostRecentPageViewTime,
+                            mostRecentPageViewTimeCache);
+            append((byte) '"');
+        }
+
+        if (pageViewStatistics.visitorsMostRecentPageViewTime != null) {
+            append(VISITORS_MOST_RECENT_PAGE_VIEW_TIME);
+            appendTimeStamp(pageViewStatistics.visitorsMostRecentPageViewTime,
+                            visitorsMostRecentPageViewTimeCache);
+            append((byte) '"');
+        }
+    }
+
+    private void appendTimeStamp(ZonedDateTime zonedDateTime,
+                                 TimeStampCache timeStampCache) {
+        timeStampCache.update(zonedDateTime);
+        append(timeStampCache.dateHourMinute);
+
+        int second = zonedDateTime.getSecond();
+        int nano = zonedDateTime.getNano();
+
+        // As LocalTime.toString(), omit the zero seconds and fractions, and
+        // write the fraction in millis, micros or nanos as needed:
+        if (second > 0 || nano > 0) {
+            append((byte) ':');
+            appendDigits(second, 2);
+
+            if (nano > 0) {
+                append((byte) '.');
+
+                if (nano % 1_000_000 == 0) {
+                    appendDigits(nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    appendDigits(nano / 1_000, 6);
+                } else {
+                    appendDigits(nano, 9);
+                }
+            }
+        }
+
+        append(timeStampCache.zone);
+    }
+
+    private void appendLong(long value) {
+        if (value < 0L) {
+            append((byte) '-');
+        } else {
+            // Work on the negative value so that Long.MIN_VALUE fits:
+            value = -value;
+        }
+
+        int numberOfDigits = 1;
+
+        for (long v = value / 10L; v != 0L; v /= 10L) {
+            numberOfDigits++;
+        }
+
+        ensureCapacity(numberOfDigits);
+
+        for (int i = length + numberOfDigits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' - (value % 10L));
+            value /= 10L;
+        }
+
+        length += numberOfDigits;
+    }
+
+    /**
+     * Appends the string escaped as by Gson: the quotes, the backslashes and
+     * the control characters escaped, and so are the characters unsafe in
+     * HTML and the line and paragraph separators. The rest is written in
+     * UTF-8.
+     */
+    private void appendString(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            switch (c) {
+                case '"':
+                case '\\':
+                    append((byte) '\\');
+                    append((byte) c);
+                    break;
+
+                case '\t':
+                    appendEscape('t');
+                    break;
+
+                case '\b':
+                    appendEscape('b');
+                    break;
+
+                case '\n':
+                    appendEscape('n');
+                    break;
+
+                case '\r':
+                    appendEscape('r');
+                    break;
+
+                case '\f':
+                    appendEscape('f');
+                    break;
+
+                case '<':
+                case '>':
+                case '&':
+                case '=':
+                case '\'':
+                case '\u2028':
+                case '\u2029':
+                    appendUnicodeEscape(c);
+                    break;
+
+                default:
+                    if (c < 0x20) {
+                        appendUnicodeEscape(c);
+                    } else if (c < 0x80) {
+                        append((byte) c);
+                    } else {
+                        i = appendUTF8(string, i);
+                    }
+            }
+        }
+    }
+
+    private void appendEscape(char c) {
+        append((byte) '\\');
+        append((byte) c);
+    }
+
+    private void appendUnicodeEscape(char c) {
+        appendEscape('u');
+        ensureCapacity(4);
+
+        for (int shift = 12; shift >= 0; shift -= 4) {
+            buffer[length++] = HEX_DIGITS[(c >>> shift) & 0xf];
+        }
+    }
+
+    /**
+     * Appends the code point at {@code index} in UTF-8, a lone surrogate as
+     * {@code '?'} like {@link String#getBytes(java.nio.charset.Charset)}.
+     * Returns the index of the last char of the code point.
+     */
+    private int appendUTF8(String string, int index) {
+        int codePoint = string.codePointAt(index);
+
+        if (codePoint < 0x800) {
+            ensureCapacity(2);
+            buffer[length++] = (byte) (0xc0 | (codePoint >>> 6));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else if (codePoint < 0x10000 && 
+                Character.isSurrogate((char) codePoint)) {
+            append((byte) '?');
+        } else if (codePoint < 0x10000) {
+            ensureCapacity(3);
+            buffer[length++] = (byte) (0xe0 | (codePoint >>> 12));
+            buffer[length++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3f));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else {
+            ensureCapacity(4);
+            buffer[length++] = (byte) (0xf0 | (codePoint >>> 18));
+            buffer[length++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3f));
+            buffer[length++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3f));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            return index + 1;
+        }
+
+        return index;
+    }
+
+    private void appendDigits(int value, int numberOfDigits) {
+        ensureCapacity(numberOfDigits);
+
+        for (int i = length + numberOfDigits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        length += numberOfDigits;
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+    }
+
+    private void ensureCapacity(int numberOfBytes) {
+        if (length + numberOfBytes > buffer.length) {
+            buffer = Arrays.copyOf(
+                    buffer,
+                    Math.max(2 * buffer.length, length + numberOfBytes));
+        }
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This class caches the parts of the time stamps of one second that do not
+     * change within it.
+     */
+    private static final class TimeStampCache {
+
+        private long epochSecond = Long.MIN_VALUE;
+        private ZoneId zoneId;
+
+        /**
+         * The {@code yyyy-MM-ddTHH:mm} part of the time stamp.
+         */
+        private byte[] dateHourMinute;
+
+        /**
+         * The offset and, if not the same, the zone ID of the time stamp.
+         */
+        private byte[] zone;
+
+        void update(ZonedDateTime zonedDateTime) {
+            long epochSecond = zonedDateTime.toEpochSecond();
+
+            if (epochSecond == this.epochSecond
+                    && zonedDateTime.getZone().equals(zoneId)) {
+                return;
+            }
+
+            LocalDateTime localDateTime = zonedDateTime.toLocalDateTime();
+
+            dateHourMinute = bytes(localDateTime.withSecond(0)
+                                                .withNano(0)
+                                                .toString());
+            zone = bytes(zonedDateTime.toString()
+                                      .substring(localDateTime.toString()
+                                                              .length()));
+
+            this.epochSecond = epochSecond;
+            this.zoneId = zonedDateTime.getZone();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class keeps a bounded number of idle {@link JSONResponseWriter}s for
+ * the servlets to borrow. Unlike a writer per thread, the number of writers
+ * does not grow with the number of threads, which is unbounded when a
+ * virtual thread is started per request. A writer is created when none is
+ * idle and dropped when returned to a full pool.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class JSONResponseWriterPool {
+
+    private static final String JSON_WRITER_POOL_SIZE = 
+            "WEBLOG_JSON_WRITER_POOL_SIZE";
+
+    private static final BlockingQueue<JSONResponseWriter> IDLE_WRITERS = 
+            new ArrayBlockingQueue<>(
+                    Math.max(1, 
+                             Configuration.getInt(JSON_WRITER_POOL_SIZE, 
+                                                  64)));
+
+    private JSONResponseWriterPool() {}
+
+    /**
+     * Borrows an idle writer, or creates one if none is idle.
+     *
+     * @return the writer.
+     */
+    static JSONResponseWriter acquire() {
+        JSONResponseWriter jsonResponseWriter = IDLE_WRITERS.poll();
+        return jsonResponseWriter != null ? 
+                jsonResponseWriter : 
+                new JSONResponseWriter();
+    }
+
+    /**
+     * Returns a writer borrowed by {@link #acquire()}. The caller must not use
+     * it afterwards.
+     *
+     * @param jsonResponseWriter the writer.
+     */
+    static void release(JSONResponseWriter jsonResponseWriter) {
+        IDLE_WRITERS.offer(jsonResponseWriter);
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements the journaled view ingestion: the views are appended
+ * to a durable {@link ViewJournal} on the request path, and a background
+ * thread ships them to the view store in batches of {@code batchSize} every
+ * {@code shipIntervalMillis} milliseconds and forces the journal to the disk
+ * every {@code forceIntervalMillis} milliseconds. The views not shipped before
+ * a shutdown or a crash are shipped after the restart.
+ *
+ * <p>A view is shipped at least once: a crash between storing a batch and
+ * saving the checkpoint ships the batch again. Each batch shipped is passed
+ * to the write listener.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class JournalViewWriter implements DeferredViewWriter {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(JournalViewWriter.class.getName());
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000L;
+
+    private final ViewJournal viewJournal;
+    private final ViewStore viewStore;
+    private final Consumer<List<ViewRecord>> writeListener;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    JournalViewWriter(ViewStore viewStore,
+                      Consumer<List<ViewRecord>> writeListener,
+                      Path directory,
+                      int segmentBytes,
+                      int batchSize,
+                      long shipIntervalMillis,
+                      long forceIntervalMillis) throws IOException {
+        this.viewJournal = ViewJournal.open(directory, segmentBytes);
+        this.viewStore = viewStore;
+        this.writeListener = writeListener;
+        this.batchSize = Math.max(1, batchSize);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view-journal-shipper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::ship,
+                                        shipIntervalMillis,
+                                        shipIntervalMillis,
+                                        TimeUnit.MILLISECONDS);
+
+        executor.scheduleWithFixedDelay(viewJournal::force,
+                                        forceIntervalMillis,
+                                        forceIntervalMillis,
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends the view to the journal.
+     *
+     * @param viewRecord the view to write.
+     * @return {@code true} if the view was journaled, {@code false} if the
+     *         journal failed.
+     */
+    @Override
+    public boolean offer(ViewRecord viewRecord) {
+        try {
+            return viewJournal.append(viewRecord);
+        } catch (IOException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Appending to the view journal failed: {0}",
+                    ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of the journal segments not yet shipped completely.
+     *
+     * @return the number of the segments.
+     */
+    int getNumberOfSegments() {
+        return viewJournal.getNumberOfSegments();
+    }
+
+    /**
+     * Stops the background shipping, ships the journaled views if the view
+     * store is available and closes the journal.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS,
+                                      TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        ship();
+
+        try {
+            viewJournal.close();
+        } catch (IOException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Closing the view journal failed: {0}",
+                    ex.getMessage());
+        }
+    }
+
+    private synchronized void ship() {
+        if (!ViewCounterBootstrap.isSchemaReady()) {
+            // Keep the views journaled until the view store is up:
+            return;
+        }
+
+        try {
+            while (true) {
+                List<ViewRecord> batch = viewJournal.read(batchSize);
+
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                viewStore.addViews(batch);
+                viewJournal.advance(batch.size());
+                writeListener.accept(batch);
+
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (SQLException ex) {
+            // Retry next time:
+            LOGGER.log(
+                    Level.WARNING,
+                    "Shipping the view journal failed: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Bad DB URI: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (IOException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Reading the view journal failed: {0}",
+                    ex.getMessage());
+
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Shipping the view journal failed.", ex);
+        }
+    }
+}
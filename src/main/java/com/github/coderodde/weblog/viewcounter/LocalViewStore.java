@@ -0,0 +1,608 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import com.github.coderodde.weblog.viewcounter.metrics.Timer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements an embedded view store needing no database server.
+ * The views are appended to a memory-mapped {@link ViewLog} in the directory
+ * {@code WEBLOG_LOCAL_STORE_DIRECTORY}, in segments of at most
+ * {@code WEBLOG_LOCAL_STORE_SEGMENT_SIZE} bytes, and all the counters, those
+ * of the pages included, the rollups and the daily visitor sketches are kept
+ * in memory, rebuilt from the log on startup. The log is forced to the disk
+ * every {@code WEBLOG_LOCAL_STORE_FORCE_INTERVAL_MILLIS} milliseconds and on
+ * shutdown.
+ *
+ * <p>All the operations are serialized on the store. The views are never
+ * archived, since the hot data is in memory anyway.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class LocalViewStore implements ViewStore {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(LocalViewStore.class.getName());
+
+    private static final String DIRECTORY = "WEBLOG_LOCAL_STORE_DIRECTORY";
+    private static final String INITIAL_SIZE =
+            "WEBLOG_LOCAL_STORE_INITIAL_SIZE";
+    private static final String SEGMENT_SIZE =
+            "WEBLOG_LOCAL_STORE_SEGMENT_SIZE";
+    private static final String FORCE_INTERVAL_MILLIS =
+            "WEBLOG_LOCAL_STORE_FORCE_INTERVAL_MILLIS";
+
+    private static final Timer OPEN_TIMER = localStoreTimer("open");
+    private static final Timer ADD_VIEW_TIMER = localStoreTimer("addView");
+    private static final Timer ADD_VIEWS_TIMER = localStoreTimer("addViews");
+    private static final Timer RECORD_PAGE_VIEWS_AND_FETCH_STATS_TIMER =
+            localStoreTimer("recordPageViewsAndFetchStats");
+    private static final Timer FORCE_TIMER = localStoreTimer("force");
+
+    private final Path directory;
+    private final int initialSize;
+    private final int segmentSize;
+    private final long forceIntervalMillis;
+
+    private ViewLog viewLog;
+    private ScheduledExecutorService executor;
+
+    private long numberOfViews;
+    private long mostRecentViewTimeMillis = Long.MIN_VALUE;
+
+    // In the ascending order of the most recent view:
+    private final Map<String, Visitor> visitors = new LinkedHashMap<>();
+    private final Map<String, Page> pages = new HashMap<>();
+    private final Map<RollupGranularity, TreeMap<Long, Bucket>> rollups =
+            new EnumMap<>(RollupGranularity.class);
+    private final Map<RollupGranularity, TreeMap<Long, HyperLogLog>>
+            sketches = new EnumMap<>(RollupGranularity.class);
+
+    LocalViewStore() {
+        directory = Paths.get(Configuration.getString(DIRECTORY,
+                                                      "weblog-data"));
+        initialSize = Configuration.getInt(INITIAL_SIZE, 16 * 1024 * 1024);
+        segmentSize = Configuration.getInt(SEGMENT_SIZE, 256 * 1024 * 1024);
+        forceIntervalMillis = Configuration.getLong(FORCE_INTERVAL_MILLIS,
+                                                    1_000L);
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            rollups.put(granularity, new TreeMap<>());
+            sketches.put(granularity, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Opens the view log, creating it if needed, and rebuilds the counters
+     * from it.
+     *
+     * @return the version of the log format.
+     *
+     * @throws java.sql.SQLException if the log cannot be opened.
+     */
+    @Override
+    public synchronized int migrateSchema() throws SQLException {
+        if (viewLog != null) {
+            return ViewLog.VERSION;
+        }
+
+        long startNanos = System.nanoTime();
+
+        try {
+            Files.createDirectories(directory);
+            viewLog = ViewLog.open(directory,
+                                   initialSize,
+                                   segmentSize,
+                                   this::index);
+        } catch (IOException ex) {
+            OPEN_TIMER.recordError();
+            clear();
+            throw new SQLException("Could not open the view log.", ex);
+        } finally {
+            OPEN_TIMER.recordSince(startNanos);
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view-log-forcer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::force,
+                                        forceIntervalMillis,
+                                        forceIntervalMillis,
+                                        TimeUnit.MILLISECONDS);
+
+        LOGGER.log(
+                Level.INFO,
+                "Loaded {0} views from the view log in {1}.",
+                objects(numberOfViews, directory));
+
+        return ViewLog.VERSION;
+    }
+
+    @Override
+    public synchronized void addView(ViewRecord viewRecord)
+            throws SQLException {
+        long startNanos = System.nanoTime();
+
+        try {
+            append(viewRecord);
+        } catch (SQLException | RuntimeException ex) {
+            ADD_VIEW_TIMER.recordError();
+            throw ex;
+        } finally {
+            ADD_VIEW_TIMER.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public synchronized void addViews(List<ViewRecord> viewRecords)
+            throws SQLException {
+        long startNanos = System.nanoTime();
+
+        try {
+            for (ViewRecord viewRecord : viewRecords) {
+                append(viewRecord);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            ADD_VIEWS_TIMER.recordError();
+            throw ex;
+        } finally {
+            ADD_VIEWS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public synchronized ViewStatistics recordViewAndFetchStats(
+            ViewRecord viewRecord) throws SQLException {
+        ViewStatistics viewStatistics =
+                getViewStatistics(viewRecord.getIPAddress());
+
+        if (viewRecord.getPage() != null) {
+            viewStatistics.pageViewStatistics =
+                    fetchPageViewStatistics(viewRecord.getIPAddress(),
+                                            viewRecord.getPage());
+        }
+
+        addView(viewRecord);
+
+        // Count in the view just recorded:
+        viewStatistics.numberOfTotalViews++;
+        viewStatistics.numberOfVisitorsViews++;
+
+        if (viewStatistics.pageViewStatistics != null) {
+            viewStatistics.pageViewStatistics.numberOfPageViews++;
+            viewStatistics.pageViewStatistics.numberOfVisitorsPageViews++;
+        }
+
+        return viewStatistics;
+    }
+
+    @Override
+    public synchronized List<PageViewStatistics> recordPageViewsAndFetchStats(
+            List<ViewRecord> viewRecords) throws SQLException {
+        long startNanos = System.nanoTime();
+
+        try {
+            checkOpen();
+
+            List<PageViewStatistics> pageViewStatisticsList =
+                    new ArrayList<>(viewRecords.size());
+
+            for (ViewRecord viewRecord : viewRecords) {
+                pageViewStatisticsList.add(
+                        fetchPageViewStatistics(viewRecord.getIPAddress(),
+                                                viewRecord.getPage()));
+            }
+
+            for (ViewRecord viewRecord : viewRecords) {
+                append(viewRecord);
+            }
+
+            // Count in the views just recorded:
+            for (PageViewStatistics pageViewStatistics :
+                    pageViewStatisticsList) {
+                pageViewStatistics.numberOfPageViews++;
+                pageViewStatistics.numberOfVisitorsPageViews++;
+            }
+
+            return pageViewStatisticsList;
+        } catch (SQLException | RuntimeException ex) {
+            RECORD_PAGE_VIEWS_AND_FETCH_STATS_TIMER.recordError();
+            throw ex;
+        } finally {
+            RECORD_PAGE_VIEWS_AND_FETCH_STATS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public synchronized ViewStatistics getViewStatistics(String ipAddress)
+            throws SQLException {
+        ViewStatistics viewStatistics = getVisitorStatistics(ipAddress);
+        viewStatistics.numberOfTotalViews = numberOfViews;
+        viewStatistics.mostRecentViewTime =
+                toZonedDateTime(mostRecentViewTimeMillis);
+        return viewStatistics;
+    }
+
+    @Override
+    public synchronized PageViewStatistics getPageViewStatistics(
+            String ipAddress,
+            String page) throws SQLException {
+        checkOpen();
+        return fetchPageViewStatistics(ipAddress, page);
+    }
+
+    @Override
+    public synchronized ViewStatistics getViewTotals() throws SQLException {
+        return getViewStatistics(null);
+    }
+
+    @Override
+    public synchronized ViewStatistics getVisitorStatistics(String ipAddress)
+            throws SQLException {
+        checkOpen();
+
+        ViewStatistics viewStatistics = new ViewStatistics();
+        Visitor visitor = ipAddress == null ? null : visitors.get(ipAddress);
+
+        if (visitor != null) {
+            viewStatistics.numberOfVisitorsViews = visitor.numberOfViews;
+            viewStatistics.visitorsMostRecentViewTime =
+                    toZonedDateTime(visitor.mostRecentViewTimeMillis);
+        }
+
+        return viewStatistics;
+    }
+
+    @Override
+    public synchronized Map<String, ViewStatistics> getMostRecentVisitors(
+            int limit) throws SQLException {
+        checkOpen();
+
+        Deque<Map.Entry<String, Visitor>> mostRecentVisitors =
+                new ArrayDeque<>();
+
+        for (Map.Entry<String, Visitor> entry : visitors.entrySet()) {
+            if (mostRecentVisitors.size() == limit) {
+                mostRecentVisitors.removeFirst();
+            }
+
+            if (limit > 0) {
+                mostRecentVisitors.addLast(entry);
+            }
+        }
+
+        Map<String, ViewStatistics> map = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Visitor> entry : mostRecentVisitors) {
+            ViewStatistics viewStatistics = new ViewStatistics();
+            viewStatistics.numberOfVisitorsViews =
+                    entry.getValue().numberOfViews;
+            viewStatistics.visitorsMostRecentViewTime =
+                    toZonedDateTime(entry.getValue().mostRecentViewTimeMillis);
+            map.put(entry.getKey(), viewStatistics);
+        }
+
+        return map;
+    }
+
+    @Override
+    public synchronized List<ViewRollup> getViewRollups(
+            RollupGranularity granularity,
+            ZonedDateTime from,
+            ZonedDateTime to,
+            int limit) throws SQLException {
+        checkOpen();
+
+        List<ViewRollup> viewRollups = new ArrayList<>();
+
+        for (Map.Entry<Long, Bucket> entry :
+                rollups.get(granularity)
+                       .subMap(from.toInstant().toEpochMilli(),
+                               to.toInstant().toEpochMilli())
+                       .entrySet()) {
+            if (viewRollups.size() == limit) {
+                break;
+            }
+
+            ViewRollup viewRollup = new ViewRollup();
+            viewRollup.bucketStart = toZonedDateTime(entry.getKey());
+            viewRollup.numberOfViews = entry.getValue().numberOfViews;
+            viewRollup.numberOfVisitors = entry.getValue().visitors.size();
+            viewRollups.add(viewRollup);
+        }
+
+        return viewRollups;
+    }
+
+    @Override
+    public synchronized HyperLogLog getVisitorSketch(
+            RollupGranularity granularity,
+            ZonedDateTime from,
+            ZonedDateTime to) throws SQLException {
+        checkOpen();
+
+        HyperLogLog hyperLogLog = new HyperLogLog();
+
+        for (HyperLogLog sketch :
+                sketches.get(granularity)
+                        .subMap(from.toInstant().toEpochMilli(),
+                                to.toInstant().toEpochMilli())
+                        .values()) {
+            hyperLogLog.merge(sketch);
+        }
+
+        return hyperLogLog;
+    }
+
+    /**
+     * Merges the visitor sketch into the sketch of the bucket. The merged
+     * sketches are not persisted: the daily sketches are rebuilt from the log
+     * on startup.
+     */
+    @Override
+    public synchronized void mergeVisitorSketch(
+            RollupGranularity granularity,
+            long bucketStartMillis,
+            HyperLogLog hyperLogLog) throws SQLException {
+        checkOpen();
+
+        sketches.get(granularity)
+                .computeIfAbsent(bucketStartMillis,
+                                 bucketStart -> new HyperLogLog())
+                .merge(hyperLogLog);
+    }
+
+    /**
+     * Does nothing: the views are kept in the log.
+     *
+     * @return zero.
+     */
+    @Override
+    public long archiveViews(ZonedDateTime cutoff, int batchSize) {
+        return 0L;
+    }
+
+    @Override
+    public synchronized Integer getTotalViewCount() throws SQLException {
+        return Math.toIntExact(getViewTotals().numberOfTotalViews);
+    }
+
+    @Override
+    public synchronized Integer getVisitorsViewCount(String ipAddress)
+            throws SQLException {
+        return Math.toIntExact(
+                getVisitorStatistics(ipAddress).numberOfVisitorsViews);
+    }
+
+    @Override
+    public synchronized ZonedDateTime getMostRecentViewTime()
+            throws SQLException {
+        return getViewTotals().mostRecentViewTime;
+    }
+
+    @Override
+    public synchronized ZonedDateTime getVisitorsMostRecentViewTime(
+            String ipAddress) throws SQLException {
+        return getVisitorStatistics(ipAddress).visitorsMostRecentViewTime;
+    }
+
+    /**
+     * Forces the log to the disk and closes it. The store may be opened again
+     * by {@link #migrateSchema()}.
+     */
+    @Override
+    public synchronized void close() {
+        if (viewLog == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        executor = null;
+
+        try {
+            viewLog.close();
+        } catch (IOException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Closing the view log failed: {0}",
+                    ex.getMessage());
+        }
+
+        viewLog = null;
+        clear();
+    }
+
+    private void append(ViewRecord viewRecord) throws SQLException {
+        checkOpen();
+
+        try {
+            viewLog.append(viewRecord);
+        } catch (IOException ex) {
+            throw new SQLException("Could not append to the view log.", ex);
+        }
+
+        index(viewRecord);
+    }
+
+    /**
+     * Adds the view to the counters.
+     */
+    private void index(ViewRecord viewRecord) {
+        String ipAddress = viewRecord.getIPAddress();
+        long viewTimeMillis = viewRecord.getViewTimeMillis();
+
+        numberOfViews++;
+        mostRecentViewTimeMillis = Math.max(mostRecentViewTimeMillis,
+                                            viewTimeMillis);
+
+        // Re-insert so that the map stays ordered by the view time:
+        Visitor visitor = visitors.remove(ipAddress);
+
+        if (visitor == null) {
+            visitor = new Visitor();
+        }
+
+        visitors.put(ipAddress, visitor);
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            long bucketStartMillis =
+                    granularity.getBucketStart(viewTimeMillis);
+            Bucket bucket =
+                    rollups.get(granularity)
+                           .computeIfAbsent(bucketStartMillis,
+                                            bucketStart -> new Bucket());
+
+            bucket.numberOfViews++;
+            // Counted once whatever the order of the views:
+            bucket.visitors.add(ipAddress);
+        }
+
+        sketches.get(RollupGranularity.DAY)
+                .computeIfAbsent(
+                        RollupGranularity.DAY.getBucketStart(viewTimeMillis),
+                        bucketStart -> new HyperLogLog())
+                .add(IPAddresses.hash(ipAddress));
+
+        visitor.numberOfViews++;
+        visitor.mostRecentViewTimeMillis =
+                Math.max(visitor.mostRecentViewTimeMillis, viewTimeMillis);
+
+        if (viewRecord.getPage() != null) {
+            Page page = pages.computeIfAbsent(viewRecord.getPage(),
+                                              p -> new Page());
+
+            page.numberOfViews++;
+            page.mostRecentViewTimeMillis =
+                    Math.max(page.mostRecentViewTimeMillis, viewTimeMillis);
+
+            Visitor pageVisitor =
+                    page.visitors.computeIfAbsent(ipAddress,
+                                                  ip -> new Visitor());
+
+            pageVisitor.numberOfViews++;
+            pageVisitor.mostRecentViewTimeMillis =
+                    Math.max(pageVisitor.mostRecentViewTimeMillis,
+                             viewTimeMillis);
+        }
+    }
+
+    private PageViewStatistics fetchPageViewStatistics(String ipAddress,
+                                                       String page) {
+        PageViewStatistics pageViewStatistics = new PageViewStatistics();
+        pageViewStatistics.page = page;
+
+        Page pageStatistics = pages.get(page);
+
+        if (pageStatistics == null) {
+            return pageViewStatistics;
+        }
+
+        pageViewStatistics.numberOfPageViews =
+                pageStatistics.numberOfViews;
+        pageViewStatistics.mostRecentPageViewTime =
+                toZonedDateTime(pageStatistics.mostRecentViewTimeMillis);
+
+        Visitor visitor = pageStatistics.visitors.get(ipAddress);
+
+        if (visitor != null) {
+            pageViewStatistics.numberOfVisitorsPageViews =
+                    visitor.numberOfViews;
+            pageViewStatistics.visitorsMostRecentPageViewTime =
+                    toZonedDateTime(visitor.mostRecentViewTimeMillis);
+        }
+
+        return pageViewStatistics;
+    }
+
+    private void clear() {
+        numberOfViews = 0L;
+        mostRecentViewTimeMillis = Long.MIN_VALUE;
+        visitors.clear();
+        pages.clear();
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            rollups.get(granularity).clear();
+            sketches.get(granularity).clear();
+        }
+    }
+
+    private synchronized void force() {
+        if (viewLog == null) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+
+        try {
+            viewLog.force();
+        } catch (RuntimeException ex) {
+            FORCE_TIMER.recordError();
+            LOGGER.log(Level.SEVERE, "Forcing the view log failed.", ex);
+        } finally {
+            FORCE_TIMER.recordSince(startNanos);
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (viewLog == null) {
+            throw new SQLException("The view log is not open.");
+        }
+    }
+
+    private static ZonedDateTime toZonedDateTime(long millis) {
+        return millis == Long.MIN_VALUE ?
+                null :
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis),
+                                        DataAccessObject.ZONE_ID);
+    }
+
+    private static Timer localStoreTimer(String operation) {
+        return Metrics.timer("weblog_local_store",
+                             "The latency of the local view store operations.",
+                             operation);
+    }
+
+    private static final class Visitor {
+        long numberOfViews;
+        long mostRecentViewTimeMillis = Long.MIN_VALUE;
+    }
+
+    private static final class Page {
+        long numberOfViews;
+        long mostRecentViewTimeMillis = Long.MIN_VALUE;
+        final Map<String, Visitor> visitors = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        long numberOfViews;
+        final Set<String> visitors = new HashSet<>();
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import java.io.IOException;
+import java.io.PrintWriter;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This servlet exposes the latency, throughput and error metrics of the 
+ * application in the Prometheus text exposition format. It is disabled 
+ * unless {@code WEBLOG_OPERATIONS_TOKEN} is set, and then requires the token
+ * (see {@link OperationsAccess}).
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@WebServlet(name="MetricsServlet", urlPatterns={"/metrics"})
+public class MetricsServlet extends HttpServlet {
+
+    private static final String CONTENT_TYPE = 
+            "text/plain; version=0.0.4; charset=utf-8";
+
+    private String operationsToken;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        operationsToken = OperationsAccess.getToken();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest httpServletRequest,
+                         HttpServletResponse httpServletResponse) 
+    throws ServletException, IOException {
+        if (OperationsAccess.rejectIfUnauthorized(operationsToken, 
+                                                  httpServletRequest, 
+                                                  httpServletResponse)) {
+            return;
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(4096);
+        Metrics.writePrometheusText(stringBuilder);
+
+        httpServletResponse.setContentType(CONTENT_TYPE);
+
+        try (PrintWriter printWriter = httpServletResponse.getWriter()) {
+            printWriter.print(stringBuilder);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class guards the operational servlets, {@link MetricsServlet} and
+ * {@link PoolStatisticsServlet}. They are disabled, answering 404, unless
+ * {@code WEBLOG_OPERATIONS_TOKEN} is set; then a request must carry the
+ * token in the {@code Authorization: Bearer <token>} header, or it is
+ * rejected with 401.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class OperationsAccess {
+
+    private static final String OPERATIONS_TOKEN = "WEBLOG_OPERATIONS_TOKEN";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private OperationsAccess() {}
+
+    /**
+     * Returns the token of the operational servlets, or {@code null} if they
+     * are disabled.
+     *
+     * @return the token or {@code null}.
+     */
+    static String getToken() {
+        return Configuration.getString(OPERATIONS_TOKEN, null);
+    }
+
+    /**
+     * Rejects the request with 404 if the operational servlets are disabled,
+     * and with 401 if it does not carry the token.
+     *
+     * @param token               the token returned by {@link #getToken()}.
+     * @param httpServletRequest  the request.
+     * @param httpServletResponse the response.
+     * @return {@code true} if the request was rejected.
+     * @throws java.io.IOException if sending the error fails.
+     */
+    static boolean rejectIfUnauthorized(String token,
+                                        HttpServletRequest httpServletRequest,
+                                        HttpServletResponse httpServletResponse)
+            throws IOException {
+        if (token == null) {
+            httpServletResponse.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return true;
+        }
+
+        String authorization = httpServletRequest.getHeader("Authorization");
+
+        if (authorization != null &&
+                authorization.regionMatches(true,
+                                            0,
+                                            BEARER_PREFIX,
+                                            0,
+                                            BEARER_PREFIX.length()) &&
+                // Constant time, not to leak the token by the timing:
+                MessageDigest.isEqual(
+                        authorization.substring(BEARER_PREFIX.length())
+                                     .trim()
+                                     .getBytes(StandardCharsets.UTF_8),
+                        token.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+
+        httpServletResponse.setHeader("WWW-Authenticate", "Bearer");
+        httpServletResponse.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        return true;
+    }
+}
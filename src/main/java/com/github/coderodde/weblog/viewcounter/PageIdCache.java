@@ -0,0 +1,84 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class caches the IDs of the most recently used pages. The entries are
+ * kept in a number of size-capped maps in the order of access, each guarded
+ * by its own lock; the least recently used entry of a map is evicted once the
+ * map is full, so that the pages viewed often stay cached however many pages
+ * are viewed once.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class PageIdCache {
+
+    private final Stripe[] stripes;
+
+    PageIdCache(int maximumSize, int stripeCount) {
+        stripeCount = Math.max(1, stripeCount);
+        int stripeCapacity = Math.max(1, maximumSize / stripeCount);
+        stripes = new Stripe[stripeCount];
+
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    /**
+     * Returns the ID of the page, or {@code null} if not cached.
+     *
+     * @param page the page.
+     * @return the ID of the page or {@code null}.
+     */
+    Integer get(String page) {
+        Stripe stripe = getStripe(page);
+
+        synchronized (stripe) {
+            return stripe.get(page);
+        }
+    }
+
+    /**
+     * Caches the ID of the page, evicting the least recently used page of its
+     * map if full.
+     *
+     * @param page   the page.
+     * @param pageId the ID of the page.
+     */
+    void put(String page, int pageId) {
+        Stripe stripe = getStripe(page);
+
+        synchronized (stripe) {
+            stripe.put(page, pageId);
+        }
+    }
+
+    private Stripe getStripe(String page) {
+        int hash = page.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    /**
+     * A size-capped map in access order. Accessed only while holding its
+     * monitor.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Integer> {
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > capacity;
+        }
+    }
+}
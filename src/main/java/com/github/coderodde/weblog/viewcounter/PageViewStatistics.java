@@ -0,0 +1,42 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.time.ZonedDateTime;
+
+/**
+ * This POJO class type holds the view statistics of a single page reported to
+ * a visitor.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class PageViewStatistics {
+
+    /**
+     * The page.
+     */
+    public String page;
+
+    /**
+     * The number of views of the page including the view being recorded.
+     */
+    public long numberOfPageViews;
+
+    /**
+     * The number of views of the page by the visitor including the view being
+     * recorded.
+     */
+    public long numberOfVisitorsPageViews;
+
+    /**
+     * The time of the most recent view of the page preceding the view being
+     * recorded, or {@code null} if there is none.
+     */
+    public ZonedDateTime mostRecentPageViewTime;
+
+    /**
+     * The time of the most recent view of the page by the visitor preceding 
+     * the view being recorded, or {@code null} if there is none.
+     */
+    public ZonedDateTime visitorsMostRecentPageViewTime;
+}
@@ -0,0 +1,28 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.List;
+
+/**
+ * This POJO class type defines the response to counting the views of several
+ * pages at once.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class PageViewsResponseObject {
+
+    public boolean succeeded;
+    public List<Page> pages;
+
+    /**
+     * The view statistics of a single page.
+     */
+    public static class Page {
+        public String page;
+        public long numberOfViews;
+        public long numberOfVisitorsViews;
+        public String mostRecentViewTime;
+        public String visitorsMostRecentViewTime;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import com.github.coderodde.weblog.viewcounter.sql.SQLDefinitions;
+
+/**
+ * This class contains utility methods for dealing with the pages of the views.
+ * A page is identified by its normalized path, so that the different URLs of
+ * the same page are counted as one page.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class Pages {
+
+    private Pages() {}
+
+    /**
+     * Returns the normalized path of a page given by its path or its full URL:
+     * the scheme, the host, the query and the fragment are dropped, the
+     * repeated slashes are collapsed and the trailing slash is dropped, so
+     * that, for example, {@code https://host/weblog//post/?x=1#top} becomes
+     * {@code /weblog/post}. The path is case-sensitive.
+     *
+     * <p>A path with characters outside the Basic Multilingual Plane is 
+     * rejected, since the path column holds three-byte UTF-8 only and would
+     * store such a path altered.
+     *
+     * @param page the page.
+     * @return the normalized path, or {@code null} if {@code page} is
+     *         {@code null} or blank, contains control or supplementary 
+     *         characters, or the path is too long to store.
+     */
+    public static String normalize(String page) {
+        if (page == null) {
+            return null;
+        }
+
+        page = page.trim();
+
+        if (page.isEmpty()) {
+            return null;
+        }
+
+        int schemeEnd = page.indexOf("://");
+
+        if (schemeEnd >= 0) {
+            int pathStart = page.indexOf('/', schemeEnd + 3);
+            page = pathStart < 0 ? "/" : page.substring(pathStart);
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(page.length() + 1);
+        stringBuilder.append('/');
+
+        for (int i = 0; i < page.length(); i++) {
+            char c = page.charAt(i);
+
+            if (c == '?' || c == '#') {
+                break;
+            }
+
+            if (Character.isISOControl(c) || Character.isSurrogate(c)) {
+                return null;
+            }
+
+            if (c == '/' &&
+                    stringBuilder.charAt(stringBuilder.length() - 1) == '/') {
+                continue;
+            }
+
+            stringBuilder.append(c);
+        }
+
+        if (stringBuilder.length() > 1 &&
+                stringBuilder.charAt(stringBuilder.length() - 1) == '/') {
+            stringBuilder.setLength(stringBuilder.length() - 1);
+        }
+
+        return stringBuilder.length() >
+                SQLDefinitions.PageTable.Path.MAXIMUM_LENGTH ?
+                null :
+                stringBuilder.toString();
+    }
+}
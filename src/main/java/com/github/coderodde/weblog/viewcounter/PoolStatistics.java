@@ -0,0 +1,44 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+
+/**
+ * This POJO class type holds a snapshot of the connection pool usage.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class PoolStatistics {
+
+    public int size;
+    public int active;
+    public int idle;
+    public int maxActive;
+    public int waitCount;
+    public long borrowedCount;
+    public long returnedCount;
+    public long createdCount;
+    public long releasedCount;
+    public long releasedIdleCount;
+    public long reconnectedCount;
+    public long removeAbandonedCount;
+
+    static PoolStatistics of(DataSource dataSource) {
+        PoolStatistics poolStatistics = new PoolStatistics();
+        poolStatistics.size = dataSource.getSize();
+        poolStatistics.active = dataSource.getActive();
+        poolStatistics.idle = dataSource.getIdle();
+        poolStatistics.maxActive = dataSource.getMaxActive();
+        poolStatistics.waitCount = dataSource.getWaitCount();
+        poolStatistics.borrowedCount = dataSource.getBorrowedCount();
+        poolStatistics.returnedCount = dataSource.getReturnedCount();
+        poolStatistics.createdCount = dataSource.getCreatedCount();
+        poolStatistics.releasedCount = dataSource.getReleasedCount();
+        poolStatistics.releasedIdleCount = dataSource.getReleasedIdleCount();
+        poolStatistics.reconnectedCount = dataSource.getReconnectedCount();
+        poolStatistics.removeAbandonedCount = 
+                dataSource.getRemoveAbandonedCount();
+        return poolStatistics;
+    }
+}
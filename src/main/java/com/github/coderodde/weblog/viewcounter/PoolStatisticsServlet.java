@@ -0,0 +1,75 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This servlet reports the usage of the database connection pool so that the
+ * pool may be sized under load. It is disabled unless 
+ * {@code WEBLOG_OPERATIONS_TOKEN} is set, and then requires the token (see 
+ * {@link OperationsAccess}).
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@WebServlet(name="PoolStatisticsServlet", urlPatterns={"/poolStatistics"})
+public class PoolStatisticsServlet extends HttpServlet {
+
+    private static final Gson GSON = new Gson();
+    private static final Logger LOGGER =
+            Logger.getLogger(PoolStatisticsServlet.class.getName());
+
+    private static final DataAccessObject dataAccessObject = 
+            DataAccessObject.getInstance();
+
+    private String operationsToken;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        operationsToken = OperationsAccess.getToken();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest httpServletRequest,
+                         HttpServletResponse httpServletResponse) 
+    throws ServletException, IOException {
+        if (OperationsAccess.rejectIfUnauthorized(operationsToken, 
+                                                  httpServletRequest, 
+                                                  httpServletResponse)) {
+            return;
+        }
+
+        PoolStatistics poolStatistics;
+
+        try {
+            poolStatistics = dataAccessObject.getPoolStatistics();
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Bad DB URI: {0}, caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        httpServletResponse.setContentType("application/json");
+
+        try (PrintWriter printWriter = httpServletResponse.getWriter()) {
+            printWriter.print(GSON.toJson(poolStatistics));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class limits the rate of the requests of each IP-address with a token
+ * bucket. The bucket of an address is kept as its theoretical arrival time
+ * (the generic cell rate algorithm) in a single {@link AtomicLong} updated by
+ * compare-and-set, so admitting a request takes no lock. The buckets live in
+ * a number of shards, each capped in size: a full shard forgets the buckets
+ * that have refilled completely, which is equivalent to keeping them, and if
+ * that frees too little, the buckets closest to refilling, that is, the least
+ * recently drained ones. A flood of new addresses thus never resets the
+ * buckets of the addresses being limited.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class RateLimiter {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int shardCapacity;
+    private final Map<Long, AtomicLong>[] shards;
+
+    /**
+     * Constructs a rate limiter.
+     *
+     * @param requestsPerMinute the sustained rate allowed per IP-address.
+     * @param burst             the number of requests an idle IP-address may
+     *                          make at once.
+     * @param maximumAddresses  the maximum number of IP-addresses to track.
+     * @param shardCount        the number of shards.
+     */
+    @SuppressWarnings("unchecked")
+    RateLimiter(int requestsPerMinute,
+                int burst,
+                int maximumAddresses,
+                int shardCount) {
+        emissionIntervalNanos = NANOS_PER_MINUTE / requestsPerMinute;
+        burstToleranceNanos = emissionIntervalNanos * (Math.max(1, burst) - 1);
+
+        shardCount = Math.max(1, shardCount);
+        shardCapacity = Math.max(1, maximumAddresses / shardCount);
+        shards = new Map[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the IP-address, if there is one.
+     *
+     * @param ipAddress the IP-address making the request.
+     * @param nowNanos  the current {@link System#nanoTime()}.
+     * @return zero if the request is admitted, or the number of nanoseconds
+     *         until it would be.
+     */
+    long tryAcquire(String ipAddress, long nowNanos) {
+        long key = IPAddresses.hash(ipAddress);
+        Map<Long, AtomicLong> shard =
+                shards[(int) Math.floorMod(key, (long) shards.length)];
+
+        AtomicLong arrivalTime = shard.get(key);
+
+        if (arrivalTime == null) {
+            if (shard.size() >= shardCapacity) {
+                evict(shard, nowNanos);
+            }
+
+            arrivalTime = new AtomicLong(nowNanos);
+            AtomicLong existing = shard.putIfAbsent(key, arrivalTime);
+
+            if (existing != null) {
+                arrivalTime = existing;
+            }
+        }
+
+        while (true) {
+            long current = arrivalTime.get();
+            long theoreticalArrival = Math.max(current, nowNanos);
+            long waitNanos =
+                    theoreticalArrival - nowNanos - burstToleranceNanos;
+
+            if (waitNanos > 0L) {
+                return waitNanos;
+            }
+
+            if (arrivalTime.compareAndSet(
+                    current,
+                    theoreticalArrival + emissionIntervalNanos)) {
+                return 0L;
+            }
+        }
+    }
+
+    private void evict(Map<Long, AtomicLong> shard, long nowNanos) {
+        Iterator<AtomicLong> iterator = shard.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().get() - nowNanos <= 0L) {
+                // Refilled completely:
+                iterator.remove();
+            }
+        }
+
+        int targetSize = shardCapacity / 4 * 3;
+        int excess = shard.size() - targetSize;
+
+        if (excess <= 0) {
+            return;
+        }
+
+        // Too many active addresses; free a quarter of the shard at once 
+        // rather than scan it on every insertion, forgetting the buckets 
+        // with the earliest theoretical arrival times:
+        long[] arrivalTimes = new long[shard.size()];
+        int size = 0;
+
+        for (AtomicLong arrivalTime : shard.values()) {
+            if (size == arrivalTimes.length) {
+                break;
+            }
+
+            arrivalTimes[size++] = arrivalTime.get() - nowNanos;
+        }
+
+        if (size == 0) {
+            return;
+        }
+
+        Arrays.sort(arrivalTimes, 0, size);
+        long cutoff = arrivalTimes[Math.min(excess, size) - 1];
+        iterator = shard.values().iterator();
+
+        while (iterator.hasNext() && excess > 0) {
+            if (iterator.next().get() - nowNanos <= cutoff) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+}
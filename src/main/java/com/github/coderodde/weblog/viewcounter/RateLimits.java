@@ -0,0 +1,116 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This class holds the rate limits shared by the view counting servlets. The
+ * requests of each IP-address are limited to
+ * {@code WEBLOG_RATE_LIMIT_PER_MINUTE} per minute with bursts of
+ * {@code WEBLOG_RATE_LIMIT_BURST} (zero disables); at most
+ * {@code WEBLOG_RATE_LIMIT_MAXIMUM_ADDRESSES} addresses are tracked in
+ * {@code WEBLOG_RATE_LIMIT_SHARDS} shards.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class RateLimits {
+
+    private static final String RATE_LIMIT_PER_MINUTE = 
+            "WEBLOG_RATE_LIMIT_PER_MINUTE";
+    private static final String RATE_LIMIT_BURST = "WEBLOG_RATE_LIMIT_BURST";
+    private static final String RATE_LIMIT_MAXIMUM_ADDRESSES = 
+            "WEBLOG_RATE_LIMIT_MAXIMUM_ADDRESSES";
+    private static final String RATE_LIMIT_SHARDS = 
+            "WEBLOG_RATE_LIMIT_SHARDS";
+    private static final String TRUSTED_PROXY_HOPS = 
+            "WEBLOG_TRUSTED_PROXY_HOPS";
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final LongAdder RATE_LIMITED_REQUESTS = 
+            Metrics.counter("weblog_rate_limited_requests_total", 
+                            "The number of requests rejected with 429.");
+
+    private static RateLimiter sharedRateLimiter;
+    private static boolean rateLimiterCreated;
+    private static volatile int trustedProxyHops;
+
+    private RateLimits() {}
+
+    /**
+     * Returns the rate limiter shared by the view counting servlets, or 
+     * {@code null} if the rate limiting is disabled.
+     * 
+     * @return the rate limiter or {@code null}.
+     */
+    static synchronized RateLimiter getRateLimiter() {
+        if (!rateLimiterCreated) {
+            int requestsPerMinute = 
+                    Configuration.getInt(RATE_LIMIT_PER_MINUTE, 120);
+
+            if (requestsPerMinute > 0) {
+                sharedRateLimiter = new RateLimiter(
+                        requestsPerMinute,
+                        Configuration.getInt(RATE_LIMIT_BURST, 30),
+                        Configuration.getInt(RATE_LIMIT_MAXIMUM_ADDRESSES, 
+                                             100_000),
+                        Configuration.getInt(RATE_LIMIT_SHARDS, 16));
+            }
+
+            trustedProxyHops = Configuration.getInt(TRUSTED_PROXY_HOPS, 1);
+
+            rateLimiterCreated = true;
+        }
+
+        return sharedRateLimiter;
+    }
+
+    /**
+     * Rejects the request with 429 if its IP-address is over the rate limit.
+     * The requests are limited by the address connecting to the outermost 
+     * trusted proxy ({@code WEBLOG_TRUSTED_PROXY_HOPS}, 1 for the router of 
+     * the platform by default, zero for no proxy), never by the addresses the
+     * client may put in the {@code X-FORWARDED-FOR} header itself.
+     * 
+     * @param rateLimiter         the rate limiter returned by 
+     *                            {@link #getRateLimiter()}.
+     * @param httpServletRequest  the request.
+     * @param httpServletResponse the response.
+     * @param nowNanos            the current time in nanoseconds.
+     * @return {@code true} if the request was rejected.
+     * @throws java.io.IOException if sending the error fails.
+     */
+    static boolean rejectIfRateLimited(RateLimiter rateLimiter,
+                                       HttpServletRequest httpServletRequest,
+                                       HttpServletResponse httpServletResponse,
+                                       long nowNanos) 
+            throws IOException {
+        if (rateLimiter == null) {
+            return false;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(
+                IPAddresses.getConnectingIPAddress(httpServletRequest, 
+                                                   trustedProxyHops),
+                nowNanos);
+
+        if (waitNanos <= 0L) {
+            return false;
+        }
+
+        RATE_LIMITED_REQUESTS.increment();
+        httpServletResponse.setHeader(
+                "Retry-After", 
+                Long.toString(
+                        (waitNanos + NANOS_PER_SECOND - 1) / 
+                                NANOS_PER_SECOND));
+        httpServletResponse.sendError(SC_TOO_MANY_REQUESTS);
+        return true;
+    }
+}
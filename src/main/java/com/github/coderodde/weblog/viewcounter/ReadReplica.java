@@ -0,0 +1,177 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import com.github.coderodde.weblog.viewcounter.sql.SQLStatements;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.tomcat.jdbc.pool.DataSource;
+
+/**
+ * This class tracks the replication lag of a read-only replica of the
+ * database. The lag is estimated by comparing the view totals of the primary
+ * and of the replica: if the replica has seen fewer views, it lags by the
+ * time between the most recent views of the two. The replica is usable only
+ * if the most recent check succeeded and found a lag of at most
+ * {@code maximumLagMillis}; it is unusable until the first check and after a
+ * failed read.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class ReadReplica {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(ReadReplica.class.getName());
+
+    private static final LongAdder FALLBACKS =
+            Metrics.counter("weblog_replica_fallbacks_total",
+                            "The number of replica reads done on the primary.");
+
+    private final DataSource dataSource;
+    private final long maximumLagMillis;
+
+    private volatile long lagMillis = -1L;
+    private volatile boolean usable;
+
+    ReadReplica(DataSource dataSource, long maximumLagMillis) {
+        this.dataSource = dataSource;
+        this.maximumLagMillis = maximumLagMillis;
+
+        Metrics.gauge("weblog_replica_lag_millis",
+                      "The estimated replication lag, or -1 if unknown.",
+                      () -> lagMillis);
+        Metrics.gauge("weblog_replica_usable",
+                      "1 if the reads go to the replica, 0 otherwise.",
+                      () -> usable ? 1L : 0L);
+    }
+
+    /**
+     * Returns {@code true} if the reads may go to the replica. Otherwise
+     * counts a fallback to the primary.
+     *
+     * @return {@code true} if the replica is usable.
+     */
+    boolean isUsable() {
+        if (usable) {
+            return true;
+        }
+
+        FALLBACKS.increment();
+        return false;
+    }
+
+    Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Marks the replica unusable until the next successful check after a
+     * failed read.
+     *
+     * @param ex the cause of the failure.
+     */
+    void markFailed(SQLException ex) {
+        usable = false;
+        FALLBACKS.increment();
+
+        LOGGER.log(
+                Level.WARNING,
+                "Reading from the replica failed: {0}, caused by: {1}",
+                objects(ex.getMessage(), ex.getCause()));
+    }
+
+    /**
+     * Estimates the replication lag against the primary.
+     *
+     * @param primaryDataSource the pool of the primary database.
+     */
+    void checkLag(DataSource primaryDataSource) {
+        try {
+            ViewTotals primaryTotals;
+            ViewTotals replicaTotals;
+
+            try (Connection connection = primaryDataSource.getConnection()) {
+                primaryTotals = ViewTotals.of(connection);
+            }
+
+            try (Connection connection = dataSource.getConnection()) {
+                replicaTotals = ViewTotals.of(connection);
+            }
+
+            long lag = replicaTotals.getLagMillis(primaryTotals);
+            boolean wasUsable = usable;
+
+            lagMillis = lag;
+            usable = lag <= maximumLagMillis;
+
+            if (wasUsable && !usable) {
+                LOGGER.log(Level.WARNING,
+                           "The replica lags by {0} ms, reading the primary.",
+                           lag);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            lagMillis = -1L;
+            usable = false;
+
+            LOGGER.log(
+                    Level.WARNING,
+                    "Checking the replica lag failed: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+        }
+    }
+
+    void close() {
+        dataSource.close();
+    }
+
+    /**
+     * The view totals as seen by a database.
+     */
+    private static final class ViewTotals {
+        long numberOfViews;
+        Timestamp mostRecentViewTime;
+
+        static ViewTotals of(Connection connection) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet =
+                         statement.executeQuery(
+                                 SQLStatements
+                                         .ViewTotalsTable
+                                         .Select
+                                         .GET_VIEW_TOTALS)) {
+
+                ViewTotals viewTotals = new ViewTotals();
+
+                if (resultSet.next()) {
+                    viewTotals.numberOfViews = resultSet.getLong(1);
+                    viewTotals.mostRecentViewTime = resultSet.getTimestamp(2);
+                }
+
+                return viewTotals;
+            }
+        }
+
+        long getLagMillis(ViewTotals primaryTotals) {
+            if (numberOfViews >= primaryTotals.numberOfViews) {
+                return 0L;
+            }
+
+            if (mostRecentViewTime == null) {
+                // Seen no views yet:
+                return Long.MAX_VALUE;
+            }
+
+            return Math.max(1L,
+                            primaryTotals.mostRecentViewTime.getTime() -
+                                    mostRecentViewTime.getTime());
+        }
+    }
+}
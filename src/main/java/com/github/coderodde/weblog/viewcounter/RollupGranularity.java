@@ -0,0 +1,63 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * This enumeration lists the sizes of the time buckets the views are rolled up
+ * into. The buckets are aligned to the local time of
+ * {@link DataAccessObject#ZONE_ID}; the enumeration order is the order in
+ * which the buckets of a view are updated.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public enum RollupGranularity {
+
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    private RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the start of the bucket containing the given time.
+     *
+     * @param zonedDateTime the time.
+     * @return the start of the bucket.
+     */
+    public ZonedDateTime getBucketStart(ZonedDateTime zonedDateTime) {
+        return zonedDateTime.withZoneSameInstant(DataAccessObject.ZONE_ID)
+                            .truncatedTo(unit);
+    }
+
+    /**
+     * Returns the start of the bucket containing the given time.
+     *
+     * @param epochMillis the time in milliseconds since the epoch.
+     * @return the start of the bucket in milliseconds since the epoch.
+     */
+    public long getBucketStart(long epochMillis) {
+        return getBucketStart(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis),
+                                        DataAccessObject.ZONE_ID))
+                .toInstant()
+                .toEpochMilli();
+    }
+
+    /**
+     * Returns the start of the bucket following the bucket starting at
+     * {@code bucketStart}.
+     *
+     * @param bucketStart the start of a bucket.
+     * @return the start of the next bucket.
+     */
+    public ZonedDateTime getNextBucketStart(ZonedDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+}
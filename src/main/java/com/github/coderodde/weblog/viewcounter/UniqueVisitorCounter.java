@@ -0,0 +1,177 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class estimates the number of distinct visitors with HyperLogLog
+ * sketches: one over the whole lifetime of the weblog, loaded as the union of
+ * the stored daily sketches, and one per day being written to. The daily
+ * sketches are merged into the view store periodically and on shutdown; the
+ * days that have ended are then dropped from memory. Merging a sketch is
+ * idempotent, so a sketch is kept until it has been merged as it is.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class UniqueVisitorCounter {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(UniqueVisitorCounter.class.getName());
+
+    private final ViewStore viewStore;
+    private final long flushIntervalMillis;
+    private final HyperLogLog lifetimeSketch = new HyperLogLog();
+    private final Map<Long, HyperLogLog> daySketches =
+            new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+    private ScheduledExecutorService executor;
+
+    UniqueVisitorCounter(ViewStore viewStore, long flushIntervalMillis) {
+        this.viewStore = viewStore;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Loads the lifetime sketch from the view store and starts flushing the
+     * daily sketches periodically.
+     *
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    synchronized void load() throws SQLException, URISyntaxException {
+        if (loaded) {
+            return;
+        }
+
+        lifetimeSketch.merge(
+                viewStore.getVisitorSketch(
+                        RollupGranularity.DAY,
+                        ZonedDateTime.ofInstant(Instant.EPOCH,
+                                                DataAccessObject.ZONE_ID),
+                        ZonedDateTime.now(DataAccessObject.ZONE_ID)
+                                     .plusDays(1L)));
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "visitor-sketch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::flush,
+                                        flushIntervalMillis,
+                                        flushIntervalMillis,
+                                        TimeUnit.MILLISECONDS);
+        loaded = true;
+    }
+
+    /**
+     * Returns {@code true} once the lifetime sketch is loaded.
+     *
+     * @return {@code true} if the estimates cover the whole lifetime.
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Counts in the visitor of the view.
+     *
+     * @param viewRecord the view.
+     */
+    void add(ViewRecord viewRecord) {
+        long hash = IPAddresses.hash(viewRecord.getIPAddress());
+
+        lifetimeSketch.add(hash);
+
+        // Add under the lock of the entry so that a flush cannot drop the day
+        // in between:
+        daySketches.compute(
+                RollupGranularity.DAY.getBucketStart(
+                        viewRecord.getViewTimeMillis()),
+                (day, daySketch) -> {
+                    if (daySketch == null) {
+                        daySketch = new HyperLogLog();
+                    }
+
+                    daySketch.add(hash);
+                    return daySketch;
+                });
+    }
+
+    /**
+     * Returns the estimated number of distinct visitors so far.
+     *
+     * @return the estimated number of distinct visitors.
+     */
+    long estimate() {
+        return lifetimeSketch.estimate();
+    }
+
+    /**
+     * Stops the periodic flushing and flushes the daily sketches.
+     */
+    synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+
+        flush();
+    }
+
+    private void flush() {
+        long todayStartMillis =
+                RollupGranularity.DAY.getBucketStart(
+                        System.currentTimeMillis());
+
+        for (Map.Entry<Long, HyperLogLog> entry : daySketches.entrySet()) {
+            long dayStartMillis = entry.getKey();
+            byte[] flushedSketch = entry.getValue().toByteArray();
+
+            try {
+                viewStore.mergeVisitorSketch(
+                        RollupGranularity.DAY,
+                        dayStartMillis,
+                        HyperLogLog.fromByteArray(flushedSketch));
+            } catch (SQLException | URISyntaxException ex) {
+                // Keep the sketch and retry next time:
+                LOGGER.log(
+                        Level.WARNING,
+                        "Flushing the visitor sketch failed: {0}, " +
+                                "caused by: {1}",
+                        objects(ex.getMessage(), ex.getCause()));
+                continue;
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "Flushing the visitor sketch failed.",
+                           ex);
+                continue;
+            }
+
+            if (dayStartMillis < todayStartMillis) {
+                // Drop the day unless a view was counted in after the merge;
+                // then it is merged again next time:
+                daySketches.computeIfPresent(
+                        dayStartMillis,
+                        (day, daySketch) ->
+                                Arrays.equals(daySketch.toByteArray(),
+                                              flushedSketch) ?
+                                        null :
+                                        daySketch);
+            }
+        }
+    }
+}
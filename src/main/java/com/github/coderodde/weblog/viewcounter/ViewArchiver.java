@@ -0,0 +1,107 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class periodically moves the views older than a configurable number of
+ * days from the main view table into the compressed archive table, keeping the
+ * main table and its indices small. The counter, rollup and sketch tables are
+ * not touched, so the all-time totals stay intact.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class ViewArchiver {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(ViewArchiver.class.getName());
+
+    private final ViewStore viewStore;
+    private final int archiveAfterDays;
+    private final long intervalMillis;
+    private final int batchSize;
+
+    private ScheduledExecutorService executor;
+
+    ViewArchiver(ViewStore viewStore,
+                 int archiveAfterDays,
+                 long intervalMillis,
+                 int batchSize) {
+        this.viewStore = viewStore;
+        this.archiveAfterDays = archiveAfterDays;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Starts archiving periodically, the first time right away.
+     */
+    synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::archive,
+                                        0L,
+                                        intervalMillis,
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops archiving.
+     */
+    synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void archive() {
+        ZonedDateTime cutoff =
+                ZonedDateTime.now(DataAccessObject.ZONE_ID)
+                             .minusDays(archiveAfterDays);
+
+        try {
+            long numberOfArchivedViews =
+                    viewStore.archiveViews(cutoff, batchSize);
+
+            if (numberOfArchivedViews > 0L) {
+                LOGGER.log(
+                        Level.INFO,
+                        "Archived {0} views viewed before {1}.",
+                        objects(numberOfArchivedViews, cutoff));
+            }
+        } catch (SQLException ex) {
+            // Retry next time:
+            LOGGER.log(
+                    Level.WARNING,
+                    "Archiving the views failed: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Bad DB URI: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Archiving the views failed.", ex);
+        }
+    }
+}
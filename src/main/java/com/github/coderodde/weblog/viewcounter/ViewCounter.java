@@ -0,0 +1,524 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class records the views and computes the statistics reported back to
+ * the visitors. Depending on the {@code WEBLOG_INGESTION_MODE} setting, the
+ * views are written to the database either synchronously ({@code synchronous},
+ * the default), in batches by a background writer ({@code write-behind}), or
+ * via a durable local journal shipped to the database in the background 
+ * ({@code journal}, see {@link JournalViewWriter}).
+ * 
+ * <p>In the write-behind and journal modes the statistics are read from the 
+ * database without waiting for the view to be written. If the queue is full,
+ * or the journal fails, the view is written synchronously or dropped, 
+ * depending on the {@code WEBLOG_INGESTION_BACKPRESSURE} setting 
+ * ({@code synchronous}, the default, or {@code drop}).
+ * 
+ * <p>If {@code WEBLOG_STATS_CACHE_ENABLED} is {@code true}, the statistics are
+ * served from a {@link ViewStatisticsCache} warmed up on startup, and the 
+ * database is only read for the visitors not in the cache. The cache assumes
+ * this process is the only one writing views, and is thus not used if 
+ * {@code WEBLOG_CLUSTER_MODE} is {@code true} (see {@link DataAccessObject}).
+ * 
+ * <p>If {@code WEBLOG_DEDUP_WINDOW_MILLIS} is positive, the repeated views of
+ * a page by a visitor within that many milliseconds of a counted view are 
+ * suppressed by a {@link DuplicateViewFilter} and never reach the database.
+ * 
+ * <p>The views of several pages reported in one request by 
+ * {@link #countPageViews(List)} are always written synchronously, in a 
+ * single batch, and are not subject to the dedup window.
+ * 
+ * <p>The number of distinct visitors is estimated by a 
+ * {@link UniqueVisitorCounter}, whose daily sketches are stored every
+ * {@code WEBLOG_SKETCH_FLUSH_INTERVAL_MILLIS} milliseconds.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class ViewCounter {
+
+    private static final Logger LOGGER = 
+            Logger.getLogger(ViewCounter.class.getName());
+
+    private static final String INGESTION_MODE = "WEBLOG_INGESTION_MODE";
+    private static final String INGESTION_BACKPRESSURE = 
+            "WEBLOG_INGESTION_BACKPRESSURE";
+    private static final String INGESTION_QUEUE_CAPACITY = 
+            "WEBLOG_INGESTION_QUEUE_CAPACITY";
+    private static final String INGESTION_BATCH_SIZE = 
+            "WEBLOG_INGESTION_BATCH_SIZE";
+    private static final String INGESTION_FLUSH_INTERVAL_MILLIS = 
+            "WEBLOG_INGESTION_FLUSH_INTERVAL_MILLIS";
+
+    private static final String JOURNAL_DIRECTORY = 
+            "WEBLOG_JOURNAL_DIRECTORY";
+    private static final String JOURNAL_SEGMENT_BYTES = 
+            "WEBLOG_JOURNAL_SEGMENT_BYTES";
+    private static final String JOURNAL_SHIP_BATCH_SIZE = 
+            "WEBLOG_JOURNAL_SHIP_BATCH_SIZE";
+    private static final String JOURNAL_SHIP_INTERVAL_MILLIS = 
+            "WEBLOG_JOURNAL_SHIP_INTERVAL_MILLIS";
+    private static final String JOURNAL_FSYNC_INTERVAL_MILLIS = 
+            "WEBLOG_JOURNAL_FSYNC_INTERVAL_MILLIS";
+
+    private static final String STATS_CACHE_ENABLED = 
+            "WEBLOG_STATS_CACHE_ENABLED";
+    private static final String STATS_CACHE_MAXIMUM_VISITORS = 
+            "WEBLOG_STATS_CACHE_MAXIMUM_VISITORS";
+    private static final String STATS_CACHE_STRIPES = 
+            "WEBLOG_STATS_CACHE_STRIPES";
+    private static final String STATS_CACHE_WARM_VISITORS = 
+            "WEBLOG_STATS_CACHE_WARM_VISITORS";
+
+    private static final String CLUSTER_MODE = "WEBLOG_CLUSTER_MODE";
+
+    private static final String SKETCH_FLUSH_INTERVAL_MILLIS = 
+            "WEBLOG_SKETCH_FLUSH_INTERVAL_MILLIS";
+
+    private static final String DEDUP_WINDOW_MILLIS = 
+            "WEBLOG_DEDUP_WINDOW_MILLIS";
+    private static final String DEDUP_MAXIMUM_VISITORS = 
+            "WEBLOG_DEDUP_MAXIMUM_VISITORS";
+    private static final String DEDUP_STRIPES = "WEBLOG_DEDUP_STRIPES";
+    private static final String DEDUP_BY_USER_AGENT = 
+            "WEBLOG_DEDUP_BY_USER_AGENT";
+
+    private static final String WRITE_BEHIND_MODE = "write-behind";
+    private static final String JOURNAL_MODE = "journal";
+    private static final String DROP_BACKPRESSURE = "drop";
+
+    private static final ViewCounter INSTANCE = new ViewCounter();
+
+    private final ViewStore viewStore = ViewStores.getInstance();
+
+    private final DeferredViewWriter deferredViewWriter;
+    private final boolean dropOnBackpressure;
+    private final ViewStatisticsCache viewStatisticsCache;
+    private final UniqueVisitorCounter uniqueVisitorCounter;
+    private final DuplicateViewFilter duplicateViewFilter;
+    private final LongAdder suppressedViews;
+
+    private ViewCounter() {
+        boolean statsCacheEnabled = 
+                Configuration.getBoolean(STATS_CACHE_ENABLED, false);
+
+        if (statsCacheEnabled && 
+                Configuration.getBoolean(CLUSTER_MODE, false)) {
+            // The other instances would not update the cache:
+            LOGGER.log(Level.WARNING, 
+                       "The statistics cache is disabled in the cluster mode.");
+            statsCacheEnabled = false;
+        }
+
+        viewStatisticsCache = 
+                statsCacheEnabled ?
+                new ViewStatisticsCache(
+                        Configuration.getInt(STATS_CACHE_MAXIMUM_VISITORS, 
+                                             100_000),
+                        Configuration.getInt(STATS_CACHE_STRIPES, 16)) :
+                null;
+
+        String ingestionMode = Configuration.getString(INGESTION_MODE, "");
+
+        if (WRITE_BEHIND_MODE.equalsIgnoreCase(ingestionMode)) {
+            WriteBehindViewWriter writeBehindViewWriter = 
+                    new WriteBehindViewWriter(
+                            viewStore,
+                            this::countWritten,
+                            Configuration.getInt(INGESTION_QUEUE_CAPACITY, 
+                                                 10_000),
+                            Configuration.getInt(INGESTION_BATCH_SIZE, 500),
+                            Configuration.getLong(
+                                    INGESTION_FLUSH_INTERVAL_MILLIS, 
+                                    1_000L));
+
+            Metrics.gauge("weblog_ingestion_queue_size", 
+                          "The number of views waiting to be written.", 
+                          writeBehindViewWriter::getQueueSize);
+
+            deferredViewWriter = writeBehindViewWriter;
+        } else if (JOURNAL_MODE.equalsIgnoreCase(ingestionMode)) {
+            deferredViewWriter = createJournalViewWriter();
+        } else {
+            deferredViewWriter = null;
+        }
+
+        dropOnBackpressure = 
+                DROP_BACKPRESSURE.equalsIgnoreCase(
+                        Configuration.getString(INGESTION_BACKPRESSURE, ""));
+
+        uniqueVisitorCounter = 
+                new UniqueVisitorCounter(
+                        viewStore,
+                        Configuration.getLong(SKETCH_FLUSH_INTERVAL_MILLIS, 
+                                              60_000L));
+
+        long dedupWindowMillis = 
+                Configuration.getLong(DEDUP_WINDOW_MILLIS, 0L);
+
+        if (dedupWindowMillis > 0L) {
+            duplicateViewFilter = 
+                    new DuplicateViewFilter(
+                            dedupWindowMillis,
+                            Configuration.getInt(DEDUP_MAXIMUM_VISITORS, 
+                                                 100_000),
+                            Configuration.getInt(DEDUP_STRIPES, 16),
+                            Configuration.getBoolean(DEDUP_BY_USER_AGENT, 
+                                                     false));
+
+            suppressedViews = 
+                    Metrics.counter(
+                            "weblog_duplicate_views_total", 
+                            "The number of views suppressed as duplicates.");
+        } else {
+            duplicateViewFilter = null;
+            suppressedViews = null;
+        }
+    }
+
+    /**
+     * Opens the view journal, or returns {@code null} to fall back to the 
+     * synchronous mode if it cannot be opened.
+     */
+    private JournalViewWriter createJournalViewWriter() {
+        Path directory = 
+                Paths.get(Configuration.getString(JOURNAL_DIRECTORY, 
+                                                  "weblog-journal"));
+        JournalViewWriter journalViewWriter;
+
+        try {
+            journalViewWriter = 
+                    new JournalViewWriter(
+                            viewStore,
+                            this::countWritten,
+                            directory,
+                            Configuration.getInt(JOURNAL_SEGMENT_BYTES, 
+                                                 4_194_304),
+                            Configuration.getInt(JOURNAL_SHIP_BATCH_SIZE, 500),
+                            Configuration.getLong(
+                                    JOURNAL_SHIP_INTERVAL_MILLIS, 
+                                    1_000L),
+                            Configuration.getLong(
+                                    JOURNAL_FSYNC_INTERVAL_MILLIS, 
+                                    1_000L));
+        } catch (IOException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Could not open the view journal in {0}: {1}", 
+                    objects(directory, ex.getMessage()));
+            return null;
+        }
+
+        Metrics.gauge("weblog_journal_segments", 
+                      "The number of view journal segments not yet shipped.", 
+                      journalViewWriter::getNumberOfSegments);
+
+        return journalViewWriter;
+    }
+
+    public static ViewCounter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads the unique visitor sketch, and the view totals and the most 
+     * recently seen visitors into the statistics cache, if enabled. Must be 
+     * called before serving views.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    public void warmUp() throws SQLException, URISyntaxException {
+        uniqueVisitorCounter.load();
+
+        if (viewStatisticsCache == null) {
+            return;
+        }
+
+        Map<String, ViewStatistics> visitors = 
+                viewStore.getMostRecentVisitors(
+                        Configuration.getInt(STATS_CACHE_WARM_VISITORS, 
+                                             10_000));
+
+        for (Map.Entry<String, ViewStatistics> entry : visitors.entrySet()) {
+            viewStatisticsCache.putVisitorIfAbsent(entry.getKey(), 
+                                                   entry.getValue());
+        }
+
+        viewStatisticsCache.warm(viewStore.getViewTotals());
+
+        LOGGER.log(
+                Level.INFO, 
+                "Statistics cache warmed up with {0} visitors.", 
+                visitors.size());
+    }
+
+    /**
+     * Records the view and returns the view statistics of the visitor. A 
+     * duplicate of a view counted within the dedup window is not recorded;
+     * the statistics reported for the counted view are returned instead. The
+     * returned statistics must thus not be modified.
+     * 
+     * @param viewRecord the view to record.
+     * @return the view statistics of the visitor.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    public ViewStatistics countView(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        if (duplicateViewFilter == null) {
+            return countNewView(viewRecord);
+        }
+
+        DuplicateViewFilter.Key key = duplicateViewFilter.getKey(viewRecord);
+
+        while (true) {
+            DuplicateViewFilter.Reservation reservation = 
+                    duplicateViewFilter.reserve(
+                            key, 
+                            viewRecord.getViewTimeMillis());
+
+            if (reservation.isDuplicate()) {
+                ViewStatistics viewStatistics = 
+                        reservation.getViewStatistics();
+
+                if (viewStatistics != null) {
+                    suppressedViews.increment();
+                    return viewStatistics;
+                }
+
+                // Counting the earlier view failed, count this one instead:
+                continue;
+            }
+
+            ViewStatistics viewStatistics = null;
+
+            try {
+                viewStatistics = countNewView(viewRecord);
+            } finally {
+                if (viewStatistics == null) {
+                    duplicateViewFilter.release(key, reservation);
+                } else {
+                    reservation.complete(viewStatistics);
+                }
+            }
+
+            return viewStatistics;
+        }
+    }
+
+    /**
+     * Records the views of a single visitor, each of a different page, and 
+     * returns the view statistics of the pages.
+     * 
+     * @param viewRecords the views to record.
+     * @return the view statistics of the pages in the order of the views.
+     * 
+     * @throws java.sql.SQLException if the SQL layer fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    public List<PageViewStatistics> countPageViews(
+            List<ViewRecord> viewRecords) 
+            throws SQLException, URISyntaxException {
+        List<PageViewStatistics> pageViewStatistics = 
+                viewStore.recordPageViewsAndFetchStats(viewRecords);
+
+        for (ViewRecord viewRecord : viewRecords) {
+            if (viewStatisticsCache != null && viewStatisticsCache.isWarm()) {
+                viewStatisticsCache.countIn(viewRecord);
+            }
+
+            uniqueVisitorCounter.add(viewRecord);
+        }
+
+        return pageViewStatistics;
+    }
+
+    private ViewStatistics countNewView(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        ViewStatistics viewStatistics = recordView(viewRecord);
+
+        if (uniqueVisitorCounter.isLoaded()) {
+            viewStatistics.numberOfUniqueVisitors = 
+                    uniqueVisitorCounter.estimate();
+        }
+
+        return viewStatistics;
+    }
+
+    private ViewStatistics recordView(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        if (viewStatisticsCache != null && viewStatisticsCache.isWarm()) {
+            return countViewCached(viewRecord);
+        }
+
+        if (deferredViewWriter == null) {
+            ViewStatistics viewStatistics = 
+                    viewStore.recordViewAndFetchStats(viewRecord);
+
+            uniqueVisitorCounter.add(viewRecord);
+            return viewStatistics;
+        }
+
+        ViewStatistics viewStatistics = 
+                viewStore.getViewStatistics(viewRecord.getIPAddress());
+
+        viewStatistics.pageViewStatistics = getPageViewStatistics(viewRecord);
+
+        if (!writeView(viewRecord)) {
+            return viewStatistics;
+        }
+
+        // Count in the view just recorded:
+        viewStatistics.numberOfTotalViews++;
+        viewStatistics.numberOfVisitorsViews++;
+        countIn(viewStatistics.pageViewStatistics);
+        return viewStatistics;
+    }
+
+    private ViewStatistics countViewCached(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        String ipAddress = viewRecord.getIPAddress();
+        boolean deferred = deferredViewWriter != null;
+        ViewStatisticsCache.Visitor visitor = 
+                viewStatisticsCache.getVisitor(ipAddress, deferred);
+
+        if (visitor == null) {
+            visitor = viewStatisticsCache.putVisitorIfAbsent(
+                    ipAddress, 
+                    viewStore.getVisitorStatistics(ipAddress),
+                    deferred);
+        }
+
+        StoreResult storeResult = StoreResult.DROPPED;
+
+        try {
+            PageViewStatistics pageViewStatistics = 
+                    getPageViewStatistics(viewRecord);
+            ViewStatistics viewStatistics;
+
+            storeResult = storeView(viewRecord);
+
+            if (storeResult != StoreResult.DROPPED) {
+                uniqueVisitorCounter.add(viewRecord);
+                viewStatistics = 
+                        viewStatisticsCache.recordView(visitor, viewRecord);
+                countIn(pageViewStatistics);
+            } else {
+                viewStatistics = viewStatisticsCache.getViewStatistics(visitor);
+            }
+
+            viewStatistics.pageViewStatistics = pageViewStatistics;
+            return viewStatistics;
+        } finally {
+            if (deferred && storeResult != StoreResult.QUEUED) {
+                // Not left to the deferred writer:
+                viewStatisticsCache.countWritten(ipAddress);
+            }
+        }
+    }
+
+    /**
+     * Returns the view statistics of the page of the view, or {@code null} if
+     * the view has no page. The page statistics are not cached.
+     */
+    private PageViewStatistics getPageViewStatistics(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        if (viewRecord.getPage() == null) {
+            return null;
+        }
+
+        return viewStore.getPageViewStatistics(viewRecord.getIPAddress(), 
+                                               viewRecord.getPage());
+    }
+
+    /**
+     * Counts in the view just recorded.
+     */
+    private static void countIn(PageViewStatistics pageViewStatistics) {
+        if (pageViewStatistics != null) {
+            pageViewStatistics.numberOfPageViews++;
+            pageViewStatistics.numberOfVisitorsPageViews++;
+        }
+    }
+
+    /**
+     * Writes the view to the database or queues it for writing. Returns 
+     * {@code false} if the view was dropped due to backpressure.
+     */
+    private boolean writeView(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        if (storeView(viewRecord) == StoreResult.DROPPED) {
+            return false;
+        }
+
+        uniqueVisitorCounter.add(viewRecord);
+        return true;
+    }
+
+    private StoreResult storeView(ViewRecord viewRecord) 
+            throws SQLException, URISyntaxException {
+        if (deferredViewWriter == null) {
+            viewStore.addView(viewRecord);
+            return StoreResult.WRITTEN;
+        }
+
+        if (deferredViewWriter.offer(viewRecord)) {
+            return StoreResult.QUEUED;
+        }
+
+        if (dropOnBackpressure) {
+            LOGGER.log(Level.FINE, "View not deferred, dropping a view.");
+            return StoreResult.DROPPED;
+        }
+
+        viewStore.addView(viewRecord);
+        return StoreResult.WRITTEN;
+    }
+
+    /**
+     * Lets the statistics cache evict the visitors of the views written by 
+     * the deferred writer.
+     */
+    private void countWritten(List<ViewRecord> viewRecords) {
+        if (viewStatisticsCache != null) {
+            viewStatisticsCache.countWritten(viewRecords);
+        }
+    }
+
+    /**
+     * The outcomes of storing a view.
+     */
+    private enum StoreResult {
+        WRITTEN,
+        QUEUED,
+        DROPPED
+    }
+
+    /**
+     * Writes all the pending views and stops the background writer, if any,
+     * and stores the unique visitor sketches.
+     */
+    public void close() {
+        if (deferredViewWriter != null) {
+            deferredViewWriter.close();
+        }
+
+        uniqueVisitorCounter.close();
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * This listener brings the database schema up to date once per process on
+ * startup. Until the migration succeeds, it is retried periodically and the 
+ * servlets refuse traffic. Once the schema is ready, the archiving of the old
+ * views starts, if enabled.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@WebListener
+public class ViewCounterBootstrap implements ServletContextListener {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(ViewCounterBootstrap.class.getName());
+
+    private static final String MIGRATION_RETRY_MILLIS = 
+            "WEBLOG_MIGRATION_RETRY_MILLIS";
+
+    private static final String ARCHIVE_AFTER_DAYS = 
+            "WEBLOG_ARCHIVE_AFTER_DAYS";
+
+    private static final String ARCHIVE_INTERVAL_MILLIS = 
+            "WEBLOG_ARCHIVE_INTERVAL_MILLIS";
+
+    private static final String ARCHIVE_BATCH_SIZE = 
+            "WEBLOG_ARCHIVE_BATCH_SIZE";
+
+    private static volatile boolean schemaReady = false;
+
+    private final ViewStore viewStore = ViewStores.getInstance();
+
+    private ScheduledExecutorService executor;
+    private ViewArchiver viewArchiver;
+
+    /**
+     * Returns {@code true} once the database schema is up to date.
+     * 
+     * @return {@code true} if the schema is ready.
+     */
+    public static boolean isSchemaReady() {
+        return schemaReady;
+    }
+
+    @Override
+    public void contextInitialized(ServletContextEvent servletContextEvent) {
+        if (tryMigrateSchema()) {
+            return;
+        }
+
+        long retryMillis = Configuration.getLong(MIGRATION_RETRY_MILLIS, 
+                                                 10_000L);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schema-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(() -> {
+            if (tryMigrateSchema()) {
+                executor.shutdown();
+            }
+        }, retryMillis, retryMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent servletContextEvent) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        synchronized (this) {
+            if (viewArchiver != null) {
+                viewArchiver.close();
+            }
+        }
+
+        schemaReady = false;
+        viewStore.close();
+    }
+
+    private static void warmUpViewCounter() {
+        try {
+            ViewCounter.getInstance().warmUp();
+        } catch (SQLException ex) {
+            // The views are served without the cache and the unique visitor
+            // estimates:
+            LOGGER.log(
+                    Level.WARNING, 
+                    "Warming up the view counter failed: {0}, " + 
+                            "caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Bad DB URI: {0}, caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+        }
+    }
+
+    private synchronized void startViewArchiver() {
+        int archiveAfterDays = Configuration.getInt(ARCHIVE_AFTER_DAYS, 0);
+
+        if (archiveAfterDays <= 0) {
+            // Keep all the views in the main table:
+            return;
+        }
+
+        viewArchiver = 
+                new ViewArchiver(
+                        viewStore,
+                        archiveAfterDays,
+                        Configuration.getLong(ARCHIVE_INTERVAL_MILLIS, 
+                                              3_600_000L),
+                        Configuration.getInt(ARCHIVE_BATCH_SIZE, 1000));
+
+        viewArchiver.start();
+    }
+
+    private boolean tryMigrateSchema() {
+        try {
+            int schemaVersion = viewStore.migrateSchema();
+            warmUpViewCounter();
+            schemaReady = true;
+            startViewArchiver();
+
+            LOGGER.log(
+                    Level.INFO, 
+                    "Database schema is at version {0}.", 
+                    schemaVersion);
+
+            return true;
+        } catch (SQLException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Schema migration failed: {0}, caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE, 
+                    "Bad DB URI: {0}, caused by: {1}", 
+                    objects(ex.getMessage(), ex.getCause()));
+
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Schema migration failed.", ex);
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.List;
+
+/**
+ * This POJO class type defines the view history time series reported to the
+ * dashboards.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class ViewHistoryResponseObject {
+
+    public boolean succeeded;
+    public String granularity;
+    public String from;
+    public String to;
+    public Long uniqueVisitors;
+    public List<Bucket> buckets;
+
+    /**
+     * A single point of the time series.
+     */
+    public static class Bucket {
+        public String bucketStart;
+        public long numberOfViews;
+        public long numberOfVisitors;
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This servlet returns the number of views and distinct visitors per hour or
+ * per day over a time range, read from the rollup table. The request
+ * parameters are:
+ * <ul>
+ *   <li>{@code granularity}: {@code hour} or {@code day} (the default),</li>
+ *   <li>{@code from}: the inclusive range start as an ISO-8601 date or date
+ *       and time, defaulting to 48 hours or 30 days before {@code to},</li>
+ *   <li>{@code to}: the exclusive range end, defaulting to now.</li>
+ * </ul>
+ * The series is dense: the buckets with no views are reported with zero
+ * counts. For the daily series, the estimated number of distinct visitors over
+ * the whole range is reported too, merged from the daily visitor sketches.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+@WebServlet(name="ViewHistoryServlet", urlPatterns={"/viewHistory"})
+public class ViewHistoryServlet extends HttpServlet {
+
+    private static final Gson GSON = new Gson();
+    private static final Logger LOGGER =
+            Logger.getLogger(ViewHistoryServlet.class.getName());
+
+    private static final String MAXIMUM_BUCKETS =
+            "WEBLOG_HISTORY_MAXIMUM_BUCKETS";
+
+    private static final ViewStore viewStore =
+            ViewStores.getInstance();
+
+    private int maximumBuckets;
+
+    @Override
+    public void init() throws ServletException {
+        maximumBuckets = Configuration.getInt(MAXIMUM_BUCKETS, 2000);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest httpServletRequest,
+                         HttpServletResponse httpServletResponse)
+    throws ServletException, IOException {
+        httpServletResponse.setHeader("Access-Control-Allow-Origin", "*" );
+
+        if (!ViewCounterBootstrap.isSchemaReady()) {
+            httpServletResponse.setHeader("Retry-After", "5");
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        RollupGranularity granularity;
+        ZonedDateTime from;
+        ZonedDateTime to;
+
+        try {
+            granularity = RollupGranularity.valueOf(
+                    getParameter(httpServletRequest, "granularity", "day")
+                            .toUpperCase(Locale.ROOT));
+
+            String toString = httpServletRequest.getParameter("to");
+            to = toString == null ?
+                    ZonedDateTime.now(DataAccessObject.ZONE_ID) :
+                    parseTime(toString);
+
+            String fromString = httpServletRequest.getParameter("from");
+            from = fromString != null ?
+                    parseTime(fromString) :
+                    granularity == RollupGranularity.HOUR ?
+                            to.minusHours(48L) :
+                            to.minusDays(30L);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_BAD_REQUEST,
+                    ex.getMessage());
+            return;
+        }
+
+        from = granularity.getBucketStart(from);
+
+        List<ZonedDateTime> bucketStarts = new ArrayList<>();
+
+        for (ZonedDateTime bucketStart = from;
+                bucketStart.isBefore(to);
+                bucketStart = granularity.getNextBucketStart(bucketStart)) {
+            if (bucketStarts.size() == maximumBuckets) {
+                httpServletResponse.sendError(
+                        HttpServletResponse.SC_BAD_REQUEST,
+                        "The range spans more than " + maximumBuckets +
+                                " buckets.");
+                return;
+            }
+
+            bucketStarts.add(bucketStart);
+        }
+
+        List<ViewRollup> viewRollups;
+        HyperLogLog visitorSketch = null;
+
+        try {
+            viewRollups = viewStore.getViewRollups(granularity,
+                                                   from,
+                                                   to,
+                                                   maximumBuckets);
+
+            if (granularity == RollupGranularity.DAY) {
+                visitorSketch = viewStore.getVisitorSketch(granularity,
+                                                           from,
+                                                           to);
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "SQL failed: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (URISyntaxException ex) {
+            LOGGER.log(
+                    Level.SEVERE,
+                    "Bad DB URI: {0}, caused by: {1}",
+                    objects(ex.getMessage(), ex.getCause()));
+
+            httpServletResponse.sendError(
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        ViewHistoryResponseObject viewHistoryResponseObject =
+                new ViewHistoryResponseObject();
+
+        viewHistoryResponseObject.succeeded = true;
+        viewHistoryResponseObject.granularity = granularity.name();
+        viewHistoryResponseObject.from = from.toString();
+        viewHistoryResponseObject.to = to.toString();
+
+        if (visitorSketch != null) {
+            viewHistoryResponseObject.uniqueVisitors = 
+                    visitorSketch.estimate();
+        }
+
+        viewHistoryResponseObject.buckets =
+                new ArrayList<>(bucketStarts.size());
+
+        int rollupIndex = 0;
+
+        for (ZonedDateTime bucketStart : bucketStarts) {
+            ViewHistoryResponseObject.Bucket bucket =
+                    new ViewHistoryResponseObject.Bucket();
+            bucket.bucketStart = bucketStart.toString();
+
+            if (rollupIndex < viewRollups.size() &&
+                    viewRollups.get(rollupIndex)
+                               .bucketStart
+                               .toInstant()
+                               .equals(bucketStart.toInstant())) {
+                ViewRollup viewRollup = viewRollups.get(rollupIndex++);
+                bucket.numberOfViews = viewRollup.numberOfViews;
+                bucket.numberOfVisitors = viewRollup.numberOfVisitors;
+            }
+
+            viewHistoryResponseObject.buckets.add(bucket);
+        }
+
+        httpServletResponse.setContentType("application/json");
+
+        try (PrintWriter printWriter = httpServletResponse.getWriter()) {
+            printWriter.print(GSON.toJson(viewHistoryResponseObject));
+        }
+    }
+
+    private static String getParameter(HttpServletRequest httpServletRequest,
+                                       String name,
+                                       String defaultValue) {
+        String value = httpServletRequest.getParameter(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Parses an ISO-8601 date (taken as the start of the day in
+     * {@link DataAccessObject#ZONE_ID}) or date and time with an offset.
+     */
+    private static ZonedDateTime parseTime(String time) {
+        if (time.indexOf('T') < 0) {
+            return LocalDate.parse(time)
+                            .atStartOfDay(DataAccessObject.ZONE_ID);
+        }
+
+        return OffsetDateTime.parse(time)
+                             .atZoneSameInstant(DataAccessObject.ZONE_ID);
+    }
+}
@@ -0,0 +1,571 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements a durable local journal of views. The views are
+ * appended as variable-length records to memory-mapped segment files of
+ * {@code segmentBytes} bytes each; a segment with no room for the next record
+ * is forced to the disk and a new one is started. The journal is read in the
+ * order of appending from the position saved in a checkpoint file; the
+ * segments read past are deleted.
+ *
+ * <p>A record is laid out as follows:
+ * <pre>
+ *  0      flags, {@code 1} once the record is complete
+ *  1      reserved
+ *  2..3   the length of the payload, unsigned
+ *  4..7   the CRC-32 of the payload
+ *  8..    the payload: the view time in epoch milliseconds, the port, the
+ *         IP-address, the host name, the user agent and the page
+ * </pre>
+ * A string is stored as its length in 2 bytes, -1 for {@code null}, followed
+ * by its UTF-8 bytes. The flags are written last, so a record torn by a crash
+ * reads as the end of its segment; since the operating system may write the
+ * mapped pages back in any order, a record whose payload does not match its
+ * CRC reads as the end of its segment too. The records of the earlier
+ * versions, ending with the host name, are read with no user agent and no
+ * page.
+ *
+ * <p>On opening, the segments left over from the previous run are kept for
+ * reading and the views are appended to a new segment.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class ViewJournal {
+
+    private static final Logger LOGGER =
+            Logger.getLogger(ViewJournal.class.getName());
+
+    /**
+     * The smallest segment size in bytes, fitting the longest record.
+     */
+    static final int MINIMUM_SEGMENT_BYTES = 1 << 17;
+
+    private static final byte COMPLETE = 1;
+    private static final int FLAGS_OFFSET = 0;
+    private static final int PAYLOAD_LENGTH_OFFSET = 2;
+    private static final int CRC_OFFSET = 4;
+    private static final int HEADER_LENGTH = 8;
+    private static final int NULL_STRING_LENGTH = -1;
+
+    // Keeps the payload length of the four strings within 2 bytes:
+    private static final int MAXIMUM_STRING_LENGTH = 16_000;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+    private static final String CHECKPOINT_TEMPORARY_FILE_NAME =
+            "checkpoint.tmp";
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    // The sequence numbers of the segment files:
+    private final NavigableSet<Long> segments =
+            new ConcurrentSkipListSet<>();
+
+    // Guarded by this:
+    private long appendSequence = -1L;
+    private FileChannel appendChannel;
+    private MappedByteBuffer appendBuffer;
+    private int appendPosition;
+
+    // Accessed by the reading thread only:
+    private long readSequence;
+    private int readPosition;
+    private long mappedReadSequence = -1L;
+    private int mappedReadLimit = -1;
+    private boolean readSealed;
+    private ByteBuffer readBuffer;
+
+    private ViewJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed.
+     *
+     * @param directory    the directory of the segment files.
+     * @param segmentBytes the size of a segment in bytes, at least
+     *                     {@link #MINIMUM_SEGMENT_BYTES}.
+     * @return the journal.
+     * @throws java.io.IOException if the journal cannot be opened.
+     */
+    static ViewJournal open(Path directory, int segmentBytes)
+            throws IOException {
+        ViewJournal viewJournal =
+                new ViewJournal(directory,
+                                Math.max(MINIMUM_SEGMENT_BYTES, segmentBytes));
+
+        viewJournal.recover();
+        return viewJournal;
+    }
+
+    /**
+     * Appends the view to the journal.
+     *
+     * @param viewRecord the view to append.
+     * @return {@code true}, since every view fits in a record.
+     * @throws java.io.IOException if a new segment cannot be started.
+     */
+    boolean append(ViewRecord viewRecord) throws IOException {
+        byte[] record = encode(viewRecord);
+
+        synchronized (this) {
+            if (appendPosition + record.length > segmentBytes) {
+                startSegment(appendSequence + 1L);
+            }
+
+            // The buffer position is used by the appending threads only:
+            appendBuffer.position(appendPosition + FLAGS_OFFSET + 1);
+            appendBuffer.put(record, FLAGS_OFFSET + 1, record.length - 1);
+            appendBuffer.put(appendPosition + FLAGS_OFFSET, COMPLETE);
+            appendPosition += record.length;
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the appended records to the disk. The appends are not blocked
+     * while the pages are written.
+     */
+    void force() {
+        MappedByteBuffer buffer;
+
+        synchronized (this) {
+            buffer = appendBuffer;
+        }
+
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Reads at most {@code maximumRecords} views following the read position,
+     * without moving it. Must be called by one thread at a time.
+     *
+     * @param maximumRecords the maximum number of views to read.
+     * @return the views read.
+     * @throws java.io.IOException if a segment cannot be read.
+     */
+    List<ViewRecord> read(int maximumRecords) throws IOException {
+        List<ViewRecord> viewRecords = new ArrayList<>();
+        long sequence = readSequence;
+        int position = readPosition;
+
+        while (viewRecords.size() < maximumRecords) {
+            int limit = mapForReading(sequence);
+
+            while (position < limit && 
+                    viewRecords.size() < maximumRecords) {
+                viewRecords.add(readRecord(readBuffer, position));
+                position += getRecordLength(readBuffer, position);
+            }
+
+            Long nextSequence = segments.higher(sequence);
+
+            if (position < limit || !readSealed || nextSequence == null) {
+                break;
+            }
+
+            // Past the end of a sealed segment:
+            sequence = nextSequence;
+            position = 0;
+        }
+
+        return viewRecords;
+    }
+
+    /**
+     * Moves the read position past {@code numberOfRecords} views, saves it to
+     * the checkpoint file and deletes the segments read past. Must be called
+     * by the thread calling {@link #read(int)}.
+     *
+     * @param numberOfRecords the number of views to skip.
+     * @throws java.io.IOException if the checkpoint cannot be saved.
+     */
+    void advance(int numberOfRecords) throws IOException {
+        while (true) {
+            int limit = mapForReading(readSequence);
+
+            while (numberOfRecords > 0 && readPosition < limit) {
+                readPosition += getRecordLength(readBuffer, readPosition);
+                numberOfRecords--;
+            }
+
+            Long nextSequence = segments.higher(readSequence);
+
+            if (readPosition < limit || 
+                    !readSealed || 
+                    nextSequence == null) {
+                break;
+            }
+
+            readPosition = 0;
+            readSequence = nextSequence;
+        }
+
+        saveCheckpoint();
+        deleteSegmentsBefore(readSequence);
+    }
+
+    /**
+     * Returns the number of the segment files.
+     *
+     * @return the number of the segments.
+     */
+    int getNumberOfSegments() {
+        return segments.size();
+    }
+
+    /**
+     * Writes the appended records to the disk and closes the journal.
+     *
+     * @throws java.io.IOException if closing the active segment fails.
+     */
+    synchronized void close() throws IOException {
+        if (appendBuffer != null) {
+            appendBuffer.force();
+            appendChannel.close();
+            appendBuffer = null;
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> directoryStream =
+                Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : directoryStream) {
+                String fileName = path.getFileName().toString();
+
+                try {
+                    segments.add(Long.parseLong(
+                            fileName.substring(0, fileName.length() -
+                                                  SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    LOGGER.log(Level.WARNING,
+                               "Ignoring {0} in the view journal.",
+                               fileName);
+                }
+            }
+        }
+
+        loadCheckpoint();
+
+        // Read past before the last shutdown:
+        deleteSegmentsBefore(readSequence);
+
+        if (!segments.contains(readSequence)) {
+            Long firstSequence = segments.ceiling(readSequence);
+            readSequence = firstSequence == null ? readSequence : firstSequence;
+            readPosition = 0;
+        }
+
+        long unreadRecords = 0L;
+
+        for (Long sequence : segments) {
+            int limit = mapForReading(sequence);
+            int position = sequence == readSequence ? readPosition : 0;
+
+            while (position < limit) {
+                position += getRecordLength(readBuffer, position);
+                unreadRecords++;
+            }
+        }
+
+        long lastSequence = segments.isEmpty() ?
+                readSequence - 1L :
+                segments.last();
+
+        startSegment(Math.max(lastSequence + 1L, readSequence));
+
+        if (unreadRecords > 0L) {
+            LOGGER.log(
+                    Level.INFO,
+                    "Recovered {0} unshipped views from the view journal " +
+                            "in {1}.",
+                    objects(unreadRecords, directory));
+        }
+    }
+
+    /**
+     * Forces and closes the active segment, if any, and starts the segment
+     * {@code sequence}.
+     */
+    private void startSegment(long sequence) throws IOException {
+        if (appendBuffer != null) {
+            appendBuffer.force();
+            appendChannel.close();
+        }
+
+        Path path = getSegmentPath(sequence);
+        appendChannel = FileChannel.open(path,
+                                         StandardOpenOption.CREATE_NEW,
+                                         StandardOpenOption.READ,
+                                         StandardOpenOption.WRITE);
+        appendBuffer =
+                appendChannel.map(FileChannel.MapMode.READ_WRITE,
+                                  0L,
+                                  segmentBytes);
+
+        // Publishes the segment to the reader only once it is complete:
+        appendSequence = sequence;
+        appendPosition = 0;
+        segments.add(sequence);
+    }
+
+    /**
+     * Points {@code readBuffer} to the segment and returns the position past
+     * the complete records in it. A sealed segment is mapped and scanned 
+     * once.
+     */
+    private int mapForReading(long sequence) throws IOException {
+        synchronized (this) {
+            if (sequence == appendSequence) {
+                if (sequence != mappedReadSequence) {
+                    readBuffer = appendBuffer.duplicate();
+                    mappedReadSequence = sequence;
+                }
+
+                // Scan again once sealed:
+                mappedReadLimit = -1;
+                readSealed = false;
+                return appendPosition;
+            }
+        }
+
+        readSealed = true;
+
+        if (sequence != mappedReadSequence) {
+            try (FileChannel fileChannel =
+                    FileChannel.open(getSegmentPath(sequence),
+                                     StandardOpenOption.READ)) {
+                readBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY,
+                                             0L,
+                                             fileChannel.size());
+            }
+
+            mappedReadSequence = sequence;
+            mappedReadLimit = -1;
+        }
+
+        if (mappedReadLimit < 0) {
+            int position = 0;
+
+            while (isComplete(readBuffer, position)) {
+                position += getRecordLength(readBuffer, position);
+            }
+
+            mappedReadLimit = position;
+        }
+
+        return mappedReadLimit;
+    }
+
+    private void deleteSegmentsBefore(long sequence) {
+        for (Long segment : segments.headSet(sequence, false)) {
+            segments.remove(segment);
+
+            try {
+                Files.deleteIfExists(getSegmentPath(segment));
+            } catch (IOException ex) {
+                LOGGER.log(
+                        Level.WARNING,
+                        "Could not delete the journal segment {0}: {1}",
+                        objects(segment, ex.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Encodes the view into a record with the flags cleared.
+     */
+    private static byte[] encode(ViewRecord viewRecord) {
+        byte[] ipAddress = encode(viewRecord.getIPAddress());
+        byte[] hostName = encode(viewRecord.getHostName());
+        byte[] userAgent = encode(viewRecord.getUserAgent());
+        byte[] page = encode(viewRecord.getPage());
+        int payloadLength = 8 + 2 +
+                            getEncodedLength(ipAddress) +
+                            getEncodedLength(hostName) +
+                            getEncodedLength(userAgent) +
+                            getEncodedLength(page);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_LENGTH + payloadLength);
+        record.putShort(PAYLOAD_LENGTH_OFFSET, (short) payloadLength);
+        record.position(HEADER_LENGTH);
+        record.putLong(viewRecord.getViewTimeMillis());
+        record.putShort((short) viewRecord.getPort());
+        putString(record, ipAddress);
+        putString(record, hostName);
+        putString(record, userAgent);
+        putString(record, page);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_LENGTH, payloadLength);
+        record.putInt(CRC_OFFSET, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Returns {@code true} if a complete record, matching its CRC, starts at
+     * {@code position}.
+     */
+    private static boolean isComplete(ByteBuffer buffer, int position) {
+        if (position + HEADER_LENGTH > buffer.capacity() ||
+                buffer.get(position + FLAGS_OFFSET) != COMPLETE) {
+            return false;
+        }
+
+        int recordLength = getRecordLength(buffer, position);
+
+        if (position + recordLength > buffer.capacity()) {
+            return false;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(position + recordLength);
+        payload.position(position + HEADER_LENGTH);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(position + CRC_OFFSET);
+    }
+
+    private static int getRecordLength(ByteBuffer buffer, int position) {
+        return HEADER_LENGTH + Short.toUnsignedInt(
+                buffer.getShort(position + PAYLOAD_LENGTH_OFFSET));
+    }
+
+    private static ViewRecord readRecord(ByteBuffer buffer, int position) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(position + getRecordLength(buffer, position));
+        record.position(position + HEADER_LENGTH);
+
+        long viewTimeMillis = record.getLong();
+        int port = Short.toUnsignedInt(record.getShort());
+        String ipAddress = getString(record);
+        String hostName = getString(record);
+
+        if (!record.hasRemaining()) {
+            // Journaled by an earlier version:
+            return new ViewRecord(ipAddress, hostName, port, viewTimeMillis);
+        }
+
+        String userAgent = getString(record);
+        String page = getString(record);
+
+        return new ViewRecord(ipAddress, 
+                              hostName, 
+                              port, 
+                              viewTimeMillis, 
+                              userAgent, 
+                              page);
+    }
+
+    private static byte[] encode(String string) {
+        if (string == null) {
+            return null;
+        }
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAXIMUM_STRING_LENGTH ?
+                Arrays.copyOf(bytes, MAXIMUM_STRING_LENGTH) :
+                bytes;
+    }
+
+    private static int getEncodedLength(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer byteBuffer, byte[] bytes) {
+        if (bytes == null) {
+            byteBuffer.putShort((short) NULL_STRING_LENGTH);
+            return;
+        }
+
+        byteBuffer.putShort((short) bytes.length);
+        byteBuffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer byteBuffer) {
+        int length = byteBuffer.getShort();
+
+        if (length == NULL_STRING_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        byteBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE_NAME);
+
+        if (!Files.exists(path)) {
+            readSequence = segments.isEmpty() ? 0L : segments.first();
+            readPosition = 0;
+            return;
+        }
+
+        ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(path));
+        readSequence = checkpoint.getLong();
+        readPosition = checkpoint.getInt();
+    }
+
+    /**
+     * Replaces the checkpoint file atomically with the read position.
+     */
+    private void saveCheckpoint() throws IOException {
+        Path temporaryPath = directory.resolve(CHECKPOINT_TEMPORARY_FILE_NAME);
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        checkpoint.putLong(readSequence).putInt(readPosition).flip();
+
+        try (FileChannel fileChannel =
+                FileChannel.open(temporaryPath,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.WRITE)) {
+            while (checkpoint.hasRemaining()) {
+                fileChannel.write(checkpoint);
+            }
+
+            fileChannel.force(true);
+        }
+
+        Files.move(temporaryPath,
+                   directory.resolve(CHECKPOINT_FILE_NAME),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path getSegmentPath(long sequence) {
+        return directory.resolve(String.format("%020d", sequence) +
+                                 SEGMENT_SUFFIX);
+    }
+}
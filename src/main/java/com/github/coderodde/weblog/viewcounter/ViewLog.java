@@ -0,0 +1,463 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements an append-only log of views in a directory of 
+ * memory-mapped segment files. A segment starts with a header of a magic 
+ * number and the format version, followed by the records, each prefixed with
+ * the length of its payload and followed by the CRC-32 of the payload. The 
+ * payload holds the view time, the port, the IP-address, the host name and
+ * the page. The mapping of a segment is doubled in size whenever a record
+ * does not fit, up to the maximum segment size; the next record then starts
+ * a new segment, so that the log is never full.
+ *
+ * <p>The length of a record is written after its payload and its checksum,
+ * and the length slot of the next record is cleared before that, so that a
+ * record torn by a crash reads as the end of the segment. A record whose 
+ * checksum does not match ends its segment too; it is logged, and if it is in
+ * the last segment, the appends go to a new segment so that nothing after it
+ * is overwritten. The records reach the disk when the operating system writes
+ * the mapped pages back or when {@link #force()} is called.
+ *
+ * <p>The single {@code views.log} file of the format version 1, whose records
+ * have no checksums, is replayed before the segments and never appended to.
+ *
+ * <p>Not thread-safe.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class ViewLog {
+
+    private static final Logger LOGGER = 
+            Logger.getLogger(ViewLog.class.getName());
+
+    /**
+     * The version of the log format.
+     */
+    static final int VERSION = 2;
+
+    private static final int UNCHECKED_VERSION = 1;
+    private static final int MAGIC = 0x57564C47; // "WVLG"
+    private static final int HEADER_LENGTH = 8;
+    private static final int LENGTH_SLOT = 4;
+    private static final int CHECKSUM_SLOT = 4;
+    private static final int NULL_STRING_LENGTH = -1;
+    private static final int MINIMUM_SEGMENT_SIZE = 1024 * 1024;
+
+    private static final String UNCHECKED_LOG_FILE_NAME = "views.log";
+    private static final Pattern SEGMENT_FILE_NAME = 
+            Pattern.compile("views-(\\d+)\\.log");
+
+    private final Path directory;
+    private final int initialSize;
+    private final int maximumSegmentSize;
+    private final CRC32 crc32 = new CRC32();
+
+    private long segmentNumber;
+    private FileChannel fileChannel;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    private ViewLog(Path directory, int initialSize, int maximumSegmentSize) {
+        this.directory = directory;
+        this.maximumSegmentSize = Math.max(maximumSegmentSize, 
+                                           MINIMUM_SEGMENT_SIZE);
+        this.initialSize = Math.min(Math.max(initialSize, HEADER_LENGTH * 2),
+                                    this.maximumSegmentSize);
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating it if it does not exist. 
+     * The records already in the log are passed to {@code consumer} in the 
+     * order they were appended.
+     *
+     * @param directory          the directory of the log.
+     * @param initialSize        the initial size of the mapping of a segment.
+     * @param maximumSegmentSize the size of a segment at which the appends go
+     *                           to a new segment.
+     * @param consumer           the consumer of the records in the log.
+     * @return the opened log positioned after its last record.
+     * @throws java.io.IOException if the log cannot be read or is not a view
+     *                             log.
+     */
+    static ViewLog open(Path directory,
+                        int initialSize,
+                        int maximumSegmentSize,
+                        Consumer<ViewRecord> consumer) throws IOException {
+        ViewLog viewLog = new ViewLog(directory, 
+                                      initialSize, 
+                                      maximumSegmentSize);
+
+        try {
+            Path uncheckedLogFile = directory.resolve(UNCHECKED_LOG_FILE_NAME);
+
+            if (Files.exists(uncheckedLogFile)) {
+                viewLog.openSegment(uncheckedLogFile, consumer);
+                viewLog.closeSegment();
+            }
+
+            List<Long> segmentNumbers = listSegmentNumbers(directory);
+
+            for (int i = 0; i < segmentNumbers.size(); i++) {
+                viewLog.segmentNumber = segmentNumbers.get(i);
+
+                boolean cleanEnd = 
+                        viewLog.openSegment(
+                                viewLog.getSegmentFile(viewLog.segmentNumber),
+                                consumer);
+
+                if (i < segmentNumbers.size() - 1 || !cleanEnd) {
+                    viewLog.closeSegment();
+                }
+            }
+
+            if (viewLog.fileChannel == null) {
+                viewLog.startSegment(viewLog.segmentNumber + 1);
+            }
+
+            return viewLog;
+        } catch (IOException | RuntimeException ex) {
+            viewLog.closeSegment();
+            throw ex;
+        }
+    }
+
+    /**
+     * Appends the view to the log.
+     *
+     * @param viewRecord the view to append.
+     * @throws java.io.IOException if the log cannot be grown.
+     */
+    void append(ViewRecord viewRecord) throws IOException {
+        byte[] ipAddress = encode(viewRecord.getIPAddress());
+        byte[] hostName = encode(viewRecord.getHostName());
+        byte[] page = encode(viewRecord.getPage());
+        int payloadLength = 8 + 4 +
+                            getEncodedLength(ipAddress) +
+                            getEncodedLength(hostName) +
+                            getEncodedLength(page);
+
+        int recordLength = LENGTH_SLOT + payloadLength + CHECKSUM_SLOT;
+
+        if ((long) position + recordLength + LENGTH_SLOT > 
+                maximumSegmentSize) {
+            rotate();
+        }
+
+        ensureCapacity((long) position + recordLength + LENGTH_SLOT);
+
+        int payloadPosition = position + LENGTH_SLOT;
+        int nextPosition = position + recordLength;
+
+        ByteBuffer record = buffer.duplicate();
+        record.position(payloadPosition);
+        record.putLong(viewRecord.getViewTimeMillis());
+        record.putInt(viewRecord.getPort());
+        putString(record, ipAddress);
+        putString(record, hostName);
+        putString(record, page);
+        record.putInt(getChecksum(payloadPosition, payloadLength));
+
+        // Commit the record only once its successor reads as the end:
+        buffer.putInt(nextPosition, 0);
+        buffer.putInt(position, payloadLength);
+        position = nextPosition;
+    }
+
+    /**
+     * Writes the appended records to the disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Writes the appended records to the disk and closes the log.
+     *
+     * @throws java.io.IOException if closing the file fails.
+     */
+    void close() throws IOException {
+        force();
+        fileChannel.close();
+        fileChannel = null;
+    }
+
+    /**
+     * Maps the segment and replays its records. Returns {@code true} if the
+     * segment ended cleanly, i.e., not at a record failing the checksum, and
+     * can be appended to.
+     */
+    private boolean openSegment(Path file, Consumer<ViewRecord> consumer) 
+            throws IOException {
+        fileChannel = FileChannel.open(file,
+                                       StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE);
+
+        long fileSize = fileChannel.size();
+
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("The view log " + file + " is too large.");
+        }
+
+        buffer = map(fileChannel, (int) Math.max(fileSize, initialSize));
+        position = HEADER_LENGTH;
+
+        if (fileSize == 0L) {
+            // Created, but the header was not written:
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            return true;
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a view log.");
+        }
+
+        int version = buffer.getInt(4);
+
+        if (version == VERSION) {
+            return replay(file, consumer);
+        } else if (version == UNCHECKED_VERSION) {
+            replayUnchecked(consumer);
+            return false;
+        }
+
+        throw new IOException(file + " is a view log of unknown version " +
+                              version + ".");
+    }
+
+    /**
+     * Starts a new empty segment.
+     */
+    private void startSegment(long segmentNumber) throws IOException {
+        Path file = getSegmentFile(segmentNumber);
+
+        fileChannel = FileChannel.open(file,
+                                       StandardOpenOption.CREATE_NEW,
+                                       StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE);
+        buffer = map(fileChannel, initialSize);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        position = HEADER_LENGTH;
+        this.segmentNumber = segmentNumber;
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        startSegment(segmentNumber + 1);
+    }
+
+    /**
+     * Writes the segment to the disk and closes it. The mapping is released
+     * once garbage collected.
+     */
+    private void closeSegment() throws IOException {
+        if (fileChannel == null) {
+            return;
+        }
+
+        try {
+            buffer.force();
+        } finally {
+            fileChannel.close();
+            fileChannel = null;
+        }
+    }
+
+    private boolean replay(Path file, Consumer<ViewRecord> consumer) {
+        ByteBuffer record = buffer.duplicate();
+
+        while (position + LENGTH_SLOT <= buffer.capacity()) {
+            int payloadLength = buffer.getInt(position);
+
+            if (payloadLength == 0) {
+                // The end of the segment:
+                return true;
+            }
+
+            int payloadPosition = position + LENGTH_SLOT;
+            int remaining = buffer.capacity() - payloadPosition;
+
+            if (payloadLength < 0 || 
+                    payloadLength > remaining - CHECKSUM_SLOT ||
+                    buffer.getInt(payloadPosition + payloadLength) != 
+                    getChecksum(payloadPosition, payloadLength)) {
+                // A torn or a corrupt record:
+                LOGGER.log(
+                        Level.WARNING, 
+                        "The view log {0} ends at a bad record at {1}.", 
+                        objects(file, position));
+                return false;
+            }
+
+            record.limit(payloadPosition + payloadLength);
+            record.position(payloadPosition);
+            consumer.accept(getViewRecord(record));
+            position = payloadPosition + payloadLength + CHECKSUM_SLOT;
+        }
+
+        return true;
+    }
+
+    private void replayUnchecked(Consumer<ViewRecord> consumer) {
+        ByteBuffer record = buffer.duplicate();
+
+        while (position + LENGTH_SLOT <= buffer.capacity()) {
+            int payloadLength = buffer.getInt(position);
+
+            int remaining = buffer.capacity() - position - LENGTH_SLOT;
+
+            if (payloadLength <= 0 || payloadLength > remaining) {
+                // The end of the log, or a torn record:
+                break;
+            }
+
+            record.limit(position + LENGTH_SLOT + payloadLength);
+            record.position(position + LENGTH_SLOT);
+
+            ViewRecord viewRecord;
+
+            try {
+                viewRecord = getViewRecord(record);
+            } catch (BufferUnderflowException |
+                     NegativeArraySizeException ex) {
+                // Garbage past the end of the log:
+                break;
+            }
+
+            consumer.accept(viewRecord);
+
+            position += LENGTH_SLOT + payloadLength;
+        }
+    }
+
+    private int getChecksum(int payloadPosition, int payloadLength) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(payloadPosition + payloadLength);
+        payload.position(payloadPosition);
+
+        crc32.reset();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    private void ensureCapacity(long capacity) throws IOException {
+        if (capacity <= buffer.capacity()) {
+            return;
+        }
+
+        long newCapacity = Math.min(Math.max(2L * buffer.capacity(), capacity),
+                                    maximumSegmentSize);
+
+        // The old mapping is released once garbage collected:
+        buffer.force();
+        buffer = map(fileChannel, (int) newCapacity);
+    }
+
+    private Path getSegmentFile(long segmentNumber) {
+        return directory.resolve(
+                String.format("views-%06d.log", segmentNumber));
+    }
+
+    private static List<Long> listSegmentNumbers(Path directory) 
+            throws IOException {
+        List<Long> segmentNumbers = new ArrayList<>();
+
+        try (DirectoryStream<Path> directoryStream = 
+                Files.newDirectoryStream(directory)) {
+            for (Path file : directoryStream) {
+                Matcher matcher = 
+                        SEGMENT_FILE_NAME.matcher(file.getFileName()
+                                                      .toString());
+
+                if (matcher.matches()) {
+                    segmentNumbers.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+
+        Collections.sort(segmentNumbers);
+        return segmentNumbers;
+    }
+
+    private static ViewRecord getViewRecord(ByteBuffer record) {
+        long viewTimeMillis = record.getLong();
+        int port = record.getInt();
+        String ipAddress = getString(record);
+        String hostName = getString(record);
+        String page = record.hasRemaining() ? getString(record) : null;
+
+        return new ViewRecord(ipAddress,
+                              hostName,
+                              port,
+                              viewTimeMillis,
+                              null,
+                              page);
+    }
+
+    private static MappedByteBuffer map(FileChannel fileChannel, int size)
+            throws IOException {
+        return fileChannel.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+    }
+
+    private static byte[] encode(String string) {
+        if (string == null) {
+            return null;
+        }
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > Short.MAX_VALUE ?
+                Arrays.copyOf(bytes, Short.MAX_VALUE) :
+                bytes;
+    }
+
+    private static int getEncodedLength(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer byteBuffer, byte[] bytes) {
+        if (bytes == null) {
+            byteBuffer.putShort((short) NULL_STRING_LENGTH);
+            return;
+        }
+
+        byteBuffer.putShort((short) bytes.length);
+        byteBuffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer byteBuffer) {
+        int length = byteBuffer.getShort();
+
+        if (length == NULL_STRING_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        byteBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
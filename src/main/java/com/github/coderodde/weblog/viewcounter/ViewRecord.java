@@ -0,0 +1,124 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * This class holds the data of a single view to be recorded.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class ViewRecord {
+
+    private final String ipAddress;
+    private final String hostName;
+    private final int port;
+    private final long viewTimeMillis;
+    private final String userAgent;
+    private final String page;
+
+    public ViewRecord(String ipAddress, 
+                      String hostName, 
+                      int port, 
+                      long viewTimeMillis) {
+        this(ipAddress, hostName, port, viewTimeMillis, null);
+    }
+
+    public ViewRecord(String ipAddress, 
+                      String hostName, 
+                      int port, 
+                      long viewTimeMillis,
+                      String userAgent) {
+        this(ipAddress, hostName, port, viewTimeMillis, userAgent, null);
+    }
+
+    public ViewRecord(String ipAddress, 
+                      String hostName, 
+                      int port, 
+                      long viewTimeMillis,
+                      String userAgent,
+                      String page) {
+        this.ipAddress = IPAddresses.canonicalize(ipAddress);
+        this.hostName = hostName;
+        this.port = port;
+        this.viewTimeMillis = viewTimeMillis;
+        this.userAgent = userAgent;
+        this.page = page;
+    }
+
+    /**
+     * Returns the record of a view being made now via 
+     * {@code httpServletRequest}.
+     * 
+     * @param httpServletRequest the request object.
+     * @return the view record.
+     */
+    public static ViewRecord of(HttpServletRequest httpServletRequest) {
+        return new ViewRecord(IPAddresses.getIPAddress(httpServletRequest),
+                              httpServletRequest.getRemoteHost(),
+                              httpServletRequest.getRemotePort(),
+                              System.currentTimeMillis(),
+                              httpServletRequest.getHeader("User-Agent"));
+    }
+
+    /**
+     * Returns the record of a view of {@code page} being made now via 
+     * {@code httpServletRequest}.
+     * 
+     * @param httpServletRequest the request object.
+     * @param page               the page viewed.
+     * @return the view record.
+     */
+    public static ViewRecord of(HttpServletRequest httpServletRequest, 
+                                String page) {
+        return new ViewRecord(IPAddresses.getIPAddress(httpServletRequest),
+                              httpServletRequest.getRemoteHost(),
+                              httpServletRequest.getRemotePort(),
+                              System.currentTimeMillis(),
+                              httpServletRequest.getHeader("User-Agent"),
+                              page);
+    }
+
+    /**
+     * Returns the IP-address of the visitor in the canonical form of
+     * {@link IPAddresses#canonicalize(java.lang.String)}, the key of the
+     * visitor everywhere.
+     * 
+     * @return the canonical IP-address.
+     */
+    public String getIPAddress() {
+        return ipAddress;
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long getViewTimeMillis() {
+        return viewTimeMillis;
+    }
+
+    /**
+     * Returns the user agent of the visitor. Not stored in the database.
+     * 
+     * @return the user agent or {@code null} if not known.
+     */
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * Returns the page viewed.
+     * 
+     * @return the page or {@code null} if the view is not attributed to a 
+     *         page.
+     */
+    public String getPage() {
+        return page;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.time.ZonedDateTime;
+
+/**
+ * This POJO class type holds the number of views and distinct visitors in a 
+ * rollup bucket.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class ViewRollup {
+
+    /**
+     * The start of the bucket.
+     */
+    public ZonedDateTime bucketStart;
+
+    /**
+     * The number of views in the bucket.
+     */
+    public long numberOfViews;
+
+    /**
+     * The number of distinct visitors in the bucket.
+     */
+    public long numberOfVisitors;
+}
@@ -0,0 +1,87 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.time.ZonedDateTime;
+
+/**
+ * This POJO class type holds the view statistics reported to a visitor.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class ViewStatistics {
+
+    /**
+     * The total number of views including the view being recorded.
+     */
+    public long numberOfTotalViews;
+    
+    /**
+     * The number of views of the visitor including the view being recorded.
+     */
+    public long numberOfVisitorsViews;
+    
+    /**
+     * The time of the most recent view preceding the view being recorded, or
+     * {@code null} if there is none.
+     */
+    public ZonedDateTime mostRecentViewTime;
+    
+    /**
+     * The time of the most recent view of the visitor preceding the view being
+     * recorded, or {@code null} if there is none.
+     */
+    public ZonedDateTime visitorsMostRecentViewTime;
+
+    /**
+     * The estimated number of distinct visitors including the one making the
+     * view being recorded, or {@code null} if not known.
+     */
+    public Long numberOfUniqueVisitors;
+
+    /**
+     * The view statistics of the page of the view being recorded, or 
+     * {@code null} if the view has no page.
+     */
+    public PageViewStatistics pageViewStatistics;
+
+    /**
+     * Copies this statistics into the response object.
+     * 
+     * @param jsonResponseObject the target response object.
+     */
+    public void copyTo(JSONResponseObject jsonResponseObject) {
+        jsonResponseObject.numberOfTotalViews = numberOfTotalViews;
+        jsonResponseObject.numberOfVisitorsViews = numberOfVisitorsViews;
+        jsonResponseObject.uniqueVisitors = numberOfUniqueVisitors;
+        
+        if (mostRecentViewTime != null) {
+            jsonResponseObject.mostRecentViewTime = 
+                    mostRecentViewTime.toString();
+        }
+        
+        if (visitorsMostRecentViewTime != null) {
+            jsonResponseObject.visitorsMostRecentViewTime = 
+                    visitorsMostRecentViewTime.toString();
+        }
+
+        if (pageViewStatistics != null) {
+            jsonResponseObject.numberOfPageViews = 
+                    pageViewStatistics.numberOfPageViews;
+            jsonResponseObject.numberOfVisitorsPageViews = 
+                    pageViewStatistics.numberOfVisitorsPageViews;
+
+            if (pageViewStatistics.mostRecentPageViewTime != null) {
+                jsonResponseObject.mostRecentPageViewTime = 
+                        pageViewStatistics.mostRecentPageViewTime.toString();
+            }
+
+            if (pageViewStatistics.visitorsMostRecentPageViewTime != null) {
+                jsonResponseObject.visitorsMostRecentPageViewTime = 
+                        pageViewStatistics
+                                .visitorsMostRecentPageViewTime
+                                .toString();
+            }
+        }
+    }
+}
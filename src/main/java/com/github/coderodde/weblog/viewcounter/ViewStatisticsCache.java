@@ -0,0 +1,360 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class caches the view statistics in memory. The total number of views
+ * is kept in a {@link LongAdder} and the statistics of the most recently seen
+ * visitors in a number of size-capped LRU maps, each guarded by its own lock,
+ * so that concurrent views rarely contend.
+ *
+ * <p>The cache only reflects the views recorded through it; it is warmed from
+ * the database once and stays consistent with it as long as this process is
+ * the only writer.
+ *
+ * <p>A visitor with views queued for writing but not yet written is never 
+ * dropped: if evicted, it is pinned until its views are written, since the
+ * database would not count them if the visitor were loaded again.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class ViewStatisticsCache {
+
+    /**
+     * Denotes the absence of a view time.
+     */
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private final LongAdder totalViews = new LongAdder();
+    private final AtomicLong mostRecentViewTimeMillis = new AtomicLong(NO_TIME);
+    private final Stripe[] stripes;
+    private final Map<String, Visitor> pinnedVisitors = 
+            new ConcurrentHashMap<>();
+    private volatile boolean warm;
+
+    ViewStatisticsCache(int maximumVisitors, int stripeCount) {
+        stripeCount = Math.max(1, stripeCount);
+        int stripeCapacity = Math.max(1, maximumVisitors / stripeCount);
+        stripes = new Stripe[stripeCount];
+
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeCapacity, pinnedVisitors);
+        }
+    }
+
+    /**
+     * Returns {@code true} once the totals have been loaded.
+     *
+     * @return {@code true} if the cache is warm.
+     */
+    boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Loads the totals into this cache and marks it warm.
+     *
+     * @param viewTotals the view statistics with the totals filled in.
+     */
+    void warm(ViewStatistics viewTotals) {
+        totalViews.reset();
+        totalViews.add(viewTotals.numberOfTotalViews);
+        mostRecentViewTimeMillis.set(
+                toMillis(viewTotals.mostRecentViewTime));
+        warm = true;
+    }
+
+    /**
+     * Returns the cached statistics of the visitor or {@code null} if the
+     * visitor is not cached.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @return the cached visitor or {@code null}.
+     */
+    Visitor getVisitor(String ipAddress) {
+        return getVisitor(ipAddress, false);
+    }
+
+    /**
+     * Returns the cached statistics of the visitor or {@code null} if the
+     * visitor is not cached. If {@code unwritten} is {@code true}, a view of
+     * the visitor is about to be queued for writing; the visitor then stays
+     * cached until {@link #countWritten(String)} is called for the view.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @param unwritten whether to count in an unwritten view.
+     * @return the cached visitor or {@code null}.
+     */
+    Visitor getVisitor(String ipAddress, boolean unwritten) {
+        Stripe stripe = getStripe(ipAddress);
+
+        synchronized (stripe) {
+            Visitor visitor = getOrUnpin(stripe, ipAddress);
+
+            if (visitor != null && unwritten) {
+                visitor.addUnwrittenView();
+            }
+
+            return visitor;
+        }
+    }
+
+    /**
+     * Caches the statistics of the visitor unless already cached.
+     *
+     * @param ipAddress         the IP-address of the visitor.
+     * @param visitorStatistics the statistics with the visitor's fields filled
+     *                          in.
+     * @return the cached visitor.
+     */
+    Visitor putVisitorIfAbsent(String ipAddress,
+                               ViewStatistics visitorStatistics) {
+        return putVisitorIfAbsent(ipAddress, visitorStatistics, false);
+    }
+
+    /**
+     * Caches the statistics of the visitor unless already cached. See
+     * {@link #getVisitor(String, boolean)} for {@code unwritten}.
+     *
+     * @param ipAddress         the IP-address of the visitor.
+     * @param visitorStatistics the statistics with the visitor's fields filled
+     *                          in.
+     * @param unwritten         whether to count in an unwritten view.
+     * @return the cached visitor.
+     */
+    Visitor putVisitorIfAbsent(String ipAddress,
+                               ViewStatistics visitorStatistics,
+                               boolean unwritten) {
+        Stripe stripe = getStripe(ipAddress);
+
+        synchronized (stripe) {
+            Visitor visitor = getOrUnpin(stripe, ipAddress);
+
+            if (visitor == null) {
+                visitor = new Visitor(
+                        visitorStatistics.numberOfVisitorsViews,
+                        toMillis(visitorStatistics.visitorsMostRecentViewTime));
+
+                stripe.put(ipAddress, visitor);
+            }
+
+            if (unwritten) {
+                visitor.addUnwrittenView();
+            }
+
+            return visitor;
+        }
+    }
+
+    /**
+     * Marks an unwritten view of the visitor as written, or dropped, so that
+     * the visitor may be evicted once all its views are written.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     */
+    void countWritten(String ipAddress) {
+        Stripe stripe = getStripe(ipAddress);
+        Visitor visitor;
+
+        synchronized (stripe) {
+            visitor = stripe.get(ipAddress);
+        }
+
+        if (visitor == null) {
+            visitor = pinnedVisitors.get(ipAddress);
+        }
+
+        if (visitor == null) {
+            return;
+        }
+
+        synchronized (visitor) {
+            if (visitor.unwrittenViewCount > 0L && 
+                    --visitor.unwrittenViewCount == 0L) {
+                pinnedVisitors.remove(ipAddress, visitor);
+            }
+        }
+    }
+
+    /**
+     * Marks the unwritten views as written.
+     *
+     * @param viewRecords the views written or dropped.
+     */
+    void countWritten(List<ViewRecord> viewRecords) {
+        for (ViewRecord viewRecord : viewRecords) {
+            countWritten(viewRecord.getIPAddress());
+        }
+    }
+
+    /**
+     * Counts in the view and returns the resulting statistics: the counts
+     * include the view, the view times are the ones preceding it.
+     *
+     * @param visitor    the cached visitor making the view.
+     * @param viewRecord the view.
+     * @return the view statistics of the visitor.
+     */
+    ViewStatistics recordView(Visitor visitor, ViewRecord viewRecord) {
+        long viewTimeMillis = viewRecord.getViewTimeMillis();
+        ViewStatistics viewStatistics = new ViewStatistics();
+
+        totalViews.increment();
+        viewStatistics.numberOfTotalViews = totalViews.sum();
+        viewStatistics.mostRecentViewTime =
+                toZonedDateTime(
+                        mostRecentViewTimeMillis.getAndAccumulate(
+                                viewTimeMillis,
+                                Math::max));
+
+        synchronized (visitor) {
+            viewStatistics.numberOfVisitorsViews = ++visitor.viewCount;
+            viewStatistics.visitorsMostRecentViewTime =
+                    toZonedDateTime(visitor.lastViewTimeMillis);
+
+            visitor.lastViewTimeMillis =
+                    Math.max(visitor.lastViewTimeMillis, viewTimeMillis);
+        }
+
+        return viewStatistics;
+    }
+
+    /**
+     * Counts in the view written to the database past this cache. The 
+     * statistics of the visitor are updated only if the visitor is cached.
+     *
+     * @param viewRecord the view.
+     */
+    void countIn(ViewRecord viewRecord) {
+        Visitor visitor = getVisitor(viewRecord.getIPAddress());
+
+        if (visitor != null) {
+            recordView(visitor, viewRecord);
+            return;
+        }
+
+        totalViews.increment();
+        mostRecentViewTimeMillis.accumulateAndGet(
+                viewRecord.getViewTimeMillis(), 
+                Math::max);
+    }
+
+    /**
+     * Returns the current statistics of the visitor without counting a view.
+     *
+     * @param visitor the cached visitor.
+     * @return the view statistics of the visitor.
+     */
+    ViewStatistics getViewStatistics(Visitor visitor) {
+        ViewStatistics viewStatistics = new ViewStatistics();
+        viewStatistics.numberOfTotalViews = totalViews.sum();
+        viewStatistics.mostRecentViewTime =
+                toZonedDateTime(mostRecentViewTimeMillis.get());
+
+        synchronized (visitor) {
+            viewStatistics.numberOfVisitorsViews = visitor.viewCount;
+            viewStatistics.visitorsMostRecentViewTime =
+                    toZonedDateTime(visitor.lastViewTimeMillis);
+        }
+
+        return viewStatistics;
+    }
+
+    /**
+     * Returns the visitor in the stripe, moving it back from the pinned 
+     * visitors if evicted. Called while holding the monitor of the stripe.
+     */
+    private Visitor getOrUnpin(Stripe stripe, String ipAddress) {
+        Visitor visitor = stripe.get(ipAddress);
+
+        if (visitor == null) {
+            visitor = pinnedVisitors.remove(ipAddress);
+
+            if (visitor != null) {
+                stripe.put(ipAddress, visitor);
+            }
+        }
+
+        return visitor;
+    }
+
+    private Stripe getStripe(String ipAddress) {
+        int hash = ipAddress.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private static long toMillis(ZonedDateTime zonedDateTime) {
+        return zonedDateTime == null ?
+                NO_TIME :
+                zonedDateTime.toInstant().toEpochMilli();
+    }
+
+    private static ZonedDateTime toZonedDateTime(long millis) {
+        return millis == NO_TIME ?
+                null :
+                ZonedDateTime.ofInstant(
+                        Instant.ofEpochMilli(millis),
+                        DataAccessObject.ZONE_ID);
+    }
+
+    /**
+     * The cached statistics of a single visitor.
+     */
+    static final class Visitor {
+        private long viewCount;
+        private long lastViewTimeMillis;
+        private long unwrittenViewCount;
+
+        Visitor(long viewCount, long lastViewTimeMillis) {
+            this.viewCount = viewCount;
+            this.lastViewTimeMillis = lastViewTimeMillis;
+        }
+
+        synchronized void addUnwrittenView() {
+            unwrittenViewCount++;
+        }
+    }
+
+    /**
+     * A size-capped LRU map. Accessed only while holding its monitor. The 
+     * evicted visitors with unwritten views are moved to the pinned visitors.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Visitor> {
+
+        private final int capacity;
+        private final Map<String, Visitor> pinnedVisitors;
+
+        Stripe(int capacity, Map<String, Visitor> pinnedVisitors) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.pinnedVisitors = pinnedVisitors;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Visitor> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+
+            Visitor visitor = eldest.getValue();
+
+            synchronized (visitor) {
+                if (visitor.unwrittenViewCount > 0L) {
+                    pinnedVisitors.put(eldest.getKey(), visitor);
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface defines the storage of the views and of the counters derived
+ * from them. The implementations are {@link DataAccessObject}, storing into
+ * MySQL, and an embedded store keeping the views in a local log; the one in
+ * use is returned by {@link ViewStores#getInstance()}.
+ *
+ * <p>A failure of the storage is reported as a {@link SQLException} by all
+ * the implementations.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public interface ViewStore {
+
+    /**
+     * Prepares the store for use, e.g., brings the database schema up to date.
+     * Must be called before any other operation.
+     *
+     * @return the version of the storage format.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    int migrateSchema() throws SQLException, URISyntaxException;
+
+    /**
+     * Adds a new view.
+     *
+     * @param viewRecord the view to add.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    void addView(ViewRecord viewRecord)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Adds a batch of views.
+     *
+     * @param viewRecords the views to add.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    void addViews(List<ViewRecord> viewRecords)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Adds a new view and returns the view statistics of the visitor, the new
+     * view included, atomically.
+     *
+     * @param viewRecord the view to add.
+     * @return the view statistics of the visitor.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    ViewStatistics recordViewAndFetchStats(ViewRecord viewRecord)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Adds the views of a single visitor, each of a different page, and 
+     * returns the view statistics of the pages, the new views included, 
+     * atomically.
+     *
+     * @param viewRecords the views to add.
+     * @return the view statistics of the pages in the order of the views.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    List<PageViewStatistics> recordPageViewsAndFetchStats(
+            List<ViewRecord> viewRecords)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the view statistics of the visitor without recording a view.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @return the view statistics of the visitor.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    ViewStatistics getViewStatistics(String ipAddress)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the view statistics of a page without recording a view.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @param page      the page.
+     * @return the view statistics of the page.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    PageViewStatistics getPageViewStatistics(String ipAddress,
+                                             String page)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the total number of views and the most recent view time.
+     *
+     * @return the view statistics with only the totals filled in.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    ViewStatistics getViewTotals()
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the number of views and the most recent view time of the
+     * visitor.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @return the view statistics with only the visitor's fields filled in.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    ViewStatistics getVisitorStatistics(String ipAddress)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the statistics of the most recently seen visitors, mapped by
+     * their IP-addresses in ascending order of their most recent view time.
+     *
+     * @param limit the maximum number of visitors to return.
+     * @return the statistics of the most recently seen visitors.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    Map<String, ViewStatistics> getMostRecentVisitors(int limit)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the non-empty view rollup buckets of the given granularity
+     * starting in the time range {@code [from, to)} in chronological order.
+     *
+     * @param granularity the size of the buckets.
+     * @param from        the inclusive start of the time range.
+     * @param to          the exclusive end of the time range.
+     * @param limit       the maximum number of buckets to return.
+     * @return the view rollups.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    List<ViewRollup> getViewRollups(RollupGranularity granularity,
+                                    ZonedDateTime from,
+                                    ZonedDateTime to,
+                                    int limit)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the union of the visitor sketches of the given granularity
+     * whose buckets start in the time range {@code [from, to)}.
+     *
+     * @param granularity the size of the buckets.
+     * @param from        the inclusive start of the time range.
+     * @param to          the exclusive end of the time range.
+     * @return the merged visitor sketch.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    HyperLogLog getVisitorSketch(RollupGranularity granularity,
+                                 ZonedDateTime from,
+                                 ZonedDateTime to)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Merges the visitor sketch into the stored sketch of the bucket.
+     *
+     * @param granularity       the size of the bucket.
+     * @param bucketStartMillis the start of the bucket.
+     * @param hyperLogLog       the sketch to merge.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    void mergeVisitorSketch(RollupGranularity granularity,
+                            long bucketStartMillis,
+                            HyperLogLog hyperLogLog)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Moves the views older than {@code cutoff} out of the hot storage,
+     * keeping the counters intact.
+     *
+     * @param cutoff    the time before which the views are archived.
+     * @param batchSize the number of views to move at a time.
+     * @return the number of the views archived.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    long archiveViews(ZonedDateTime cutoff, int batchSize)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the total number of views.
+     *
+     * @return the total number of views so far.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    Integer getTotalViewCount() throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the number of views of the visitor.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @return the number of views of the visitor so far.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    Integer getVisitorsViewCount(String ipAddress)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the most recent view time stamp.
+     *
+     * @return the most recent view time or {@code null} if there are no views.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    ZonedDateTime getMostRecentViewTime()
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Returns the most recent view time stamp of the visitor.
+     *
+     * @param ipAddress the IP-address of the visitor.
+     * @return the most recent view time of the visitor or {@code null} if
+     *         there are no views of the visitor.
+     *
+     * @throws java.sql.SQLException if the storage fails.
+     * @throws java.net.URISyntaxException if the DB URI is invalid.
+     */
+    ZonedDateTime getVisitorsMostRecentViewTime(String ipAddress)
+            throws SQLException, URISyntaxException;
+
+    /**
+     * Releases the resources of the store. Called on application shutdown.
+     */
+    void close();
+}
@@ -0,0 +1,52 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import java.util.Locale;
+
+/**
+ * This class selects the {@link ViewStore} by the {@code WEBLOG_STORE}
+ * setting: {@code mysql} (the default) for the {@link DataAccessObject} or
+ * {@code local} for the embedded store keeping the views in a local log.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class ViewStores {
+
+    private static final String STORE = "WEBLOG_STORE";
+
+    private static final String MYSQL_STORE = "mysql";
+    private static final String LOCAL_STORE = "local";
+
+    private static ViewStore instance;
+
+    private ViewStores() {}
+
+    /**
+     * Returns the view store of the application, selecting it on the first
+     * call.
+     *
+     * @return the view store.
+     */
+    public static synchronized ViewStore getInstance() {
+        if (instance == null) {
+            instance = create(Configuration.getString(STORE, MYSQL_STORE));
+        }
+
+        return instance;
+    }
+
+    private static ViewStore create(String store) {
+        switch (store.toLowerCase(Locale.ROOT)) {
+            case MYSQL_STORE:
+                return DataAccessObject.getInstance();
+
+            case LOCAL_STORE:
+                return new LocalViewStore();
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown " + STORE + ": " + store);
+        }
+    }
+}
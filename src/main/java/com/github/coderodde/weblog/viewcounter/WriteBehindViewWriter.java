@@ -0,0 +1,209 @@
+package com.github.coderodde.weblog.viewcounter;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import com.github.coderodde.weblog.viewcounter.metrics.Metrics;
+import java.net.URISyntaxException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class implements the write-behind view ingestion: the views are queued
+ * in a bounded lock-free queue and a background thread writes them to the 
+ * database in batches whenever {@code batchSize} views are pending or 
+ * {@code flushIntervalMillis} milliseconds have passed, whichever comes first.
+ * A batch is written up to three times; if all the attempts fail, its views
+ * are dropped and counted in {@code weblog_dropped_views_total}. Each batch
+ * is passed to the write listener once written or dropped.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class WriteBehindViewWriter implements DeferredViewWriter {
+
+    private static final Logger LOGGER = 
+            Logger.getLogger(WriteBehindViewWriter.class.getName());
+
+    private static final int MAXIMUM_WRITE_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 200L;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000L;
+
+    private static final LongAdder DROPPED_VIEWS = 
+            Metrics.counter("weblog_dropped_views_total", 
+                            "The number of queued views dropped after " + 
+                            "failing to be written.");
+
+    private final Queue<ViewRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final ViewStore viewStore;
+    private final Consumer<List<ViewRecord>> writeListener;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    WriteBehindViewWriter(ViewStore viewStore,
+                          Consumer<List<ViewRecord>> writeListener,
+                          int capacity, 
+                          int batchSize, 
+                          long flushIntervalMillis) {
+        this.viewStore = viewStore;
+        this.writeListener = writeListener;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = 
+                TimeUnit.MILLISECONDS.toNanos(Math.max(1L, 
+                                                       flushIntervalMillis));
+
+        this.writerThread = new Thread(this::run, "write-behind-view-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues the view for writing.
+     * 
+     * @param viewRecord the view to write.
+     * @return {@code true} if the view was queued, {@code false} if the queue
+     *         is full or the writer is closed.
+     */
+    @Override
+    public boolean offer(ViewRecord viewRecord) {
+        if (!running) {
+            return false;
+        }
+
+        int size = queueSize.incrementAndGet();
+
+        if (size > capacity) {
+            queueSize.decrementAndGet();
+            return false;
+        }
+
+        queue.offer(viewRecord);
+
+        if (size == batchSize) {
+            // A full batch is pending, do not wait for the flush interval:
+            LockSupport.unpark(writerThread);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of views waiting to be written.
+     * 
+     * @return the number of pending views.
+     */
+    int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * Stops the background writer and writes all the pending views.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Whatever raced in past the writer thread:
+        flush();
+    }
+
+    private void run() {
+        while (running) {
+            if (queueSize.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+
+            try {
+                flush();
+            } catch (RuntimeException ex) {
+                // Keep the writer thread alive:
+                LOGGER.log(Level.SEVERE, "Flushing the views failed.", ex);
+            }
+        }
+
+        flush();
+    }
+
+    private synchronized void flush() {
+        while (!queue.isEmpty()) {
+            List<ViewRecord> batch = new ArrayList<>(batchSize);
+            ViewRecord viewRecord;
+
+            while (batch.size() < batchSize && 
+                    (viewRecord = queue.poll()) != null) {
+                batch.add(viewRecord);
+            }
+
+            queueSize.addAndGet(-batch.size());
+            write(batch);
+            writeListener.accept(batch);
+
+            if (running && queueSize.get() < batchSize) {
+                // Leave the partial batch for the next flush interval:
+                return;
+            }
+        }
+    }
+
+    private void write(List<ViewRecord> batch) {
+        for (int attempt = 1; attempt <= MAXIMUM_WRITE_ATTEMPTS; attempt++) {
+            try {
+                viewStore.addViews(batch);
+                return;
+            } catch (SQLException ex) {
+                LOGGER.log(
+                        Level.WARNING, 
+                        "Writing {0} views failed (attempt {1}): {2}, " + 
+                                "caused by: {3}", 
+                        objects(batch.size(), 
+                                attempt, 
+                                ex.getMessage(), 
+                                ex.getCause()));
+
+            } catch (URISyntaxException ex) {
+                LOGGER.log(
+                        Level.SEVERE, 
+                        "Bad DB URI: {0}, caused by: {1}", 
+                        objects(ex.getMessage(), ex.getCause()));
+                break;
+            } catch (RuntimeException ex) {
+                LOGGER.log(
+                        Level.WARNING, 
+                        "Writing " + batch.size() + " views failed " + 
+                                "(attempt " + attempt + ").", 
+                        ex);
+            }
+
+            try {
+                Thread.sleep(attempt * RETRY_BACKOFF_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        DROPPED_VIEWS.add(batch.size());
+        LOGGER.log(Level.SEVERE, "Dropped {0} views.", batch.size());
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.coderodde.weblog.viewcounter.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a lock-free latency histogram in the spirit of 
+ * HdrHistogram: the values are counted in log-linear buckets, i.e., each 
+ * power-of-two range is split into {@code 2^SUB_BUCKET_BITS} equal buckets, 
+ * which bounds the relative error of the reported percentiles to about 3%
+ * regardless of the magnitude of the values. Recording a value costs a few 
+ * arithmetic operations and two atomic increments.
+ * 
+ * <p>The quantiles cover a sliding window only, so that they follow the
+ * current latencies rather than those of the whole lifetime of the process.
+ * The window is split into {@code SLOT_COUNT} slots, each counting the values
+ * recorded during its slice of time. A slot is cleared when its time comes
+ * round again, and the quantiles are computed over the slots still within the
+ * window. A value recorded just as its slot is cleared may be lost, which
+ * the quantiles can afford. The count and the sum cover the whole lifetime,
+ * as a Prometheus summary expects.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    
+    // Values up to 2^40 nanoseconds (about 18 minutes) are told apart:
+    private static final int MAXIMUM_EXPONENT = 40;
+    private static final int BUCKET_COUNT = 
+            (MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private static final int SLOT_COUNT = 6;
+
+    private final AtomicLongArray[] slotCounts = 
+            new AtomicLongArray[SLOT_COUNT];
+
+    // The number of the time slice each slot currently counts:
+    private final AtomicLongArray slotEpochs = new AtomicLongArray(SLOT_COUNT);
+    private final long slotNanos;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+
+    /**
+     * Constructs a histogram whose quantiles cover the given window.
+     * 
+     * @param windowNanos the length of the window in nanoseconds.
+     */
+    public LatencyHistogram(long windowNanos) {
+        this.slotNanos = Math.max(1L, windowNanos / SLOT_COUNT);
+
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slotCounts[i] = new AtomicLongArray(BUCKET_COUNT);
+            slotEpochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Records a value.
+     * 
+     * @param value the value to record, typically in nanoseconds.
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+
+        long epoch = Math.floorDiv(System.nanoTime(), slotNanos);
+        int slot = (int) Math.floorMod(epoch, (long) SLOT_COUNT);
+
+        if (slotEpochs.get(slot) != epoch) {
+            advanceSlot(slot, epoch);
+        }
+
+        slotCounts[slot].incrementAndGet(getBucketIndex(value));
+        totalCount.increment();
+        totalSum.add(value);
+    }
+
+    /**
+     * Returns the number of values recorded during the lifetime.
+     * 
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the sum of the values recorded during the lifetime.
+     * 
+     * @return the sum of the recorded values.
+     */
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    /**
+     * Returns the approximate values at the given quantiles of the values
+     * recorded within the window.
+     * 
+     * @param quantiles the quantiles in ascending order, each within 
+     *                  {@code [0, 1]}.
+     * @return the values at the quantiles, or zeros if nothing is recorded.
+     */
+    public long[] getValuesAtQuantiles(double... quantiles) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0L;
+        long currentEpoch = Math.floorDiv(System.nanoTime(), slotNanos);
+
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            long epoch = slotEpochs.get(slot);
+
+            if (epoch <= currentEpoch - SLOT_COUNT || epoch > currentEpoch) {
+                continue;
+            }
+
+            AtomicLongArray counts = slotCounts[slot];
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long bucketCount = counts.get(i);
+                snapshot[i] += bucketCount;
+                count += bucketCount;
+            }
+        }
+
+        long[] values = new long[quantiles.length];
+
+        if (count == 0L) {
+            return values;
+        }
+
+        int bucketIndex = 0;
+        long seen = snapshot[0];
+
+        for (int i = 0; i < quantiles.length; i++) {
+            long rank = Math.max(1L, (long) Math.ceil(quantiles[i] * count));
+
+            while (seen < rank && bucketIndex < BUCKET_COUNT - 1) {
+                seen += snapshot[++bucketIndex];
+            }
+
+            values[i] = getBucketUpperBound(bucketIndex);
+        }
+
+        return values;
+    }
+
+    /**
+     * Clears the slot for its next time slice, unless another thread did
+     * already.
+     */
+    private synchronized void advanceSlot(int slot, long epoch) {
+        if (slotEpochs.get(slot) >= epoch) {
+            return;
+        }
+
+        AtomicLongArray counts = slotCounts[slot];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+
+        slotEpochs.set(slot, epoch);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+        if (exponent > MAXIMUM_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getBucketUpperBound(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long subBucket = bucketIndex % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
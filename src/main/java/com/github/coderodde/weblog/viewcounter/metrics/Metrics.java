@@ -0,0 +1,189 @@
+package com.github.coderodde.weblog.viewcounter.metrics;
+
+import com.github.coderodde.weblog.viewcounter.Configuration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * This class is the registry of all the metrics of the application and writes
+ * them out in the Prometheus text exposition format.
+ * 
+ * <p>Timers are grouped into families sharing a metric name and told apart by
+ * the {@code operation} label. Each family is exposed as a summary in seconds
+ * plus an error counter. The quantiles of a summary cover the last
+ * {@code WEBLOG_METRICS_QUANTILE_WINDOW_SECONDS} seconds, 60 by default,
+ * while its sum and count cover the lifetime of the process.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class Metrics {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final String QUANTILE_WINDOW_SECONDS = 
+            "WEBLOG_METRICS_QUANTILE_WINDOW_SECONDS";
+
+    private static final long QUANTILE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(
+            Math.max(1L, Configuration.getLong(QUANTILE_WINDOW_SECONDS, 60L)));
+
+    private static final Map<String, TimerFamily> TIMER_FAMILIES = 
+            new ConcurrentSkipListMap<>();
+
+    private static final String GAUGE_TYPE = "gauge";
+    private static final String COUNTER_TYPE = "counter";
+
+    private static final Map<String, Gauge> GAUGES = 
+            new ConcurrentSkipListMap<>();
+
+    private Metrics() {}
+
+    /**
+     * Returns the timer of the given operation, creating it if needed.
+     * 
+     * @param name      the metric name of the timer family, without the 
+     *                  {@code _seconds} suffix.
+     * @param help      the description of the timer family.
+     * @param operation the operation within the family.
+     * @return the timer.
+     */
+    public static Timer timer(String name, String help, String operation) {
+        TimerFamily timerFamily = 
+                TIMER_FAMILIES.computeIfAbsent(name, 
+                                               n -> new TimerFamily(help));
+        return timerFamily.timers.computeIfAbsent(
+                operation, o -> new Timer(QUANTILE_WINDOW_NANOS));
+    }
+
+    /**
+     * Registers a gauge sampled whenever the metrics are scraped. Replaces
+     * any gauge of the same name.
+     * 
+     * @param name     the metric name.
+     * @param help     the description of the gauge.
+     * @param supplier the supplier of the gauge value.
+     */
+    public static void gauge(String name, String help, LongSupplier supplier) {
+        GAUGES.put(name, new Gauge(help, GAUGE_TYPE, supplier));
+    }
+
+    /**
+     * Registers a counter and returns it. Replaces any gauge or counter of the
+     * same name.
+     * 
+     * @param name the metric name, conventionally ending in {@code _total}.
+     * @param help the description of the counter.
+     * @return the counter.
+     */
+    public static LongAdder counter(String name, String help) {
+        LongAdder counter = new LongAdder();
+        GAUGES.put(name, new Gauge(help, COUNTER_TYPE, counter::sum));
+        return counter;
+    }
+
+    /**
+     * Writes all the metrics in the Prometheus text exposition format.
+     * 
+     * @param stringBuilder the target builder.
+     */
+    public static void writePrometheusText(StringBuilder stringBuilder) {
+        for (Map.Entry<String, TimerFamily> entry : 
+                TIMER_FAMILIES.entrySet()) {
+            writeTimerFamily(stringBuilder, entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Gauge> entry : GAUGES.entrySet()) {
+            String name = entry.getKey();
+            long value;
+
+            try {
+                value = entry.getValue().supplier.getAsLong();
+            } catch (RuntimeException ex) {
+                // Not available right now, e.g., the pool is not yet created:
+                continue;
+            }
+
+            stringBuilder.append("# HELP ").append(name).append(' ')
+                         .append(entry.getValue().help).append('\n')
+                         .append("# TYPE ").append(name).append(' ')
+                         .append(entry.getValue().type).append('\n')
+                         .append(name).append(' ').append(value).append('\n');
+        }
+    }
+
+    private static void writeTimerFamily(StringBuilder stringBuilder,
+                                         String name,
+                                         TimerFamily timerFamily) {
+        String secondsName = name + "_seconds";
+        String errorsName = name + "_errors_total";
+
+        stringBuilder.append("# HELP ").append(secondsName).append(' ')
+                     .append(timerFamily.help).append('\n')
+                     .append("# TYPE ").append(secondsName)
+                     .append(" summary\n");
+
+        for (Map.Entry<String, Timer> entry : timerFamily.timers.entrySet()) {
+            String operation = entry.getKey();
+            LatencyHistogram histogram = 
+                    entry.getValue().getLatencyHistogram();
+
+            long[] values = histogram.getValuesAtQuantiles(QUANTILES);
+
+            for (int i = 0; i < QUANTILES.length; i++) {
+                stringBuilder.append(secondsName)
+                             .append("{operation=\"").append(operation)
+                             .append("\",quantile=\"").append(QUANTILES[i])
+                             .append("\"} ")
+                             .append(values[i] / NANOS_PER_SECOND)
+                             .append('\n');
+            }
+
+            stringBuilder.append(secondsName).append("_sum{operation=\"")
+                         .append(operation).append("\"} ")
+                         .append(histogram.getSum() / NANOS_PER_SECOND)
+                         .append('\n')
+                         .append(secondsName).append("_count{operation=\"")
+                         .append(operation).append("\"} ")
+                         .append(histogram.getCount())
+                         .append('\n');
+        }
+
+        stringBuilder.append("# HELP ").append(errorsName)
+                     .append(" The number of failed operations.\n")
+                     .append("# TYPE ").append(errorsName)
+                     .append(" counter\n");
+
+        for (Map.Entry<String, Timer> entry : timerFamily.timers.entrySet()) {
+            stringBuilder.append(errorsName).append("{operation=\"")
+                         .append(entry.getKey()).append("\"} ")
+                         .append(entry.getValue().getErrorCount())
+                         .append('\n');
+        }
+    }
+
+    private static final class TimerFamily {
+        final String help;
+        final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+        TimerFamily(String help) {
+            this.help = help;
+        }
+    }
+
+    private static final class Gauge {
+        final String help;
+        final String type;
+        final LongSupplier supplier;
+
+        Gauge(String help, String type, LongSupplier supplier) {
+            this.help = help;
+            this.type = type;
+            this.supplier = supplier;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.coderodde.weblog.viewcounter.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class measures the latency and the error count of a single operation.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class Timer {
+
+    private final LatencyHistogram latencyHistogram;
+    private final LongAdder errorCount = new LongAdder();
+
+    Timer(long quantileWindowNanos) {
+        this.latencyHistogram = new LatencyHistogram(quantileWindowNanos);
+    }
+
+    /**
+     * Records a completed operation.
+     * 
+     * @param startNanos the value of {@link System#nanoTime()} at the start of
+     *                   the operation.
+     */
+    public void recordSince(long startNanos) {
+        latencyHistogram.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a failed operation.
+     */
+    public void recordError() {
+        errorCount.increment();
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+}
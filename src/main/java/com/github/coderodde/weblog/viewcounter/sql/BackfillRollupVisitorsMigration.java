@@ -0,0 +1,138 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import com.github.coderodde.weblog.viewcounter.RollupGranularity;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This migration creates the rollup visitor table, fills it with the distinct
+ * visitors of the buckets of the views in the main table and recounts the
+ * visitors of those buckets. The views are streamed in batches in ID order so
+ * that only the visitors of the current bucket of each granularity are kept in
+ * memory. The buckets of the archived views keep the visitor counts they had.
+ *
+ * <p>The visitors are added only if missing and the counts are overwritten, 
+ * so a migration failing halfway is completed by the next attempt.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class BackfillRollupVisitorsMigration extends SchemaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    BackfillRollupVisitorsMigration(int version) {
+        super(version, 
+              "Create and backfill the rollup visitor table, recount the " + 
+                      "visitors of the rollups");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .RollupVisitorTable
+                            .Create
+                            .CREATE_ROLLUP_VISITOR_TABLE);
+        }
+
+        RollupGranularity[] granularities = RollupGranularity.values();
+        Bucket[] buckets = new Bucket[granularities.length];
+
+        for (int i = 0; i < granularities.length; i++) {
+            buckets[i] = new Bucket(granularities[i]);
+        }
+
+        try (PreparedStatement selectStatement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTable.Select.GET_VIEWS_AFTER_ID);
+             PreparedStatement insertStatement =
+                connection.prepareStatement(
+                        SQLStatements.RollupVisitorTable.Insert.ADD_VISITOR)) {
+
+            long lastId = 0L;
+
+            while (true) {
+                long batchLastId = lastId;
+                selectStatement.setLong(1, lastId);
+                selectStatement.setInt(2, BATCH_SIZE);
+
+                try (ResultSet resultSet = selectStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        batchLastId = resultSet.getLong(1);
+                        String ipAddress = resultSet.getString(2);
+                        long viewTimeMillis = resultSet.getTimestamp(3)
+                                                       .getTime();
+
+                        for (Bucket bucket : buckets) {
+                            bucket.add(insertStatement,
+                                       ipAddress,
+                                       viewTimeMillis);
+                        }
+                    }
+                }
+
+                insertStatement.executeBatch();
+
+                if (batchLastId == lastId) {
+                    break;
+                }
+
+                lastId = batchLastId;
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .ViewRollupTable
+                            .Update
+                            .RECOUNT_VISITORS);
+        }
+    }
+
+    /**
+     * The bucket of a granularity being filled. A visitor is added once per
+     * stay in the bucket; a bucket revisited by an out-of-order view adds its
+     * visitors again, which the table ignores.
+     */
+    private static final class Bucket {
+
+        private final RollupGranularity granularity;
+        private final Set<String> visitors = new HashSet<>();
+        private long startMillis = Long.MIN_VALUE;
+
+        Bucket(RollupGranularity granularity) {
+            this.granularity = granularity;
+        }
+
+        void add(PreparedStatement insertStatement,
+                 String ipAddress,
+                 long viewTimeMillis) throws SQLException {
+            long viewBucketStartMillis =
+                    granularity.getBucketStart(viewTimeMillis);
+
+            if (viewBucketStartMillis != startMillis) {
+                visitors.clear();
+                startMillis = viewBucketStartMillis;
+            }
+
+            if (!visitors.add(ipAddress)) {
+                return;
+            }
+
+            insertStatement.setString(1, granularity.name());
+            insertStatement.setTimestamp(2, new Timestamp(startMillis));
+            insertStatement.setString(3, ipAddress);
+            insertStatement.addBatch();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import com.github.coderodde.weblog.viewcounter.RollupGranularity;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This migration creates the view rollup table and rolls the existing views up
+ * into it. The views are streamed in batches in ID (that is, chronological)
+ * order so that only the visitors of the current bucket of each granularity
+ * are kept in memory.
+ *
+ * <p>The buckets are rebuilt from scratch, so a migration failing halfway is
+ * completed by the next attempt without counting any view twice. No views are
+ * counted in the rollups before the migration completes.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class BackfillViewRollupsMigration extends SchemaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    BackfillViewRollupsMigration(int version) {
+        super(version, "Create and backfill the view rollup table");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .ViewRollupTable
+                            .Create
+                            .CREATE_VIEW_ROLLUP_TABLE);
+            statement.executeUpdate(
+                    SQLStatements
+                            .ViewRollupTable
+                            .Delete
+                            .DELETE_ALL_BUCKETS);
+        }
+
+        RollupGranularity[] granularities = RollupGranularity.values();
+        Bucket[] buckets = new Bucket[granularities.length];
+
+        for (int i = 0; i < granularities.length; i++) {
+            buckets[i] = new Bucket(granularities[i]);
+        }
+
+        try (PreparedStatement selectStatement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTable.Select.GET_VIEWS_AFTER_ID);
+             PreparedStatement insertStatement =
+                connection.prepareStatement(
+                        SQLStatements.ViewRollupTable.Insert.ADD_VIEWS)) {
+
+            long lastId = 0L;
+
+            while (true) {
+                long batchLastId = lastId;
+                selectStatement.setLong(1, lastId);
+                selectStatement.setInt(2, BATCH_SIZE);
+
+                try (ResultSet resultSet = selectStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        batchLastId = resultSet.getLong(1);
+                        String ipAddress = resultSet.getString(2);
+                        long viewTimeMillis = resultSet.getTimestamp(3)
+                                                       .getTime();
+
+                        for (Bucket bucket : buckets) {
+                            bucket.add(insertStatement,
+                                       ipAddress,
+                                       viewTimeMillis);
+                        }
+                    }
+                }
+
+                insertStatement.executeBatch();
+
+                if (batchLastId == lastId) {
+                    break;
+                }
+
+                lastId = batchLastId;
+            }
+
+            for (Bucket bucket : buckets) {
+                bucket.flush(insertStatement);
+            }
+
+            insertStatement.executeBatch();
+        }
+    }
+
+    /**
+     * The bucket of a granularity being filled. Flushed whenever a view falls
+     * into another bucket; the rows are upserted, so a bucket revisited by an
+     * out-of-order view is added to rather than overwritten.
+     */
+    private static final class Bucket {
+
+        private final RollupGranularity granularity;
+        private final Set<String> visitors = new HashSet<>();
+        private long startMillis = Long.MIN_VALUE;
+        private long viewCount;
+
+        Bucket(RollupGranularity granularity) {
+            this.granularity = granularity;
+        }
+
+        void add(PreparedStatement insertStatement,
+                 String ipAddress,
+                 long viewTimeMillis) throws SQLException {
+            long viewBucketStartMillis =
+                    granularity.getBucketStart(viewTimeMillis);
+
+            if (viewBucketStartMillis != startMillis) {
+                flush(insertStatement);
+                startMillis = viewBucketStartMillis;
+            }
+
+            viewCount++;
+            visitors.add(ipAddress);
+        }
+
+        void flush(PreparedStatement insertStatement) throws SQLException {
+            if (viewCount == 0L) {
+                return;
+            }
+
+            insertStatement.setString(1, granularity.name());
+            insertStatement.setTimestamp(2, new Timestamp(startMillis));
+            insertStatement.setLong(3, viewCount);
+            insertStatement.setLong(4, visitors.size());
+            insertStatement.addBatch();
+
+            viewCount = 0L;
+            visitors.clear();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import com.github.coderodde.weblog.viewcounter.HyperLogLog;
+import com.github.coderodde.weblog.viewcounter.IPAddresses;
+import com.github.coderodde.weblog.viewcounter.RollupGranularity;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This migration creates the visitor sketch table and sketches the visitors of
+ * each day out of the existing views. The views are streamed in batches; the
+ * sketches of all the days are kept in memory, about 3 KB per day.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class BackfillVisitorSketchesMigration extends SchemaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    BackfillVisitorSketchesMigration(int version) {
+        super(version, "Create and backfill the visitor sketch table");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .VisitorSketchTable
+                            .Create
+                            .CREATE_VISITOR_SKETCH_TABLE);
+        }
+
+        Map<Long, HyperLogLog> sketches = new TreeMap<>();
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.ViewTable.Select.GET_VIEWS_AFTER_ID)) {
+
+            long lastId = 0L;
+
+            while (true) {
+                long batchLastId = lastId;
+                statement.setLong(1, lastId);
+                statement.setInt(2, BATCH_SIZE);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        batchLastId = resultSet.getLong(1);
+                        long dayStartMillis =
+                                RollupGranularity.DAY.getBucketStart(
+                                        resultSet.getTimestamp(3).getTime());
+
+                        sketches.computeIfAbsent(dayStartMillis,
+                                                 day -> new HyperLogLog())
+                                .add(IPAddresses.hash(
+                                        resultSet.getString(2)));
+                    }
+                }
+
+                if (batchLastId == lastId) {
+                    break;
+                }
+
+                lastId = batchLastId;
+            }
+        }
+
+        try (PreparedStatement statement =
+                connection.prepareStatement(
+                        SQLStatements.VisitorSketchTable.Insert.PUT_SKETCH)) {
+
+            for (Map.Entry<Long, HyperLogLog> entry : sketches.entrySet()) {
+                statement.setString(1, RollupGranularity.DAY.name());
+                statement.setTimestamp(2, new Timestamp(entry.getKey()));
+                statement.setBytes(3, entry.getValue().toByteArray());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+}
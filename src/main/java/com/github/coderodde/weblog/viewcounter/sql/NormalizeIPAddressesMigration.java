@@ -0,0 +1,149 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import com.github.coderodde.weblog.viewcounter.IPAddresses;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This migration makes the canonical IP address the key of a visitor in all
+ * the tables. The IP address columns are widened to fit any canonical IP
+ * address, the IP addresses of the views, archived or not, are replaced by
+ * their canonical forms along with the packed IP addresses, and the visitor
+ * statistics are rebuilt from the views so that the views of a visitor
+ * stored under different forms of the same IP address are counted in one row.
+ *
+ * <p>Every step may be repeated, so a migration failing halfway is completed
+ * by the next attempt.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class NormalizeIPAddressesMigration extends SchemaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    NormalizeIPAddressesMigration(int version) {
+        super(version,
+              "Key the visitors by the canonical IP address in all tables");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .ViewTable
+                            .Alter
+                            .WIDEN_IP_ADDRESS_COLUMN);
+            statement.executeUpdate(
+                    SQLStatements
+                            .ViewArchiveTable
+                            .Alter
+                            .WIDEN_IP_ADDRESS_COLUMN);
+            statement.executeUpdate(
+                    SQLStatements
+                            .VisitorStatsTable
+                            .Alter
+                            .WIDEN_IP_ADDRESS_COLUMN);
+        }
+
+        normalizeTable(connection,
+                       SQLStatements
+                               .ViewTable
+                               .Select
+                               .GET_IP_ADDRESSES_AFTER_ID,
+                       SQLStatements.ViewTable.Update.SET_IP_ADDRESS);
+
+        normalizeTable(connection,
+                       SQLStatements
+                               .ViewArchiveTable
+                               .Select
+                               .GET_IP_ADDRESSES_AFTER_ID,
+                       SQLStatements.ViewArchiveTable.Update.SET_IP_ADDRESS);
+
+        rebuildVisitorStats(connection);
+    }
+
+    /**
+     * Replaces the IP addresses of the views not in the canonical form,
+     * streaming the views in batches in ID order.
+     */
+    private static void normalizeTable(Connection connection,
+                                       String selectSql,
+                                       String updateSql)
+            throws SQLException {
+        try (PreparedStatement selectStatement =
+                connection.prepareStatement(selectSql);
+             PreparedStatement updateStatement =
+                connection.prepareStatement(updateSql)) {
+
+            long lastId = 0L;
+
+            while (true) {
+                long batchLastId = lastId;
+                selectStatement.setLong(1, lastId);
+                selectStatement.setInt(2, BATCH_SIZE);
+
+                try (ResultSet resultSet = selectStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        batchLastId = resultSet.getLong(1);
+                        String ipAddress = resultSet.getString(2);
+                        String canonicalIPAddress =
+                                IPAddresses.canonicalize(ipAddress);
+
+                        if (canonicalIPAddress.equals(ipAddress)) {
+                            continue;
+                        }
+
+                        updateStatement.setString(1, canonicalIPAddress);
+                        updateStatement.setBytes(
+                                2,
+                                IPAddresses.pack(canonicalIPAddress));
+                        updateStatement.setLong(3, batchLastId);
+                        updateStatement.addBatch();
+                    }
+                }
+
+                updateStatement.executeBatch();
+
+                if (batchLastId == lastId) {
+                    break;
+                }
+
+                lastId = batchLastId;
+            }
+        }
+    }
+
+    /**
+     * Recounts the visitor statistics from the views in a single transaction.
+     */
+    private static void rebuildVisitorStats(Connection connection)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .VisitorStatsTable
+                            .Delete
+                            .DELETE_ALL_VISITOR_STATS);
+            statement.executeUpdate(
+                    SQLStatements
+                            .VisitorStatsTable
+                            .Insert
+                            .SEED_VISITOR_STATS_WITH_ARCHIVE);
+            connection.commit();
+        } catch (SQLException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import com.github.coderodde.weblog.viewcounter.IPAddresses;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * This migration adds the packed binary IP address column to the view table, 
+ * fills it in for the existing views and indexes the views of each visitor in
+ * chronological order. The existing rows are converted in Java in batches so 
+ * that no single statement locks the whole table.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class PackIPAddressesMigration extends SchemaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    PackIPAddressesMigration(int version) {
+        super(version, 
+              "Add the packed IP address column and the visitor view index");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        addColumn(SQLDefinitions.ViewTable.NAME,
+                  SQLDefinitions.ViewTable.PackedIPAddress.NAME,
+                  SQLStatements.ViewTable.Alter.ADD_PACKED_IP_ADDRESS_COLUMN)
+                .apply(connection);
+
+        long lastId = 0L;
+
+        while (true) {
+            long batchLastId = packBatch(connection, lastId);
+
+            if (batchLastId == lastId) {
+                break;
+            }
+
+            lastId = batchLastId;
+        }
+
+        createIndex(SQLDefinitions.ViewTable.NAME,
+                    SQLDefinitions.ViewTable.VisitorViewTimeIndex.NAME,
+                    SQLStatements
+                            .ViewTable
+                            .Create
+                            .CREATE_VISITOR_VIEW_TIME_INDEX)
+                .apply(connection);
+    }
+
+    /**
+     * Packs the IP addresses of the next batch of views after the view with 
+     * ID {@code lastId} and returns the ID of the last view in the batch.
+     */
+    private static long packBatch(Connection connection, long lastId) 
+            throws SQLException {
+        long batchLastId = lastId;
+
+        try (PreparedStatement selectStatement = 
+                connection.prepareStatement(
+                        SQLStatements
+                                .ViewTable
+                                .Select
+                                .GET_VIEWS_WITHOUT_PACKED_IP_ADDRESS);
+             PreparedStatement updateStatement = 
+                connection.prepareStatement(
+                        SQLStatements
+                                .ViewTable
+                                .Update
+                                .SET_PACKED_IP_ADDRESS)) {
+
+            selectStatement.setLong(1, lastId);
+            selectStatement.setInt(2, BATCH_SIZE);
+
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    batchLastId = resultSet.getLong(1);
+                    byte[] packedIPAddress = 
+                            IPAddresses.pack(resultSet.getString(2));
+
+                    if (packedIPAddress == null) {
+                        // Not a valid IP address, leave it unpacked:
+                        continue;
+                    }
+
+                    updateStatement.setBytes(1, packedIPAddress);
+                    updateStatement.setLong(2, batchLastId);
+                    updateStatement.addBatch();
+                }
+            }
+
+            updateStatement.executeBatch();
+        }
+
+        return batchLastId;
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.coderodde.weblog.viewcounter.sql;
 
+import com.github.coderodde.weblog.viewcounter.IPAddresses;
+
 /**
  * This class defines the database table schemas.
  * 
@@ -36,6 +38,31 @@ public final class SQLDefinitions {
             public static final String NAME = "ip_address";
             public static final String TYPE = 
                     "VARCHAR(" + IPV6_ADDRESS_STRING_LENGTH + ") NOT NULL";
+
+            /**
+             * The type widened to fit any canonical IP address.
+             */
+            public static final String CANONICAL_TYPE = 
+                    "VARCHAR(" + IPAddresses.MAXIMUM_ADDRESS_LENGTH + 
+                    ") NOT NULL";
+        }
+
+        /**
+         * This class defines the packed binary IP address column: 4 bytes for
+         * IPv4 and 16 bytes for IPv6 addresses.
+         */
+        public static final class PackedIPAddress {
+            public static final String NAME = "packed_ip_address";
+            public static final String TYPE = "VARBINARY(16)";
+        }
+
+        /**
+         * This class defines the index over the views of each visitor in 
+         * chronological order.
+         */
+        public static final class VisitorViewTimeIndex {
+            public static final String NAME = 
+                    "view_packed_ip_address_viewed_at";
         }
 
         /**
@@ -68,5 +95,394 @@ public final class SQLDefinitions {
             public static final String NAME = "viewed_at";
             public static final String TYPE = "TIMESTAMP NOT NULL";
         }
+
+        /**
+         * This class defines the column of the ID of the page viewed in the
+         * page table, {@code NULL} for the views not attributed to a page.
+         */
+        public static final class PageId {
+            public static final String NAME = "page_id";
+            public static final String TYPE = "INT";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table recording the applied 
+     * schema migrations.
+     */
+    public static final class SchemaVersionTable {
+
+        /**
+         * The name of the schema version table.
+         */
+        public static final String NAME = "schema_version";
+
+        /**
+         * This class defines the version column.
+         */
+        public static final class Version {
+            public static final String NAME = "version";
+            public static final String TYPE = "INT NOT NULL";
+        }
+
+        /**
+         * This class defines the migration description column.
+         */
+        public static final class Description {
+            public static final int MAXIMUM_LENGTH = 256;
+            public static final String NAME = "description";
+            public static final String TYPE = 
+                    "VARCHAR(" + MAXIMUM_LENGTH + ") NOT NULL";
+        }
+
+        /**
+         * This class defines the migration timestamp column.
+         */
+        public static final class AppliedAt {
+            public static final String NAME = "applied_at";
+            public static final String TYPE = "TIMESTAMP NOT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the running view
+     * totals so that they need not be computed over the main table.
+     */
+    public static final class ViewTotalsTable {
+
+        /**
+         * The name of the view totals table.
+         */
+        public static final String NAME = "view_totals";
+
+        /**
+         * The ID of the row holding the totals.
+         */
+        public static final int TOTALS_ROW_ID = 1;
+
+        /**
+         * This class defines the ID column.
+         */
+        public static final class Id {
+            public static final String NAME = "id";
+            public static final String TYPE = "INT NOT NULL";
+        }
+
+        /**
+         * This class defines the view count column.
+         */
+        public static final class ViewCount {
+            public static final String NAME = "view_count";
+            public static final String TYPE = "BIGINT NOT NULL";
+        }
+
+        /**
+         * This class defines the most recent view timestamp column.
+         */
+        public static final class LastViewTimestamp {
+            public static final String NAME = "last_viewed_at";
+            public static final String TYPE = "TIMESTAMP NULL DEFAULT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the running view
+     * count and the most recent view time of each visitor.
+     */
+    public static final class VisitorStatsTable {
+
+        /**
+         * The name of the visitor statistics table.
+         */
+        public static final String NAME = "visitor_stats";
+
+        /**
+         * This class defines the IP address column.
+         */
+        public static final class IPAddress {
+            public static final String NAME = "ip_address";
+            public static final String TYPE = ViewTable.IPAddress.TYPE;
+        }
+
+        /**
+         * This class defines the view count column.
+         */
+        public static final class ViewCount {
+            public static final String NAME = "view_count";
+            public static final String TYPE = "BIGINT NOT NULL";
+        }
+
+        /**
+         * This class defines the most recent view timestamp column.
+         */
+        public static final class LastViewTimestamp {
+            public static final String NAME = "last_viewed_at";
+            public static final String TYPE = "TIMESTAMP NULL DEFAULT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the number of 
+     * views and distinct visitors per time bucket (hour or day).
+     */
+    public static final class ViewRollupTable {
+
+        /**
+         * The name of the view rollup table.
+         */
+        public static final String NAME = "view_rollup";
+
+        /**
+         * This class defines the bucket granularity column.
+         */
+        public static final class Granularity {
+            public static final String NAME = "granularity";
+            public static final String TYPE = "VARCHAR(8) NOT NULL";
+        }
+
+        /**
+         * This class defines the bucket start timestamp column.
+         */
+        public static final class BucketStart {
+            public static final String NAME = "bucket_start";
+            public static final String TYPE = "TIMESTAMP NOT NULL";
+        }
+
+        /**
+         * This class defines the view count column.
+         */
+        public static final class ViewCount {
+            public static final String NAME = "view_count";
+            public static final String TYPE = "BIGINT NOT NULL";
+        }
+
+        /**
+         * This class defines the distinct visitor count column.
+         */
+        public static final class VisitorCount {
+            public static final String NAME = "visitor_count";
+            public static final String TYPE = "BIGINT NOT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the distinct 
+     * visitors of each time bucket, telling whether a view is the first of 
+     * its visitor in the bucket regardless of the order the views come in.
+     */
+    public static final class RollupVisitorTable {
+
+        /**
+         * The name of the rollup visitor table.
+         */
+        public static final String NAME = "view_rollup_visitor";
+
+        /**
+         * This class defines the bucket granularity column.
+         */
+        public static final class Granularity {
+            public static final String NAME = "granularity";
+            public static final String TYPE = 
+                    ViewRollupTable.Granularity.TYPE;
+        }
+
+        /**
+         * This class defines the bucket start timestamp column.
+         */
+        public static final class BucketStart {
+            public static final String NAME = "bucket_start";
+            public static final String TYPE = 
+                    ViewRollupTable.BucketStart.TYPE;
+        }
+
+        /**
+         * This class defines the IP address column.
+         */
+        public static final class IPAddress {
+            public static final String NAME = "ip_address";
+            public static final String TYPE = 
+                    ViewTable.IPAddress.CANONICAL_TYPE;
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the HyperLogLog
+     * sketches of the visitors per time bucket.
+     */
+    public static final class VisitorSketchTable {
+
+        /**
+         * The name of the visitor sketch table.
+         */
+        public static final String NAME = "visitor_sketch";
+
+        /**
+         * This class defines the bucket granularity column.
+         */
+        public static final class Granularity {
+            public static final String NAME = "granularity";
+            public static final String TYPE = 
+                    ViewRollupTable.Granularity.TYPE;
+        }
+
+        /**
+         * This class defines the bucket start timestamp column.
+         */
+        public static final class BucketStart {
+            public static final String NAME = "bucket_start";
+            public static final String TYPE = 
+                    ViewRollupTable.BucketStart.TYPE;
+        }
+
+        /**
+         * This class defines the serialized sketch column.
+         */
+        public static final class Sketch {
+            public static final String NAME = "sketch";
+            public static final String TYPE = "BLOB NOT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the lookup table of the pages 
+     * viewed, mapping the normalized paths of the pages to small integer IDs.
+     */
+    public static final class PageTable {
+
+        /**
+         * The name of the page table.
+         */
+        public static final String NAME = "page";
+
+        /**
+         * This class defines the ID column.
+         */
+        public static final class Id {
+            public static final String NAME = "id";
+            public static final String TYPE = "INT NOT NULL AUTO_INCREMENT";
+        }
+
+        /**
+         * This class defines the path column, compared case-sensitively.
+         */
+        public static final class Path {
+            public static final int MAXIMUM_LENGTH = 255;
+            public static final String NAME = "path";
+            public static final String TYPE = 
+                    "VARCHAR(" + MAXIMUM_LENGTH + ") CHARACTER SET utf8 " + 
+                    "COLLATE utf8_bin NOT NULL";
+        }
+
+        /**
+         * This class defines the unique index over the paths.
+         */
+        public static final class PathIndex {
+            public static final String NAME = "page_path";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the running view
+     * count and the most recent view time of each page.
+     */
+    public static final class PageStatsTable {
+
+        /**
+         * The name of the page statistics table.
+         */
+        public static final String NAME = "page_stats";
+
+        /**
+         * This class defines the page ID column.
+         */
+        public static final class PageId {
+            public static final String NAME = "page_id";
+            public static final String TYPE = "INT NOT NULL";
+        }
+
+        /**
+         * This class defines the view count column.
+         */
+        public static final class ViewCount {
+            public static final String NAME = "view_count";
+            public static final String TYPE = "BIGINT NOT NULL";
+        }
+
+        /**
+         * This class defines the most recent view timestamp column.
+         */
+        public static final class LastViewTimestamp {
+            public static final String NAME = "last_viewed_at";
+            public static final String TYPE = "TIMESTAMP NULL DEFAULT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the running view
+     * count and the most recent view time of each visitor of each page. The
+     * rows outlive the views archived, unlike counting the views of the main
+     * table.
+     */
+    public static final class PageVisitorStatsTable {
+
+        /**
+         * The name of the page visitor statistics table.
+         */
+        public static final String NAME = "page_visitor_stats";
+
+        /**
+         * This class defines the page ID column.
+         */
+        public static final class PageId {
+            public static final String NAME = "page_id";
+            public static final String TYPE = "INT NOT NULL";
+        }
+
+        /**
+         * This class defines the canonical IP address column.
+         */
+        public static final class IPAddress {
+            public static final String NAME = "ip_address";
+            public static final String TYPE = 
+                    ViewTable.IPAddress.CANONICAL_TYPE;
+        }
+
+        /**
+         * This class defines the view count column.
+         */
+        public static final class ViewCount {
+            public static final String NAME = "view_count";
+            public static final String TYPE = "BIGINT NOT NULL";
+        }
+
+        /**
+         * This class defines the most recent view timestamp column.
+         */
+        public static final class LastViewTimestamp {
+            public static final String NAME = "last_viewed_at";
+            public static final String TYPE = "TIMESTAMP NULL DEFAULT NULL";
+        }
+    }
+
+    /**
+     * This class defines the structure of the table holding the views moved
+     * out of the main table once they are old enough. The columns are those
+     * of the main table.
+     */
+    public static final class ViewArchiveTable {
+
+        /**
+         * The name of the view archive table.
+         */
+        public static final String NAME = "view_archive";
+
+        /**
+         * This class defines the ID column, holding the ID the view had in 
+         * the main table.
+         */
+        public static final class Id {
+            public static final String NAME = ViewTable.Id.NAME;
+            public static final String TYPE = "INT NOT NULL";
+        }
     }
 }
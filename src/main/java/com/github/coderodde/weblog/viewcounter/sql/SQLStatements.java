@@ -43,6 +43,47 @@ public final class SQLStatements {
                     "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
                     "utf8_unicode_ci;;";
 
+            /**
+             * Creates the index over the views of each visitor in 
+             * chronological order.
+             */
+            public static final String CREATE_VISITOR_VIEW_TIME_INDEX = 
+                    "CREATE INDEX " + 
+                    SQLDefinitions.ViewTable.VisitorViewTimeIndex.NAME + 
+                    " ON `" + SQLDefinitions.ViewTable.NAME + "` (" +
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + ", " +
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + ");";
+        }
+
+        /**
+         * The alter table statements.
+         */
+        public static final class Alter {
+
+            /**
+             * Adds the packed IP address column to the table.
+             */
+            public static final String ADD_PACKED_IP_ADDRESS_COLUMN = 
+                    "ALTER TABLE `" + SQLDefinitions.ViewTable.NAME + 
+                    "` ADD COLUMN " + 
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + " " +
+                    SQLDefinitions.ViewTable.PackedIPAddress.TYPE + ";";
+
+            /**
+             * Adds the page ID column to the table.
+             */
+            public static final String ADD_PAGE_ID_COLUMN = 
+                    "ALTER TABLE `" + SQLDefinitions.ViewTable.NAME + 
+                    "` ADD COLUMN " + 
+                    SQLDefinitions.ViewTable.PageId.NAME + " " +
+                    SQLDefinitions.ViewTable.PageId.TYPE + ";";
+
+            /**
+             * Widens the IP address column to fit any canonical IP address.
+             */
+            public static final String WIDEN_IP_ADDRESS_COLUMN = 
+                    widenIPAddressColumn(
+                            "`" + SQLDefinitions.ViewTable.NAME + "`");
         }
 
         /**
@@ -58,8 +99,49 @@ public final class SQLStatements {
                     SQLDefinitions.ViewTable.IPAddress.NAME + ", " +
                     SQLDefinitions.ViewTable.HostName.NAME + ", " +
                     SQLDefinitions.ViewTable.PortNumber.NAME + ", " +
-                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + ") " +
-                    "VALUES (?, ?, ?, ?);";
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + ", " +
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + ", " +
+                    SQLDefinitions.ViewTable.PageId.NAME + ") " +
+                    "VALUES (?, ?, ?, ?, ?, ?);";
+        }
+
+        /**
+         * The update data statements.
+         */
+        public static final class Update {
+
+            /**
+             * Sets the packed IP address of a view (by ID).
+             */
+            public static final String SET_PACKED_IP_ADDRESS = 
+                    "UPDATE `" + SQLDefinitions.ViewTable.NAME + "` SET " +
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + 
+                    " = ? WHERE " + SQLDefinitions.ViewTable.Id.NAME + 
+                    " = ?;";
+
+            /**
+             * Sets the IP address and the packed IP address of a view (by ID).
+             */
+            public static final String SET_IP_ADDRESS = 
+                    setIPAddress("`" + SQLDefinitions.ViewTable.NAME + "`");
+        }
+
+        /**
+         * The delete data statements.
+         */
+        public static final class Delete {
+
+            /**
+             * Deletes the views with the ID in a range and the view time 
+             * before a cutoff. The parameters are the inclusive start and the
+             * exclusive end of the ID range and the cutoff time.
+             */
+            public static final String DELETE_VIEWS_BEFORE = 
+                    "DELETE FROM `" + SQLDefinitions.ViewTable.NAME + 
+                    "` WHERE " + SQLDefinitions.ViewTable.Id.NAME + 
+                    " >= ? AND " + SQLDefinitions.ViewTable.Id.NAME + 
+                    " < ? AND " + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " < ?;";
         }
 
         /**
@@ -67,6 +149,21 @@ public final class SQLStatements {
          */
         public static final class Select {
 
+            /**
+             * Returns the smallest and the largest ID of the next batch of 
+             * the views older than a cutoff, taken in the order of the ID. 
+             * The parameters are the cutoff time, the ID from which to start
+             * and the batch size.
+             */
+            public static final String GET_ID_RANGE_OF_VIEWS_BEFORE = 
+                    "SELECT MIN(" + SQLDefinitions.ViewTable.Id.NAME + 
+                    "), MAX(" + SQLDefinitions.ViewTable.Id.NAME + 
+                    ") FROM (SELECT " + SQLDefinitions.ViewTable.Id.NAME + 
+                    " FROM `" + SQLDefinitions.ViewTable.NAME + "` WHERE " + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " < ? AND " +
+                    SQLDefinitions.ViewTable.Id.NAME + " >= ? ORDER BY " + 
+                    SQLDefinitions.ViewTable.Id.NAME + " LIMIT ?) AS batch;";
+
             /**
              * Returns the total number of views. 
              */
@@ -76,12 +173,12 @@ public final class SQLStatements {
             
             /**
              * Returns the number of views of a particular viewer 
-             * (by IP-address).
+             * (by packed IP-address).
              */
             public static final String GET_NUMBER_OF_VIEWS_OF_VISITOR = 
                     "SELECT COUNT(*) FROM `" + SQLDefinitions.ViewTable.NAME +
-                    "` WHERE " + SQLDefinitions.ViewTable.IPAddress.NAME + 
-                    " = ?;";
+                    "` WHERE " + 
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + " = ?;";
 
             /**
              * Returns the most recent view time.
@@ -93,13 +190,1173 @@ public final class SQLStatements {
             
             /**
              * Returns the most recent view time of a particular viewer 
-             * (by IP-address).
+             * (by packed IP-address).
              */
             public static final String GET_MOST_RECENT_VIEW_TIME_OF_VISITOR = 
                     "SELECT MAX(" +
-                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + ") FROM " +
-                    SQLDefinitions.ViewTable.NAME + " WHERE " + 
-                    SQLDefinitions.ViewTable.IPAddress.NAME + " = ?;";
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + ") FROM `" +
+                    SQLDefinitions.ViewTable.NAME + "` WHERE " + 
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + " = ?;";
+
+            /**
+             * Returns the ID, the IP-address and the view time of the next 
+             * batch of views. The parameters are the ID after which to start
+             * and the batch size.
+             */
+            public static final String GET_VIEWS_AFTER_ID = 
+                    "SELECT " + SQLDefinitions.ViewTable.Id.NAME + ", " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + ", " +
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " FROM `" +
+                    SQLDefinitions.ViewTable.NAME + "` WHERE " + 
+                    SQLDefinitions.ViewTable.Id.NAME + " > ? ORDER BY " + 
+                    SQLDefinitions.ViewTable.Id.NAME + " LIMIT ?;";
+
+            /**
+             * Returns the next batch of views with no packed IP address. The
+             * parameters are the ID after which to start and the batch size.
+             */
+            public static final String GET_VIEWS_WITHOUT_PACKED_IP_ADDRESS = 
+                    "SELECT " + SQLDefinitions.ViewTable.Id.NAME + ", " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + " FROM `" +
+                    SQLDefinitions.ViewTable.NAME + "` WHERE " + 
+                    SQLDefinitions.ViewTable.Id.NAME + " > ? AND " +
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + 
+                    " IS NULL ORDER BY " + SQLDefinitions.ViewTable.Id.NAME + 
+                    " LIMIT ?;";
+
+            /**
+             * Returns the ID and the IP address of the next batch of views. 
+             * The parameters are the ID after which to start and the batch 
+             * size.
+             */
+            public static final String GET_IP_ADDRESSES_AFTER_ID = 
+                    getIPAddressesAfterId(
+                            "`" + SQLDefinitions.ViewTable.NAME + "`");
+        }
+    }
+
+    /**
+     * The statements for the schema version table.
+     */
+    public static final class SchemaVersionTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for recording the applied schema migrations 
+             * unless there is one already in the database.
+             */
+            public static final String CREATE_SCHEMA_VERSION_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.SchemaVersionTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.SchemaVersionTable.Version.NAME + " " +
+                    SQLDefinitions.SchemaVersionTable.Version.TYPE + ",\n" +
+                    SQLDefinitions.SchemaVersionTable.Description.NAME + " " +
+                    SQLDefinitions.SchemaVersionTable.Description.TYPE + 
+                    ",\n" +
+                    SQLDefinitions.SchemaVersionTable.AppliedAt.NAME + " " +
+                    SQLDefinitions.SchemaVersionTable.AppliedAt.TYPE + ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.SchemaVersionTable.Version.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Records an applied schema migration.
+             */
+            public static final String INSERT_SCHEMA_VERSION = 
+                    "INSERT INTO " + SQLDefinitions.SchemaVersionTable.NAME + 
+                    " (" +
+                    SQLDefinitions.SchemaVersionTable.Version.NAME + ", " +
+                    SQLDefinitions.SchemaVersionTable.Description.NAME + ", " +
+                    SQLDefinitions.SchemaVersionTable.AppliedAt.NAME + ") " +
+                    "VALUES (?, ?, ?);";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the version of the most recently applied migration, or 
+             * zero if none has been applied.
+             */
+            public static final String GET_SCHEMA_VERSION = 
+                    "SELECT COALESCE(MAX(" + 
+                    SQLDefinitions.SchemaVersionTable.Version.NAME + 
+                    "), 0) FROM " + SQLDefinitions.SchemaVersionTable.NAME + 
+                    ";";
+        }
+    }
+
+    /**
+     * The statements for the lock serializing the schema migrations of the
+     * instances sharing a MySQL database.
+     */
+    public static final class MigrationLock {
+
+        /**
+         * Acquires the named lock for the session, returning 1 on success 
+         * and 0 on timeout. The parameters are the name and the timeout in 
+         * seconds.
+         */
+        public static final String ACQUIRE = "SELECT GET_LOCK(?, ?);";
+
+        /**
+         * Releases the named lock held by the session. The parameter is the
+         * name.
+         */
+        public static final String RELEASE = "SELECT RELEASE_LOCK(?);";
+    }
+
+    /**
+     * The statements for the view totals table.
+     */
+    public static final class ViewTotalsTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the view totals unless there is one already
+             * in the database.
+             */
+            public static final String CREATE_VIEW_TOTALS_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.ViewTotalsTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.ViewTotalsTable.Id.NAME + " " +
+                    SQLDefinitions.ViewTotalsTable.Id.TYPE + ",\n" +
+                    SQLDefinitions.ViewTotalsTable.ViewCount.NAME + " " +
+                    SQLDefinitions.ViewTotalsTable.ViewCount.TYPE + ",\n" +
+                    SQLDefinitions.ViewTotalsTable.LastViewTimestamp.NAME + 
+                    " " + 
+                    SQLDefinitions.ViewTotalsTable.LastViewTimestamp.TYPE + 
+                    ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.ViewTotalsTable.Id.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Initializes the totals from the main table, overwriting the 
+             * totals seeded by a failed attempt.
+             */
+            public static final String SEED_VIEW_TOTALS = 
+                    "INSERT INTO " + SQLDefinitions.ViewTotalsTable.NAME + 
+                    " (" +
+                    SQLDefinitions.ViewTotalsTable.Id.NAME + ", " +
+                    SQLDefinitions.ViewTotalsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.ViewTotalsTable.LastViewTimestamp.NAME + 
+                    ") SELECT " + 
+                    SQLDefinitions.ViewTotalsTable.TOTALS_ROW_ID + 
+                    ", COUNT(*), MAX(" + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + ") FROM `" +
+                    SQLDefinitions.ViewTable.NAME + 
+                    "` ON DUPLICATE KEY UPDATE " + 
+                    overwrite(SQLDefinitions.ViewTotalsTable.ViewCount.NAME) + 
+                    ", " + 
+                    overwrite(
+                            SQLDefinitions
+                                    .ViewTotalsTable
+                                    .LastViewTimestamp
+                                    .NAME) + ";";
+
+            /**
+             * Adds a number of views to a totals row. The parameters are the
+             * row ID, the number of views and the time of the latest of them.
+             */
+            public static final String ADD_VIEWS = 
+                    "INSERT INTO " + SQLDefinitions.ViewTotalsTable.NAME + 
+                    " (" +
+                    SQLDefinitions.ViewTotalsTable.Id.NAME + ", " +
+                    SQLDefinitions.ViewTotalsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.ViewTotalsTable.LastViewTimestamp.NAME + 
+                    ") VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    incrementCount(
+                            SQLDefinitions.ViewTotalsTable.ViewCount.NAME) +
+                    ", " +
+                    keepLatest(
+                            SQLDefinitions
+                                    .ViewTotalsTable
+                                    .LastViewTimestamp
+                                    .NAME) + ";";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the total number of views and the most recent view time.
+             */
+            public static final String GET_VIEW_TOTALS = 
+                    "SELECT " + 
+                    SQLDefinitions.ViewTotalsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.ViewTotalsTable.LastViewTimestamp.NAME + 
+                    " FROM " + SQLDefinitions.ViewTotalsTable.NAME + 
+                    " WHERE " + SQLDefinitions.ViewTotalsTable.Id.NAME + 
+                    " = " + SQLDefinitions.ViewTotalsTable.TOTALS_ROW_ID + ";";
+
+            /**
+             * Returns, in a single row, the total number of views, the most 
+             * recent view time, the number of views of a particular viewer and
+             * the most recent view time of that viewer (by IP-address).
+             */
+            public static final String GET_VIEW_TOTALS_AND_VISITOR_STATS = 
+                    "SELECT t." + 
+                    SQLDefinitions.ViewTotalsTable.ViewCount.NAME + ", t." +
+                    SQLDefinitions.ViewTotalsTable.LastViewTimestamp.NAME + 
+                    ", v." +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + ", v." +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    " FROM " + SQLDefinitions.ViewTotalsTable.NAME + 
+                    " t LEFT JOIN " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    " v ON v." + 
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + 
+                    " = ? WHERE t." + SQLDefinitions.ViewTotalsTable.Id.NAME + 
+                    " = " + SQLDefinitions.ViewTotalsTable.TOTALS_ROW_ID + ";";
+        }
+    }
+
+    /**
+     * The statements for the visitor statistics table.
+     */
+    public static final class VisitorStatsTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the visitor statistics unless there is one 
+             * already in the database.
+             */
+            public static final String CREATE_VISITOR_STATS_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.VisitorStatsTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + " " +
+                    SQLDefinitions.VisitorStatsTable.IPAddress.TYPE + ",\n" +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + " " +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.TYPE + ",\n" +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    " " + 
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.TYPE + 
+                    ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The alter table statements.
+         */
+        public static final class Alter {
+
+            /**
+             * Widens the IP address column to fit any canonical IP address.
+             */
+            public static final String WIDEN_IP_ADDRESS_COLUMN = 
+                    widenIPAddressColumn(
+                            SQLDefinitions.VisitorStatsTable.NAME);
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Initializes the visitor statistics from the main table, 
+             * overwriting the statistics seeded by a failed attempt.
+             */
+            public static final String SEED_VISITOR_STATS = 
+                    "INSERT INTO " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    " (" +
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    ") SELECT " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + ", COUNT(*), " +
+                    "MAX(" + SQLDefinitions.ViewTable.ViewTimestamp.NAME + 
+                    ") FROM `" + SQLDefinitions.ViewTable.NAME + 
+                    "` GROUP BY " + SQLDefinitions.ViewTable.IPAddress.NAME + 
+                    " ON DUPLICATE KEY UPDATE " + 
+                    overwrite(SQLDefinitions.VisitorStatsTable.ViewCount.NAME) +
+                    ", " + 
+                    overwrite(
+                            SQLDefinitions
+                                    .VisitorStatsTable
+                                    .LastViewTimestamp
+                                    .NAME) + ";";
+
+            /**
+             * Initializes the visitor statistics from the main and the archive
+             * tables.
+             */
+            public static final String SEED_VISITOR_STATS_WITH_ARCHIVE = 
+                    "INSERT INTO " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    " (" +
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    ") SELECT " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + ", COUNT(*), " +
+                    "MAX(" + SQLDefinitions.ViewTable.ViewTimestamp.NAME + 
+                    ") FROM (SELECT " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + ", " + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " FROM `" + 
+                    SQLDefinitions.ViewTable.NAME + "` UNION ALL SELECT " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + ", " + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " FROM " + 
+                    SQLDefinitions.ViewArchiveTable.NAME + ") v GROUP BY " + 
+                    SQLDefinitions.ViewTable.IPAddress.NAME + ";";
+
+            /**
+             * Adds a number of views to the statistics of a visitor. The 
+             * parameters are the IP-address, the number of views and the time
+             * of the latest of them.
+             */
+            public static final String ADD_VIEWS_OF_VISITOR = 
+                    "INSERT INTO " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    " (" +
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    ") VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    incrementCount(
+                            SQLDefinitions.VisitorStatsTable.ViewCount.NAME) +
+                    ", " +
+                    keepLatest(
+                            SQLDefinitions
+                                    .VisitorStatsTable
+                                    .LastViewTimestamp
+                                    .NAME) + ";";
+        }
+
+        /**
+         * The delete data statements.
+         */
+        public static final class Delete {
+
+            /**
+             * Deletes the statistics of all the visitors.
+             */
+            public static final String DELETE_ALL_VISITOR_STATS = 
+                    "DELETE FROM " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    ";";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the number of views and the most recent view time of a
+             * particular viewer (by IP-address).
+             */
+            public static final String GET_VISITOR_STATS = 
+                    "SELECT " + 
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    " FROM " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    " WHERE " + 
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + " = ?;";
+
+            /**
+             * Returns the IP-address, the number of views and the most recent
+             * view time of the given number of most recently seen visitors.
+             */
+            public static final String GET_MOST_RECENT_VISITORS = 
+                    "SELECT " + 
+                    SQLDefinitions.VisitorStatsTable.IPAddress.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    " FROM " + SQLDefinitions.VisitorStatsTable.NAME + 
+                    " ORDER BY " + 
+                    SQLDefinitions.VisitorStatsTable.LastViewTimestamp.NAME + 
+                    " DESC LIMIT ?;";
+        }
+    }
+
+    /**
+     * The statements for the view rollup table.
+     */
+    public static final class ViewRollupTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the view rollups unless there is one already
+             * in the database.
+             */
+            public static final String CREATE_VIEW_ROLLUP_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.ViewRollupTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.ViewRollupTable.Granularity.NAME + " " +
+                    SQLDefinitions.ViewRollupTable.Granularity.TYPE + ",\n" +
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + " " +
+                    SQLDefinitions.ViewRollupTable.BucketStart.TYPE + ",\n" +
+                    SQLDefinitions.ViewRollupTable.ViewCount.NAME + " " +
+                    SQLDefinitions.ViewRollupTable.ViewCount.TYPE + ",\n" +
+                    SQLDefinitions.ViewRollupTable.VisitorCount.NAME + " " +
+                    SQLDefinitions.ViewRollupTable.VisitorCount.TYPE + ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.ViewRollupTable.Granularity.NAME + ", " +
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Adds a number of views and distinct visitors to a bucket. The 
+             * parameters are the granularity, the bucket start, the number of
+             * views and the number of visitors.
+             */
+            public static final String ADD_VIEWS = 
+                    "INSERT INTO " + SQLDefinitions.ViewRollupTable.NAME + 
+                    " (" +
+                    SQLDefinitions.ViewRollupTable.Granularity.NAME + ", " +
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + ", " +
+                    SQLDefinitions.ViewRollupTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.ViewRollupTable.VisitorCount.NAME + 
+                    ") VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    incrementCount(
+                            SQLDefinitions.ViewRollupTable.ViewCount.NAME) +
+                    ", " +
+                    incrementCount(
+                            SQLDefinitions.ViewRollupTable.VisitorCount.NAME) +
+                    ";";
+        }
+
+        /**
+         * The update data statements.
+         */
+        public static final class Update {
+
+            /**
+             * Sets the number of visitors of each bucket with visitors in the
+             * rollup visitor table to the number of them.
+             */
+            public static final String RECOUNT_VISITORS = 
+                    "UPDATE " + SQLDefinitions.ViewRollupTable.NAME + 
+                    " SET " + SQLDefinitions.ViewRollupTable.VisitorCount.NAME +
+                    " = (SELECT COUNT(*) FROM " + 
+                    SQLDefinitions.RollupVisitorTable.NAME + " v WHERE " + 
+                    rollupVisitorOfBucket() + ") WHERE EXISTS (SELECT 1 FROM " +
+                    SQLDefinitions.RollupVisitorTable.NAME + " v WHERE " + 
+                    rollupVisitorOfBucket() + ");";
+        }
+
+        /**
+         * The delete data statements.
+         */
+        public static final class Delete {
+
+            /**
+             * Deletes all the buckets.
+             */
+            public static final String DELETE_ALL_BUCKETS = 
+                    "DELETE FROM " + SQLDefinitions.ViewRollupTable.NAME + 
+                    ";";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the bucket start, the number of views and the number of
+             * distinct visitors of the non-empty buckets in a time range in 
+             * chronological order. The parameters are the granularity, the 
+             * inclusive range start, the exclusive range end and the maximum 
+             * number of buckets.
+             */
+            public static final String GET_BUCKETS = 
+                    "SELECT " + 
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + ", " +
+                    SQLDefinitions.ViewRollupTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.ViewRollupTable.VisitorCount.NAME + 
+                    " FROM " + SQLDefinitions.ViewRollupTable.NAME + 
+                    " WHERE " + 
+                    SQLDefinitions.ViewRollupTable.Granularity.NAME + 
+                    " = ? AND " + 
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + 
+                    " >= ? AND " + 
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + 
+                    " < ? ORDER BY " + 
+                    SQLDefinitions.ViewRollupTable.BucketStart.NAME + 
+                    " LIMIT ?;";
+        }
+    }
+
+    /**
+     * The statements for the rollup visitor table.
+     */
+    public static final class RollupVisitorTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the distinct visitors of the rollup buckets
+             * unless there is one already in the database.
+             */
+            public static final String CREATE_ROLLUP_VISITOR_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.RollupVisitorTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.RollupVisitorTable.Granularity.NAME + " " +
+                    SQLDefinitions.RollupVisitorTable.Granularity.TYPE + 
+                    ",\n" +
+                    SQLDefinitions.RollupVisitorTable.BucketStart.NAME + " " +
+                    SQLDefinitions.RollupVisitorTable.BucketStart.TYPE + 
+                    ",\n" +
+                    SQLDefinitions.RollupVisitorTable.IPAddress.NAME + " " +
+                    SQLDefinitions.RollupVisitorTable.IPAddress.TYPE + ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.RollupVisitorTable.Granularity.NAME + ", " +
+                    SQLDefinitions.RollupVisitorTable.BucketStart.NAME + ", " +
+                    SQLDefinitions.RollupVisitorTable.IPAddress.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Adds a visitor to a bucket unless already there; updates one 
+             * row if the visitor is new to the bucket and none otherwise. 
+             * Written as a select, so that a batch is never rewritten into a
+             * single statement and reports each row. The parameters are the 
+             * granularity, the bucket start and the IP-address.
+             */
+            public static final String ADD_VISITOR = 
+                    "INSERT IGNORE INTO " + 
+                    SQLDefinitions.RollupVisitorTable.NAME + " (" +
+                    SQLDefinitions.RollupVisitorTable.Granularity.NAME + ", " +
+                    SQLDefinitions.RollupVisitorTable.BucketStart.NAME + ", " +
+                    SQLDefinitions.RollupVisitorTable.IPAddress.NAME + 
+                    ") SELECT ?, ?, ? FROM DUAL;";
+        }
+
+        /**
+         * The delete data statements.
+         */
+        public static final class Delete {
+
+            /**
+             * Deletes a batch of the visitors of the buckets starting before a
+             * cutoff. The parameters are the cutoff time and the maximum 
+             * number of the visitors to delete.
+             */
+            public static final String DELETE_VISITORS_BEFORE = 
+                    "DELETE FROM " + SQLDefinitions.RollupVisitorTable.NAME + 
+                    " WHERE " + 
+                    SQLDefinitions.RollupVisitorTable.BucketStart.NAME + 
+                    " < ? LIMIT ?;";
+        }
+    }
+
+    /**
+     * The statements for the visitor sketch table.
+     */
+    public static final class VisitorSketchTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the visitor sketches unless there is one 
+             * already in the database.
+             */
+            public static final String CREATE_VISITOR_SKETCH_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.VisitorSketchTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.VisitorSketchTable.Granularity.NAME + " " +
+                    SQLDefinitions.VisitorSketchTable.Granularity.TYPE + 
+                    ",\n" +
+                    SQLDefinitions.VisitorSketchTable.BucketStart.NAME + " " +
+                    SQLDefinitions.VisitorSketchTable.BucketStart.TYPE + 
+                    ",\n" +
+                    SQLDefinitions.VisitorSketchTable.Sketch.NAME + " " +
+                    SQLDefinitions.VisitorSketchTable.Sketch.TYPE + ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.VisitorSketchTable.Granularity.NAME + ", " +
+                    SQLDefinitions.VisitorSketchTable.BucketStart.NAME + 
+                    ")) ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Stores the sketch of a bucket, replacing the previous one. The
+             * parameters are the granularity, the bucket start and the 
+             * sketch.
+             */
+            public static final String PUT_SKETCH = 
+                    "INSERT INTO " + SQLDefinitions.VisitorSketchTable.NAME + 
+                    " (" +
+                    SQLDefinitions.VisitorSketchTable.Granularity.NAME + ", " +
+                    SQLDefinitions.VisitorSketchTable.BucketStart.NAME + ", " +
+                    SQLDefinitions.VisitorSketchTable.Sketch.NAME + 
+                    ") VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    SQLDefinitions.VisitorSketchTable.Sketch.NAME + 
+                    " = VALUES(" + 
+                    SQLDefinitions.VisitorSketchTable.Sketch.NAME + ");";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns and locks the sketch of a bucket. The parameters are the
+             * granularity and the bucket start.
+             */
+            public static final String GET_SKETCH_FOR_UPDATE = 
+                    "SELECT " + 
+                    SQLDefinitions.VisitorSketchTable.Sketch.NAME + 
+                    " FROM " + SQLDefinitions.VisitorSketchTable.NAME + 
+                    " WHERE " + 
+                    SQLDefinitions.VisitorSketchTable.Granularity.NAME + 
+                    " = ? AND " + 
+                    SQLDefinitions.VisitorSketchTable.BucketStart.NAME + 
+                    " = ? FOR UPDATE;";
+
+            /**
+             * Returns the sketches of the buckets in a time range. The 
+             * parameters are the granularity, the inclusive range start and 
+             * the exclusive range end.
+             */
+            public static final String GET_SKETCHES = 
+                    "SELECT " + 
+                    SQLDefinitions.VisitorSketchTable.Sketch.NAME + 
+                    " FROM " + SQLDefinitions.VisitorSketchTable.NAME + 
+                    " WHERE " + 
+                    SQLDefinitions.VisitorSketchTable.Granularity.NAME + 
+                    " = ? AND " + 
+                    SQLDefinitions.VisitorSketchTable.BucketStart.NAME + 
+                    " >= ? AND " + 
+                    SQLDefinitions.VisitorSketchTable.BucketStart.NAME + 
+                    " < ?;";
+        }
+    }
+
+    /**
+     * The statements for the page table.
+     */
+    public static final class PageTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the pages unless there is one already in 
+             * the database.
+             */
+            public static final String CREATE_PAGE_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.PageTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.PageTable.Id.NAME + " " +
+                    SQLDefinitions.PageTable.Id.TYPE + ",\n" +
+                    SQLDefinitions.PageTable.Path.NAME + " " +
+                    SQLDefinitions.PageTable.Path.TYPE + ",\n" +
+                    "PRIMARY KEY (" + SQLDefinitions.PageTable.Id.NAME + 
+                    "),\n" +
+                    "UNIQUE KEY " + SQLDefinitions.PageTable.PathIndex.NAME + 
+                    " (" + SQLDefinitions.PageTable.Path.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Adds a page unless already there. The parameter is the path.
+             */
+            public static final String INTERN_PAGE = 
+                    "INSERT IGNORE INTO " + SQLDefinitions.PageTable.NAME + 
+                    " (" + SQLDefinitions.PageTable.Path.NAME + 
+                    ") VALUES (?);";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the ID of a page (by path).
+             */
+            public static final String GET_PAGE_ID = 
+                    "SELECT " + SQLDefinitions.PageTable.Id.NAME + 
+                    " FROM " + SQLDefinitions.PageTable.NAME + " WHERE " + 
+                    SQLDefinitions.PageTable.Path.NAME + " = ?;";
+
+            /**
+             * Returns the number of the pages.
+             */
+            public static final String GET_NUMBER_OF_PAGES = 
+                    "SELECT COUNT(*) FROM " + SQLDefinitions.PageTable.NAME + 
+                    ";";
+        }
+    }
+
+    /**
+     * The statements for the page statistics table.
+     */
+    public static final class PageStatsTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the page statistics unless there is one 
+             * already in the database.
+             */
+            public static final String CREATE_PAGE_STATS_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.PageStatsTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.PageStatsTable.PageId.NAME + " " +
+                    SQLDefinitions.PageStatsTable.PageId.TYPE + ",\n" +
+                    SQLDefinitions.PageStatsTable.ViewCount.NAME + " " +
+                    SQLDefinitions.PageStatsTable.ViewCount.TYPE + ",\n" +
+                    SQLDefinitions.PageStatsTable.LastViewTimestamp.NAME + 
+                    " " + 
+                    SQLDefinitions.PageStatsTable.LastViewTimestamp.TYPE + 
+                    ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.PageStatsTable.PageId.NAME + ")) " +
+                    "ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Adds a number of views to the statistics of a page. The 
+             * parameters are the page ID, the number of views and the time of
+             * the latest of them.
+             */
+            public static final String ADD_VIEWS_OF_PAGE = 
+                    "INSERT INTO " + SQLDefinitions.PageStatsTable.NAME + 
+                    " (" +
+                    SQLDefinitions.PageStatsTable.PageId.NAME + ", " +
+                    SQLDefinitions.PageStatsTable.ViewCount.NAME + ", " +
+                    SQLDefinitions.PageStatsTable.LastViewTimestamp.NAME + 
+                    ") VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    incrementCount(
+                            SQLDefinitions.PageStatsTable.ViewCount.NAME) +
+                    ", " +
+                    keepLatest(
+                            SQLDefinitions
+                                    .PageStatsTable
+                                    .LastViewTimestamp
+                                    .NAME) + ";";
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the statement returning, per page in a list of pages 
+             * (by ID), the page ID, the number of views and the most recent 
+             * view time of the page, and the number of views and the most 
+             * recent view time of a particular visitor of the page (by 
+             * canonical IP address). The parameters are the IP address and 
+             * the page IDs. The statistics of a page or a visitor not yet 
+             * counted are {@code NULL}.
+             * 
+             * @param numberOfPages the number of the pages.
+             * @return the statement.
+             */
+            public static String getPageStatistics(int numberOfPages) {
+                StringBuilder stringBuilder = 
+                        new StringBuilder(
+                                "SELECT p." + 
+                                SQLDefinitions.PageTable.Id.NAME + 
+                                ", s." + 
+                                SQLDefinitions.PageStatsTable.ViewCount.NAME + 
+                                ", s." + 
+                                SQLDefinitions
+                                        .PageStatsTable
+                                        .LastViewTimestamp
+                                        .NAME + 
+                                ", v." + 
+                                SQLDefinitions
+                                        .PageVisitorStatsTable
+                                        .ViewCount
+                                        .NAME + 
+                                ", v." + 
+                                SQLDefinitions
+                                        .PageVisitorStatsTable
+                                        .LastViewTimestamp
+                                        .NAME + 
+                                " FROM " + 
+                                SQLDefinitions.PageTable.NAME + 
+                                " p LEFT JOIN " + 
+                                SQLDefinitions.PageStatsTable.NAME + 
+                                " s ON s." + 
+                                SQLDefinitions.PageStatsTable.PageId.NAME + 
+                                " = p." + 
+                                SQLDefinitions.PageTable.Id.NAME + 
+                                " LEFT JOIN " + 
+                                SQLDefinitions.PageVisitorStatsTable.NAME + 
+                                " v ON v." + 
+                                SQLDefinitions
+                                        .PageVisitorStatsTable
+                                        .PageId
+                                        .NAME + 
+                                " = p." + 
+                                SQLDefinitions.PageTable.Id.NAME + 
+                                " AND v." + 
+                                SQLDefinitions
+                                        .PageVisitorStatsTable
+                                        .IPAddress
+                                        .NAME + 
+                                " = ? WHERE p." + 
+                                SQLDefinitions.PageTable.Id.NAME + 
+                                " IN (");
+
+                for (int i = 0; i < numberOfPages; i++) {
+                    stringBuilder.append(i == 0 ? "?" : ", ?");
+                }
+
+                return stringBuilder.append(");").toString();
+            }
+        }
+    }
+
+    /**
+     * The statements for the page visitor statistics table.
+     */
+    public static final class PageVisitorStatsTable {
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a table for the page visitor statistics unless there is
+             * one already in the database.
+             */
+            public static final String CREATE_PAGE_VISITOR_STATS_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.PageVisitorStatsTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.PageVisitorStatsTable.PageId.NAME + " " +
+                    SQLDefinitions.PageVisitorStatsTable.PageId.TYPE + ",\n" +
+                    SQLDefinitions.PageVisitorStatsTable.IPAddress.NAME + 
+                    " " + 
+                    SQLDefinitions.PageVisitorStatsTable.IPAddress.TYPE + 
+                    ",\n" +
+                    SQLDefinitions.PageVisitorStatsTable.ViewCount.NAME + 
+                    " " + 
+                    SQLDefinitions.PageVisitorStatsTable.ViewCount.TYPE + 
+                    ",\n" +
+                    SQLDefinitions
+                            .PageVisitorStatsTable
+                            .LastViewTimestamp
+                            .NAME + " " + 
+                    SQLDefinitions
+                            .PageVisitorStatsTable
+                            .LastViewTimestamp
+                            .TYPE + ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.PageVisitorStatsTable.PageId.NAME + ", " + 
+                    SQLDefinitions.PageVisitorStatsTable.IPAddress.NAME + 
+                    ")) ENGINE=InnoDB DEFAULT CHARSET=utf8 DEFAULT COLLATE " + 
+                    "utf8_unicode_ci;";
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Adds a number of views to the statistics of a visitor of a 
+             * page. The parameters are the page ID, the IP address, the number
+             * of views and the time of the latest of them.
+             */
+            public static final String ADD_VIEWS_OF_PAGE_VISITOR = 
+                    "INSERT INTO " + 
+                    SQLDefinitions.PageVisitorStatsTable.NAME + " (" +
+                    SQLDefinitions.PageVisitorStatsTable.PageId.NAME + ", " +
+                    SQLDefinitions.PageVisitorStatsTable.IPAddress.NAME + 
+                    ", " +
+                    SQLDefinitions.PageVisitorStatsTable.ViewCount.NAME + 
+                    ", " +
+                    SQLDefinitions
+                            .PageVisitorStatsTable
+                            .LastViewTimestamp
+                            .NAME + 
+                    ") VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    incrementCount(
+                            SQLDefinitions
+                                    .PageVisitorStatsTable
+                                    .ViewCount
+                                    .NAME) +
+                    ", " +
+                    keepLatest(
+                            SQLDefinitions
+                                    .PageVisitorStatsTable
+                                    .LastViewTimestamp
+                                    .NAME) + ";";
+        }
+    }
+
+    /**
+     * The statements for the view archive table.
+     */
+    public static final class ViewArchiveTable {
+
+        /**
+         * The columns shared with the main table, the ID excluded.
+         */
+        private static final String VIEW_COLUMNS = 
+                SQLDefinitions.ViewTable.IPAddress.NAME + ", " +
+                SQLDefinitions.ViewTable.HostName.NAME + ", " +
+                SQLDefinitions.ViewTable.PortNumber.NAME + ", " +
+                SQLDefinitions.ViewTable.UserName.NAME + ", " +
+                SQLDefinitions.ViewTable.ViewTimestamp.NAME + ", " +
+                SQLDefinitions.ViewTable.PackedIPAddress.NAME + ", " +
+                SQLDefinitions.ViewTable.PageId.NAME;
+
+        /**
+         * The create table statements.
+         */
+        public static final class Create {
+
+            /**
+             * Creates a compressed table for the archived views unless there
+             * is one already in the database.
+             */
+            public static final String CREATE_VIEW_ARCHIVE_TABLE = 
+                    "CREATE TABLE IF NOT EXISTS " + 
+                    SQLDefinitions.ViewArchiveTable.NAME + 
+                    " (\n" +
+                    SQLDefinitions.ViewArchiveTable.Id.NAME + " " +
+                    SQLDefinitions.ViewArchiveTable.Id.TYPE + ",\n" +
+                    SQLDefinitions.ViewTable.IPAddress.NAME + " " + 
+                    SQLDefinitions.ViewTable.IPAddress.TYPE + ",\n" +
+                    SQLDefinitions.ViewTable.HostName.NAME + " " +
+                    SQLDefinitions.ViewTable.HostName.TYPE + ",\n" +
+                    SQLDefinitions.ViewTable.PortNumber.NAME + " " +
+                    SQLDefinitions.ViewTable.PortNumber.TYPE + ",\n" +
+                    SQLDefinitions.ViewTable.UserName.NAME + " " + 
+                    SQLDefinitions.ViewTable.UserName.TYPE + ",\n" +
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " " + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.TYPE + ",\n" +
+                    SQLDefinitions.ViewTable.PackedIPAddress.NAME + " " +
+                    SQLDefinitions.ViewTable.PackedIPAddress.TYPE + ",\n" +
+                    "PRIMARY KEY (" + 
+                    SQLDefinitions.ViewArchiveTable.Id.NAME + ")) " +
+                    "ENGINE=InnoDB ROW_FORMAT=COMPRESSED DEFAULT CHARSET=utf8 " +
+                    "DEFAULT COLLATE utf8_unicode_ci;";
+        }
+
+        /**
+         * The alter table statements.
+         */
+        public static final class Alter {
+
+            /**
+             * Adds the page ID column to the table.
+             */
+            public static final String ADD_PAGE_ID_COLUMN = 
+                    "ALTER TABLE " + SQLDefinitions.ViewArchiveTable.NAME + 
+                    " ADD COLUMN " + 
+                    SQLDefinitions.ViewTable.PageId.NAME + " " +
+                    SQLDefinitions.ViewTable.PageId.TYPE + ";";
+
+            /**
+             * Widens the IP address column to fit any canonical IP address.
+             */
+            public static final String WIDEN_IP_ADDRESS_COLUMN = 
+                    widenIPAddressColumn(SQLDefinitions.ViewArchiveTable.NAME);
+        }
+
+        /**
+         * The update data statements.
+         */
+        public static final class Update {
+
+            /**
+             * Sets the IP address and the packed IP address of an archived 
+             * view (by ID).
+             */
+            public static final String SET_IP_ADDRESS = 
+                    setIPAddress(SQLDefinitions.ViewArchiveTable.NAME);
+        }
+
+        /**
+         * The select data statements.
+         */
+        public static final class Select {
+
+            /**
+             * Returns the ID and the IP address of the next batch of archived
+             * views. The parameters are the ID after which to start and the 
+             * batch size.
+             */
+            public static final String GET_IP_ADDRESSES_AFTER_ID = 
+                    getIPAddressesAfterId(SQLDefinitions.ViewArchiveTable.NAME);
+        }
+
+        /**
+         * The insert data statements. 
+         */
+        public static final class Insert {
+
+            /**
+             * Copies the views with the ID in a range and the view time before
+             * a cutoff from the main table. The parameters are the inclusive 
+             * start and the exclusive end of the ID range and the cutoff time.
+             */
+            public static final String ARCHIVE_VIEWS_BEFORE = 
+                    "INSERT INTO " + SQLDefinitions.ViewArchiveTable.NAME + 
+                    " (" + SQLDefinitions.ViewArchiveTable.Id.NAME + ", " + 
+                    VIEW_COLUMNS + ") SELECT " + 
+                    SQLDefinitions.ViewTable.Id.NAME + ", " + VIEW_COLUMNS + 
+                    " FROM `" + SQLDefinitions.ViewTable.NAME + "` WHERE " + 
+                    SQLDefinitions.ViewTable.Id.NAME + " >= ? AND " + 
+                    SQLDefinitions.ViewTable.Id.NAME + " < ? AND " + 
+                    SQLDefinitions.ViewTable.ViewTimestamp.NAME + " < ?;";
         }
     }
+
+    /**
+     * Returns the statement widening the IP address column of 
+     * {@code table}.
+     */
+    private static String widenIPAddressColumn(String table) {
+        return "ALTER TABLE " + table + " MODIFY COLUMN " + 
+               SQLDefinitions.ViewTable.IPAddress.NAME + " " + 
+               SQLDefinitions.ViewTable.IPAddress.CANONICAL_TYPE + ";";
+    }
+
+    /**
+     * Returns the statement setting the IP address and the packed IP address
+     * of a view in {@code table}. The parameters are the IP address, the 
+     * packed IP address and the ID of the view.
+     */
+    private static String setIPAddress(String table) {
+        return "UPDATE " + table + " SET " + 
+               SQLDefinitions.ViewTable.IPAddress.NAME + " = ?, " + 
+               SQLDefinitions.ViewTable.PackedIPAddress.NAME + " = ? WHERE " + 
+               SQLDefinitions.ViewTable.Id.NAME + " = ?;";
+    }
+
+    /**
+     * Returns the statement selecting the ID and the IP address of the next 
+     * batch of views in {@code table}.
+     */
+    private static String getIPAddressesAfterId(String table) {
+        return "SELECT " + SQLDefinitions.ViewTable.Id.NAME + ", " + 
+               SQLDefinitions.ViewTable.IPAddress.NAME + " FROM " + table + 
+               " WHERE " + SQLDefinitions.ViewTable.Id.NAME + " > ? ORDER BY " +
+               SQLDefinitions.ViewTable.Id.NAME + " LIMIT ?;";
+    }
+
+    /**
+     * Returns the {@code ON DUPLICATE KEY UPDATE} clause replacing the 
+     * existing value of {@code column} with the inserted one.
+     */
+    private static String overwrite(String column) {
+        return column + " = VALUES(" + column + ")";
+    }
+
+    /**
+     * Returns the condition matching the rows {@code v} of the rollup visitor
+     * table to the row of the view rollup table being updated.
+     */
+    private static String rollupVisitorOfBucket() {
+        return "v." + SQLDefinitions.RollupVisitorTable.Granularity.NAME + 
+               " = " + SQLDefinitions.ViewRollupTable.NAME + "." + 
+               SQLDefinitions.ViewRollupTable.Granularity.NAME + " AND v." + 
+               SQLDefinitions.RollupVisitorTable.BucketStart.NAME + " = " + 
+               SQLDefinitions.ViewRollupTable.NAME + "." + 
+               SQLDefinitions.ViewRollupTable.BucketStart.NAME;
+    }
+
+    /**
+     * Returns the {@code ON DUPLICATE KEY UPDATE} clause adding the inserted 
+     * value of {@code column} to the existing one.
+     */
+    private static String incrementCount(String column) {
+        return column + " = " + column + " + VALUES(" + column + ")";
+    }
+
+    /**
+     * Returns the {@code ON DUPLICATE KEY UPDATE} clause keeping the later of 
+     * the existing and the inserted value of the timestamp {@code column}.
+     */
+    private static String keepLatest(String column) {
+        return column + " = GREATEST(COALESCE(" + column + ", VALUES(" + 
+               column + ")), VALUES(" + column + "))";
+    }
 }
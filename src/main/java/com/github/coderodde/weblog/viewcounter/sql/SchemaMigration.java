@@ -0,0 +1,241 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This class defines a single versioned step in the evolution of the database
+ * schema. A migration must be repeatable: one failing halfway is applied again
+ * from the start, so the schema changes are guarded by checking whether they
+ * are in place already and the data changes overwrite rather than add to 
+ * what the failed attempt left behind.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public abstract class SchemaMigration {
+
+    private final int version;
+    private final String description;
+
+    protected SchemaMigration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    /**
+     * Returns a migration that executes the given statements in order.
+     * 
+     * @param version     the version of the migration.
+     * @param description the human-readable description of the migration.
+     * @param statements  the statements to execute.
+     * @return the migration.
+     */
+    public static SchemaMigration ofStatements(int version, 
+                                               String description,
+                                               String... statements) {
+        Step[] steps = new Step[statements.length];
+
+        for (int i = 0; i < statements.length; i++) {
+            steps[i] = statement(statements[i]);
+        }
+
+        return ofSteps(version, description, steps);
+    }
+
+    /**
+     * Returns a migration that applies the given steps in order.
+     * 
+     * @param version     the version of the migration.
+     * @param description the human-readable description of the migration.
+     * @param steps       the steps to apply.
+     * @return the migration.
+     */
+    public static SchemaMigration ofSteps(int version, 
+                                          String description,
+                                          Step... steps) {
+        return new SchemaMigration(version, description) {
+            @Override
+            public void migrate(Connection connection) throws SQLException {
+                for (Step step : steps) {
+                    step.apply(connection);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a step executing the statement unconditionally, for the 
+     * statements repeatable as such.
+     * 
+     * @param sql the statement.
+     * @return the step.
+     */
+    public static Step statement(String sql) {
+        return connection -> execute(connection, sql);
+    }
+
+    /**
+     * Returns a step executing the statement adding {@code column} to 
+     * {@code table} unless the table has the column already.
+     * 
+     * @param table  the name of the table.
+     * @param column the name of the column.
+     * @param sql    the statement adding the column.
+     * @return the step.
+     */
+    public static Step addColumn(String table, String column, String sql) {
+        return connection -> {
+            if (!hasColumn(connection, table, column)) {
+                execute(connection, sql);
+            }
+        };
+    }
+
+    /**
+     * Returns a step executing the statement dropping {@code column} from 
+     * {@code table} if the table has the column.
+     * 
+     * @param table  the name of the table.
+     * @param column the name of the column.
+     * @param sql    the statement dropping the column.
+     * @return the step.
+     */
+    public static Step dropColumn(String table, String column, String sql) {
+        return connection -> {
+            if (hasColumn(connection, table, column)) {
+                execute(connection, sql);
+            }
+        };
+    }
+
+    /**
+     * Returns a step executing the statement creating {@code index} on 
+     * {@code table} unless the table has the index already.
+     * 
+     * @param table the name of the table.
+     * @param index the name of the index.
+     * @param sql   the statement creating the index.
+     * @return the step.
+     */
+    public static Step createIndex(String table, String index, String sql) {
+        return connection -> {
+            if (!hasIndex(connection, table, index)) {
+                execute(connection, sql);
+            }
+        };
+    }
+
+    /**
+     * Returns a step executing the statement dropping {@code index} from 
+     * {@code table} if the table has the index.
+     * 
+     * @param table the name of the table.
+     * @param index the name of the index.
+     * @param sql   the statement dropping the index.
+     * @return the step.
+     */
+    public static Step dropIndex(String table, String index, String sql) {
+        return connection -> {
+            if (hasIndex(connection, table, index)) {
+                execute(connection, sql);
+            }
+        };
+    }
+
+    /**
+     * Returns {@code true} if {@code table} has {@code column}.
+     * 
+     * @param connection the connection to the database.
+     * @param table      the name of the table.
+     * @param column     the name of the column.
+     * @return {@code true} if the column exists.
+     * @throws java.sql.SQLException if the SQL layer fails.
+     */
+    protected static boolean hasColumn(Connection connection, 
+                                       String table, 
+                                       String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        try (ResultSet resultSet = 
+                metaData.getColumns(connection.getCatalog(), 
+                                    null, 
+                                    table, 
+                                    column)) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code table} has {@code index}.
+     * 
+     * @param connection the connection to the database.
+     * @param table      the name of the table.
+     * @param index      the name of the index.
+     * @return {@code true} if the index exists.
+     * @throws java.sql.SQLException if the SQL layer fails.
+     */
+    protected static boolean hasIndex(Connection connection, 
+                                      String table, 
+                                      String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        try (ResultSet resultSet = 
+                metaData.getIndexInfo(connection.getCatalog(), 
+                                      null, 
+                                      table, 
+                                      false, 
+                                      true)) {
+            while (resultSet.next()) {
+                if (index.equalsIgnoreCase(
+                        resultSet.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private static void execute(Connection connection, String sql) 
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Applies this migration.
+     * 
+     * @param connection the connection to the database being migrated.
+     * @throws java.sql.SQLException if the SQL layer fails.
+     */
+    public abstract void migrate(Connection connection) throws SQLException;
+
+    /**
+     * A single repeatable step of a migration.
+     */
+    @FunctionalInterface
+    public interface Step {
+
+        /**
+         * Applies this step unless it is in place already.
+         * 
+         * @param connection the connection to the database being migrated.
+         * @throws java.sql.SQLException if the SQL layer fails.
+         */
+        void apply(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,259 @@
+package com.github.coderodde.weblog.viewcounter.sql;
+
+import static com.github.coderodde.weblog.viewcounter.Util.objects;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class lists all the schema migrations of the application in ascending
+ * version order and applies the ones missing from a database. 
+ * 
+ * <p>Migrations are never edited once released; changes to the schema are
+ * made by appending a new migration with the next version number. Every 
+ * migration may be repeated, so a migration failing halfway is completed by
+ * the next attempt. On MySQL, the instances booting concurrently take turns
+ * under a named lock and read the schema version only once holding it, so
+ * no migration is applied twice at once; the other databases are assumed to
+ * be local to a single instance.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class SchemaMigrations {
+
+    private static final Logger LOGGER = 
+            Logger.getLogger(SchemaMigrations.class.getName());
+
+    private static final String MIGRATION_LOCK_NAME = 
+            "weblog_schema_migration";
+    private static final int MIGRATION_LOCK_TIMEOUT_SECONDS = 600;
+
+    /**
+     * All the migrations in ascending version order.
+     */
+    public static final List<SchemaMigration> MIGRATIONS = 
+            Collections.unmodifiableList(Arrays.asList(
+                    SchemaMigration.ofStatements(
+                            1, 
+                            "Create the view table",
+                            SQLStatements
+                                    .ViewTable
+                                    .Create
+                                    .CREATE_VIEW_TABLE),
+                    SchemaMigration.ofStatements(
+                            2,
+                            "Create and seed the view counter tables",
+                            SQLStatements
+                                    .ViewTotalsTable
+                                    .Create
+                                    .CREATE_VIEW_TOTALS_TABLE,
+                            SQLStatements
+                                    .VisitorStatsTable
+                                    .Create
+                                    .CREATE_VISITOR_STATS_TABLE,
+                            SQLStatements
+                                    .ViewTotalsTable
+                                    .Insert
+                                    .SEED_VIEW_TOTALS,
+                            SQLStatements
+                                    .VisitorStatsTable
+                                    .Insert
+                                    .SEED_VISITOR_STATS),
+                    new PackIPAddressesMigration(3),
+                    new BackfillViewRollupsMigration(4),
+                    new BackfillVisitorSketchesMigration(5),
+                    SchemaMigration.ofStatements(
+                            6,
+                            "Create the view archive table",
+                            SQLStatements
+                                    .ViewArchiveTable
+                                    .Create
+                                    .CREATE_VIEW_ARCHIVE_TABLE),
+                    SchemaMigration.ofSteps(
+                            7,
+                            "Intern the pages into a lookup table referred " +
+                                    "to by the view tables",
+                            SchemaMigration.statement(
+                                    SQLStatements
+                                            .PageTable
+                                            .Create
+                                            .CREATE_PAGE_TABLE),
+                            SchemaMigration.addColumn(
+                                    SQLDefinitions.ViewTable.NAME,
+                                    SQLDefinitions.ViewTable.PageId.NAME,
+                                    SQLStatements
+                                            .ViewTable
+                                            .Alter
+                                            .ADD_PAGE_ID_COLUMN),
+                            SchemaMigration.addColumn(
+                                    SQLDefinitions.ViewArchiveTable.NAME,
+                                    SQLDefinitions.ViewTable.PageId.NAME,
+                                    SQLStatements
+                                            .ViewArchiveTable
+                                            .Alter
+                                            .ADD_PAGE_ID_COLUMN)),
+                    SchemaMigration.ofStatements(
+                            8,
+                            "Count the views per page and per visitor of " +
+                                    "each page",
+                            SQLStatements
+                                    .PageStatsTable
+                                    .Create
+                                    .CREATE_PAGE_STATS_TABLE,
+                            SQLStatements
+                                    .PageVisitorStatsTable
+                                    .Create
+                                    .CREATE_PAGE_VISITOR_STATS_TABLE),
+                    new NormalizeIPAddressesMigration(9),
+                    new BackfillRollupVisitorsMigration(10)));
+
+    private SchemaMigrations() {}
+
+    /**
+     * Brings the schema of the database up to date.
+     * 
+     * @param connection the connection to the database being migrated.
+     * @return the schema version after the migration.
+     * @throws java.sql.SQLException if the SQL layer fails.
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    SQLStatements
+                            .SchemaVersionTable
+                            .Create
+                            .CREATE_SCHEMA_VERSION_TABLE);
+        }
+
+        boolean locked = acquireMigrationLock(connection);
+
+        try {
+            return applyMigrations(connection);
+        } finally {
+            if (locked) {
+                releaseMigrationLock(connection);
+            }
+        }
+    }
+
+    private static int applyMigrations(Connection connection) 
+            throws SQLException {
+        int schemaVersion = getSchemaVersion(connection);
+
+        for (SchemaMigration migration : MIGRATIONS) {
+            if (migration.getVersion() <= schemaVersion) {
+                continue;
+            }
+
+            LOGGER.log(
+                    Level.INFO, 
+                    "Applying schema migration {0}: {1}", 
+                    objects(migration.getVersion(), 
+                            migration.getDescription()));
+
+            migration.migrate(connection);
+
+            try (PreparedStatement statement = 
+                    connection.prepareStatement(
+                            SQLStatements
+                                    .SchemaVersionTable
+                                    .Insert
+                                    .INSERT_SCHEMA_VERSION)) {
+
+                statement.setInt(1, migration.getVersion());
+                statement.setString(2, migration.getDescription());
+                statement.setTimestamp(3, Timestamp.from(Instant.now()));
+                statement.executeUpdate();
+            }
+
+            schemaVersion = migration.getVersion();
+        }
+
+        return schemaVersion;
+    }
+
+    /**
+     * Waits for the migration lock on MySQL. Returns {@code true} if the lock
+     * was taken, or {@code false} if the database has no such locks.
+     */
+    private static boolean acquireMigrationLock(Connection connection) 
+            throws SQLException {
+        if (!isMySQL(connection)) {
+            return false;
+        }
+
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements.MigrationLock.ACQUIRE)) {
+
+            statement.setString(1, MIGRATION_LOCK_NAME);
+            statement.setInt(2, MIGRATION_LOCK_TIMEOUT_SECONDS);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException(
+                            "Timed out waiting for the schema migration " + 
+                                    "lock held by another instance.");
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static void releaseMigrationLock(Connection connection) {
+        try (PreparedStatement statement = 
+                connection.prepareStatement(
+                        SQLStatements.MigrationLock.RELEASE)) {
+
+            statement.setString(1, MIGRATION_LOCK_NAME);
+            statement.executeQuery().close();
+        } catch (SQLException ex) {
+            // The connection is likely broken, which ends the session and 
+            // releases the lock:
+            LOGGER.log(
+                    Level.WARNING, 
+                    "Could not release the schema migration lock: {0}", 
+                    ex.getMessage());
+        }
+    }
+
+    private static boolean isMySQL(Connection connection) 
+            throws SQLException {
+        String productName = 
+                connection.getMetaData().getDatabaseProductName();
+
+        return "MySQL".equalsIgnoreCase(productName) || 
+               "MariaDB".equalsIgnoreCase(productName);
+    }
+
+    private static int getSchemaVersion(Connection connection) 
+            throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = 
+                     statement.executeQuery(
+                             SQLStatements
+                                     .SchemaVersionTable
+                                     .Select
+                                     .GET_SCHEMA_VERSION)) {
+
+            if (!resultSet.next()) {
+                throw new IllegalStateException(
+                        "Could not read the schema version.");
+            }
+
+            return resultSet.getInt(1);
+        }
+    }
+}